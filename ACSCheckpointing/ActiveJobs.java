@@ -0,0 +1,81 @@
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Ensemble des jobs actifs (non terminés), identifiés par leur indice.
+ * <p>
+ * Ajout, retrait (le dernier élément prend la place de l'élément retiré) et
+ * tirage uniforme d'un job sont en O(1).
+ */
+public class ActiveJobs {
+	/**
+	 * Les indices des jobs actifs (seuls les {@link #size} premiers sont utilisés)
+	 */
+	private final int[] elements;
+
+	/**
+	 * La position de chaque job dans {@link #elements}, ou -1 s'il n'est pas actif
+	 */
+	private final int[] positions;
+
+	private int size = 0;
+
+	/**
+	 * Crée un ensemble vide.
+	 *
+	 * @param capacity Le nombre de jobs (les indices vont de 0 à capacity - 1)
+	 */
+	public ActiveJobs(int capacity) {
+		elements = new int[capacity];
+		positions = new int[capacity];
+		Arrays.fill(positions, -1);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int job) {
+		return positions[job] >= 0;
+	}
+
+	public void add(int job) {
+		if (positions[job] >= 0)
+			return;
+		elements[size] = job;
+		positions[job] = size++;
+	}
+
+	public void remove(int job) {
+		final int p = positions[job];
+		if (p < 0)
+			return;
+		final int last = elements[--size];
+		elements[p] = last;
+		positions[last] = p;
+		positions[job] = -1;
+	}
+
+	/**
+	 * @return Le k-ième job actif (dans un ordre arbitraire), k dans [0, size())
+	 */
+	public int get(int k) {
+		if (k >= size)
+			throw new IndexOutOfBoundsException();
+		return elements[k];
+	}
+
+	/**
+	 * @return Un job actif choisi uniformément
+	 */
+	public int sample(Random random) {
+		if (size == 0)
+			throw new IllegalStateException("Aucun job actif");
+		return elements[random.nextInt(size)];
+	}
+}
@@ -0,0 +1,16 @@
+
+/**
+ * La raison pour laquelle une simulation s'est arrêtée.
+ */
+public enum ArretSimulation {
+	/**
+	 * Tous les jobs sont terminés: il n'y a plus rien à simuler (pas même des
+	 * pannes).
+	 */
+	QUIESCENCE,
+
+	/**
+	 * Le temps maximal de simulation a été atteint avant la fin de tous les jobs.
+	 */
+	HORIZON
+}
@@ -0,0 +1,212 @@
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cherche la valeur du paramètre d'une approche (a de
+ * {@link OurIntervalMultiplicativeApproach}, n de
+ * {@link OurIntervalAdditiveApproach}) qui minimise le temps ajouté (%) moyen
+ * sur un ensemble de MTTF.
+ * <p>
+ * Recherche par sections parallèles (comme la section dorée, mais avec
+ * plusieurs évaluations par tour): à chaque tour, {@code candidats} valeurs
+ * régulièrement espacées à l'intérieur de l'intervalle de recherche sont
+ * simulées pour tous les MTTF, en un seul lot (voir {@link SweepRunner}), puis
+ * l'intervalle est réduit à la meilleure valeur simulée plus ou moins l'écart
+ * entre deux candidats. Il est donc divisé par {@code (candidats + 1) / 2} à
+ * chaque tour, jusqu'à être plus étroit que la tolérance (au moins un tour).
+ * Le temps ajouté moyen est supposé unimodal dans l'intervalle de départ.
+ * <p>
+ * Le paramètre est donné à chaque estimateur par son scénario (voir
+ * {@link Scenario#creerEstimateur(long, Horloge)}): plusieurs valeurs peuvent
+ * être simulées en même temps. Tous les candidats utilisent la graine du
+ * scénario (les mêmes pannes), pour que leur comparaison ne dépende pas du
+ * bruit. Avec des partitions, les points sont simulés dans ce processus.
+ */
+public class Autotuneur {
+	/**
+	 * L'état de la recherche à la fin d'un tour.
+	 */
+	public static final class Tour {
+		private final double debut;
+		private final double fin;
+		private final double valeur;
+		private final double pourcentage;
+
+		Tour(double debut, double fin, double valeur, double pourcentage) {
+			this.debut = debut;
+			this.fin = fin;
+			this.valeur = valeur;
+			this.pourcentage = pourcentage;
+		}
+
+		/**
+		 * @return Le début de l'intervalle de recherche du tour suivant
+		 */
+		public double getDebut() {
+			return debut;
+		}
+
+		/**
+		 * @return La fin de l'intervalle de recherche du tour suivant
+		 */
+		public double getFin() {
+			return fin;
+		}
+
+		/**
+		 * @return La meilleure valeur simulée jusqu'à ce tour
+		 */
+		public double getValeur() {
+			return valeur;
+		}
+
+		/**
+		 * @return Le temps ajouté (%) moyen avec cette valeur
+		 */
+		public double getPourcentage() {
+			return pourcentage;
+		}
+	}
+
+	/**
+	 * Le résultat d'un réglage.
+	 */
+	public static final class Reglage {
+		private final double valeur;
+		private final double pourcentage;
+		private final int nbPoints;
+		private final List<Tour> tours;
+
+		Reglage(double valeur, double pourcentage, int nbPoints, List<Tour> tours) {
+			this.valeur = valeur;
+			this.pourcentage = pourcentage;
+			this.nbPoints = nbPoints;
+			this.tours = Collections.unmodifiableList(tours);
+		}
+
+		/**
+		 * @return La meilleure valeur du paramètre
+		 */
+		public double getValeur() {
+			return valeur;
+		}
+
+		/**
+		 * @return Le temps ajouté (%) moyen sur les MTTF avec cette valeur
+		 */
+		public double getPourcentage() {
+			return pourcentage;
+		}
+
+		/**
+		 * @return Le nombre de points (valeur, MTTF) simulés pendant le réglage
+		 */
+		public int getNbPoints() {
+			return nbPoints;
+		}
+
+		/**
+		 * @return L'historique de la recherche, un élément par tour
+		 */
+		public List<Tour> getTours() {
+			return tours;
+		}
+	}
+
+	private final SweepRunner runner;
+
+	private final int candidats;
+
+	private final double tolerance;
+
+	/**
+	 * @param runner    Simule les points de chaque tour
+	 * @param candidats Le nombre de valeurs simulées à chaque tour (au moins 2)
+	 * @param tolerance La largeur de l'intervalle de recherche à atteindre
+	 */
+	public Autotuneur(SweepRunner runner, int candidats, double tolerance) {
+		if (candidats < 2)
+			throw new IllegalArgumentException("Il faut au moins 2 candidats par tour (" + candidats + ")");
+		if (!(tolerance > 0))
+			throw new IllegalArgumentException("La tolérance doit être strictement positive");
+		this.runner = runner;
+		this.candidats = candidats;
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * @return Le nom du paramètre réglable de l'approche ("a" ou "n"), ou null si
+	 *         l'approche n'a pas de paramètre
+	 */
+	public static String getParametre(Class<? extends CheckpointInterval> approche) {
+		if (approche == OurIntervalMultiplicativeApproach.class)
+			return "a";
+		if (approche == OurIntervalAdditiveApproach.class)
+			return "n";
+		return null;
+	}
+
+	/**
+	 * Cherche la meilleure valeur du paramètre de l'approche du scénario dans
+	 * l'intervalle ]min, max[.
+	 *
+	 * @param mttfs Les MTTF (en heures) sur lesquels le temps ajouté est moyenné
+	 */
+	public Reglage regler(Scenario scenario, double min, double max, long[] mttfs) {
+		final String parametre = getParametre(scenario.getApproche());
+		if (parametre == null)
+			throw new IllegalArgumentException(
+					"L'approche " + scenario.getApproche().getSimpleName() + " n'a pas de paramètre à régler");
+		if (!(min < max))
+			throw new IllegalArgumentException("Intervalle de réglage invalide: [" + min + ", " + max + "]");
+		if (mttfs.length == 0)
+			throw new IllegalArgumentException("Il faut au moins un MTTF");
+		// les fichiers de trace et de métriques ne dépendent pas du paramètre
+		final Scenario base = scenario.withTrace(null).withMetriques(null);
+
+		double debut = min;
+		double fin = max;
+		double meilleureValeur = Double.NaN;
+		double meilleurPourcentage = Double.POSITIVE_INFINITY;
+		int nbPoints = 0;
+		final List<Tour> tours = new ArrayList<Tour>();
+		do {
+			final double[] valeurs = new double[candidats];
+			final List<Scenario> lot = new ArrayList<Scenario>(candidats * mttfs.length);
+			final long[] m = new long[candidats * mttfs.length];
+			for (int c = 0; c < candidats; c++) {
+				valeurs[c] = debut + (fin - debut) * (c + 1) / (candidats + 1);
+				final Scenario s = "a".equals(parametre) ? base.withParametres(valeurs[c], base.getN())
+						: base.withParametres(base.getA(), valeurs[c]);
+				for (int j = 0; j < mttfs.length; j++) {
+					m[lot.size()] = mttfs[j];
+					lot.add(s);
+				}
+			}
+			final PointResult[] r = runner.runPoints(lot, m);
+			nbPoints += r.length;
+
+			int meilleur = 0;
+			final double[] pourcentages = new double[candidats];
+			for (int c = 0; c < candidats; c++) {
+				for (int j = 0; j < mttfs.length; j++)
+					pourcentages[c] += r[c * mttfs.length + j].getPourcentage() / mttfs.length;
+				if (pourcentages[c] < pourcentages[meilleur])
+					meilleur = c;
+			}
+			if (pourcentages[meilleur] < meilleurPourcentage) {
+				meilleureValeur = valeurs[meilleur];
+				meilleurPourcentage = pourcentages[meilleur];
+			}
+			// la meilleure valeur d'un tour précédent peut rester la meilleure
+			final double pas = (fin - debut) / (candidats + 1);
+			debut = meilleureValeur - pas;
+			fin = meilleureValeur + pas;
+			tours.add(new Tour(debut, fin, meilleureValeur, meilleurPourcentage));
+		} while (fin - debut > tolerance);
+		return new Reglage(meilleureValeur, meilleurPourcentage, nbPoints, tours);
+	}
+}
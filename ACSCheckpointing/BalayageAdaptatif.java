@@ -0,0 +1,254 @@
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Balayage des MTTF qui ajoute des points là où les courbes changent le plus
+ * vite, au lieu d'une grille fixe.
+ * <p>
+ * Le balayage commence par une grille grossière. A chaque tour, le milieu
+ * (géométrique, les MTTF varient sur plusieurs ordres de grandeur) de chaque
+ * intervalle ouvert est simulé pour toutes les approches, en un seul lot (voir
+ * {@link SweepRunner}). L'erreur d'interpolation d'un intervalle est le plus
+ * grand écart, sur toutes les approches, entre le temps ajouté (%) simulé au
+ * milieu et son interpolation linéaire (en log du MTTF) entre les deux bornes.
+ * Les deux moitiés d'un intervalle restent ouvertes si cette erreur dépasse le
+ * seuil, ou si deux approches s'échangent entre les deux bornes (de plus que le
+ * seuil). Le balayage s'arrête quand plus aucun intervalle n'est ouvert, quand
+ * le nombre maximal de points est atteint (les intervalles de plus grande
+ * erreur sont découpés d'abord), ou quand les intervalles ne font plus qu'une
+ * heure.
+ * <p>
+ * Le temps ajouté simulé est bruité: un seuil plus petit que le bruit d'un
+ * point (voir {@link ReplicationRunner}) ajoute des points jusqu'au nombre
+ * maximal. Chaque point utilise la graine de son scénario: le balayage est
+ * reproductible.
+ */
+public class BalayageAdaptatif {
+	/**
+	 * Simule un lot de MTTF pour toutes les approches.
+	 */
+	private static abstract class Lot {
+		/**
+		 * @return Pour chaque approche, les résultats dans l'ordre de {@code mttfs}
+		 */
+		abstract List<PointResult[]> simuler(long[] mttfs);
+	}
+
+	private static final class Intervalle {
+		final long debut;
+		final long fin;
+
+		/**
+		 * L'erreur d'interpolation de l'intervalle dont celui-ci est une moitié
+		 */
+		final double erreur;
+
+		Intervalle(long debut, long fin, double erreur) {
+			this.debut = debut;
+			this.fin = fin;
+			this.erreur = erreur;
+		}
+
+		/**
+		 * @return Le milieu géométrique de l'intervalle (en heures)
+		 */
+		long milieu() {
+			return Math.round(Math.sqrt((double) debut * fin));
+		}
+	}
+
+	private final SweepRunner runner;
+
+	private final double seuil;
+
+	private final int maxPoints;
+
+	/**
+	 * Le nombre de tours du dernier balayage
+	 */
+	private int nbTours = 0;
+
+	/**
+	 * @param runner    Simule les points de chaque tour
+	 * @param seuil     L'erreur d'interpolation tolérée (en points de %)
+	 * @param maxPoints Le nombre maximal de MTTF simulés (grille initiale
+	 *                  comprise)
+	 */
+	public BalayageAdaptatif(SweepRunner runner, double seuil, int maxPoints) {
+		if (!(seuil >= 0))
+			throw new IllegalArgumentException("Le seuil d'interpolation doit être positif");
+		if (maxPoints < 2)
+			throw new IllegalArgumentException("Il faut au moins 2 points (" + maxPoints + ")");
+		this.runner = runner;
+		this.seuil = seuil;
+		this.maxPoints = maxPoints;
+	}
+
+	/**
+	 * @return Le nombre de tours (lots de milieux simulés) du dernier balayage,
+	 *         sans compter la grille initiale
+	 */
+	public int getNbTours() {
+		return nbTours;
+	}
+
+	/**
+	 * Balaye les MTTF entre le plus petit et le plus grand MTTF de la grille
+	 * initiale.
+	 *
+	 * @param scenarios Les scénarios (un par approche)
+	 * @param initiaux  La grille grossière (MTTF en heures)
+	 * @return Pour chaque scénario (dans l'ordre), les résultats par MTTF
+	 *         croissant
+	 */
+	public List<PointResult[]> run(final List<Scenario> scenarios, long[] initiaux) {
+		return run(new Lot() {
+			@Override
+			List<PointResult[]> simuler(long[] mttfs) {
+				return runner.run(scenarios, mttfs);
+			}
+		}, initiaux);
+	}
+
+	/**
+	 * Comme {@link #run(List, long[])}, mais simule toutes les approches avec les
+	 * mêmes tirages (voir
+	 * {@link SweepRunner#run(Scenario, List, long[])}).
+	 */
+	public List<PointResult[]> run(final Scenario scenario, final List<Class<? extends CheckpointInterval>> approches,
+			long[] initiaux) {
+		return run(new Lot() {
+			@Override
+			List<PointResult[]> simuler(long[] mttfs) {
+				return runner.run(scenario, approches, mttfs);
+			}
+		}, initiaux);
+	}
+
+	private List<PointResult[]> run(Lot lot, long[] initiaux) {
+		final long[] grille = initiaux.clone();
+		Arrays.sort(grille);
+		if (grille.length < 2 || grille[0] < 1 || grille[0] == grille[grille.length - 1])
+			throw new IllegalArgumentException("La grille initiale doit contenir au moins deux MTTF (en heures) différents");
+
+		// les résultats de toutes les approches, par MTTF
+		final TreeMap<Long, PointResult[]> points = new TreeMap<Long, PointResult[]>();
+		ajouter(points, distincts(grille), lot);
+
+		// au premier tour, tous les intervalles sont ouverts
+		List<Intervalle> ouverts = new ArrayList<Intervalle>();
+		final Long[] cles = points.keySet().toArray(new Long[points.size()]);
+		for (int k = 0; k + 1 < cles.length; k++)
+			ouverts.add(new Intervalle(cles[k], cles[k + 1], Double.POSITIVE_INFINITY));
+
+		int tour = 0;
+		while (!ouverts.isEmpty() && points.size() < maxPoints) {
+			// les intervalles d'une heure ne peuvent plus être découpés
+			final List<Intervalle> decoupables = new ArrayList<Intervalle>();
+			for (Intervalle i : ouverts)
+				if (i.milieu() > i.debut && i.milieu() < i.fin)
+					decoupables.add(i);
+			if (decoupables.isEmpty())
+				break;
+			final List<Intervalle> choisis = decoupables.subList(0,
+					Math.min(decoupables.size(), maxPoints - points.size()));
+
+			final long[] milieux = new long[choisis.size()];
+			for (int k = 0; k < milieux.length; k++)
+				milieux[k] = choisis.get(k).milieu();
+			ajouter(points, milieux, lot);
+			tour++;
+
+			final List<Intervalle> suivants = new ArrayList<Intervalle>();
+			for (Intervalle i : choisis) {
+				final long m = i.milieu();
+				final PointResult[] gauche = points.get(i.debut);
+				final PointResult[] centre = points.get(m);
+				final PointResult[] droite = points.get(i.fin);
+				final double erreur = erreur(i.debut, gauche, m, centre, i.fin, droite);
+				if (erreur > seuil || !memeClassement(gauche, centre))
+					suivants.add(new Intervalle(i.debut, m, erreur));
+				if (erreur > seuil || !memeClassement(centre, droite))
+					suivants.add(new Intervalle(m, i.fin, erreur));
+			}
+			// si le nombre maximal de points est atteint, les intervalles de plus grande
+			// erreur sont découpés d'abord
+			Collections.sort(suivants, new Comparator<Intervalle>() {
+				@Override
+				public int compare(Intervalle a, Intervalle b) {
+					return Double.compare(b.erreur, a.erreur);
+				}
+			});
+			ouverts = suivants;
+		}
+		nbTours = tour;
+
+		final int nbApproches = points.firstEntry().getValue().length;
+		final List<PointResult[]> resultats = new ArrayList<PointResult[]>(nbApproches);
+		for (int a = 0; a < nbApproches; a++) {
+			final PointResult[] r = new PointResult[points.size()];
+			int j = 0;
+			for (PointResult[] p : points.values())
+				r[j++] = p[a];
+			resultats.add(r);
+		}
+		return resultats;
+	}
+
+	private static void ajouter(Map<Long, PointResult[]> points, long[] mttfs, Lot lot) {
+		final List<PointResult[]> r = lot.simuler(mttfs);
+		for (int j = 0; j < mttfs.length; j++) {
+			final PointResult[] p = new PointResult[r.size()];
+			for (int a = 0; a < p.length; a++)
+				p[a] = r.get(a)[j];
+			points.put(mttfs[j], p);
+		}
+	}
+
+	private static long[] distincts(long[] tries) {
+		int n = 0;
+		final long[] r = new long[tries.length];
+		for (long m : tries)
+			if (n == 0 || r[n - 1] != m)
+				r[n++] = m;
+		return Arrays.copyOf(r, n);
+	}
+
+	/**
+	 * @return Le plus grand écart (sur toutes les approches) entre le temps ajouté
+	 *         au milieu et son interpolation linéaire en log du MTTF
+	 */
+	static double erreur(long m0, PointResult[] r0, long m, PointResult[] r, long m1, PointResult[] r1) {
+		final double t = Math.log((double) m / m0) / Math.log((double) m1 / m0);
+		double erreur = 0;
+		for (int a = 0; a < r.length; a++) {
+			final double interpole = r0[a].getPourcentage()
+					+ t * (r1[a].getPourcentage() - r0[a].getPourcentage());
+			erreur = Math.max(erreur, Math.abs(r[a].getPourcentage() - interpole));
+		}
+		return erreur;
+	}
+
+	/**
+	 * @return true si les approches sont classées dans le même ordre (par temps
+	 *         ajouté) pour les deux MTTF: deux approches qui s'échangent en restant
+	 *         à moins du seuil l'une de l'autre sont considérées à égalité
+	 */
+	private boolean memeClassement(PointResult[] r0, PointResult[] r1) {
+		for (int a = 0; a < r0.length; a++)
+			for (int b = a + 1; b < r0.length; b++) {
+				final double d0 = r0[a].getPourcentage() - r0[b].getPourcentage();
+				final double d1 = r1[a].getPourcentage() - r1[b].getPourcentage();
+				if (d0 * d1 < 0 && Math.max(Math.abs(d0), Math.abs(d1)) > seuil)
+					return false;
+			}
+		return true;
+	}
+}
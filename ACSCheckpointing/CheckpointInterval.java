@@ -2,6 +2,12 @@
 
 public interface CheckpointInterval {
 
+	/**
+	 * @param delta Le coût d'un checkpoint: le délai delta du job, ou avec un
+	 *              stockage partagé (voir {@link Stockage}) le coût effectif
+	 *              observé du dernier checkpoint du job
+	 * @return Le temps de calcul avant le prochain checkpoint
+	 */
 	long getCheckpointInterval(long delta);
 
 	void onFailure(long ttf);
@@ -0,0 +1,21 @@
+
+
+/**
+ * Une approche qui choisit, à chaque checkpoint, entre un checkpoint complet et
+ * un checkpoint incrémental (voir {@link Incremental}). Sans cette interface,
+ * le choix est {@link Incremental#isIncremental(int)}.
+ */
+public interface CheckpointIntervalIncremental extends CheckpointInterval {
+	/**
+	 * @param niveau          Le niveau du checkpoint (voir {@link Niveaux})
+	 * @param sale            Le travail effectué depuis le checkpoint précédent
+	 * @param nbIncrementaux  Le nombre de checkpoints incrémentaux depuis le
+	 *                        dernier checkpoint complet, ou -1 s'il n'y a pas
+	 *                        encore de checkpoint complet (le checkpoint sera
+	 *                        alors complet, quel que soit le choix)
+	 * @param coutComplet     Le coût d'un checkpoint complet
+	 * @param coutIncremental Le coût d'un checkpoint incrémental
+	 * @return true pour un checkpoint incrémental
+	 */
+	boolean isIncremental(int niveau, long sale, int nbIncrementaux, long coutComplet, long coutIncremental);
+}
@@ -0,0 +1,20 @@
+
+
+/**
+ * Une approche qui donne un intervalle de checkpointing par niveau (voir
+ * {@link Niveaux}).
+ * <p>
+ * Une approche qui n'implémente que {@link CheckpointInterval} peut aussi être
+ * utilisée avec plusieurs niveaux: l'intervalle du niveau k est alors celui de
+ * {@link CheckpointInterval#getCheckpointInterval(long)} pour le coût du
+ * niveau, divisé par la racine de la proportion des pannes dont protège ce
+ * niveau (la formule de Young avec le MTTF des pannes de gravité k ou plus).
+ */
+public interface CheckpointIntervalNiveaux extends CheckpointInterval {
+	/**
+	 * @param niveau Le niveau du checkpoint
+	 * @param delta  Le coût d'un checkpoint de ce niveau
+	 * @return Le temps de calcul entre deux checkpoints de ce niveau (ou plus)
+	 */
+	long getCheckpointInterval(int niveau, long delta);
+}
@@ -0,0 +1,111 @@
+
+
+/**
+ * Compteurs d'évènements d'une simulation (ou d'une partition): évènements
+ * traités par type, planifiés et annulés.
+ * <p>
+ * Les compteurs sont mis à jour par le thread qui simule, sans
+ * synchronisation, et lus par {@link Metriques} pendant la simulation: les
+ * valeurs lues sont approchées.
+ */
+public final class Compteurs {
+	private final long[] traites = new long[TypeEvenement.values().length];
+
+	private long planifies = 0;
+
+	private long annules = 0;
+
+	/**
+	 * L'évènement (d'ACS) en cours de traitement: un évènement qui s'annule
+	 * lui-même pendant son traitement (voir {@link Job#stopJob()}) n'est pas
+	 * compté comme annulé.
+	 */
+	private Object enCours = null;
+
+	public void planifie() {
+		planifies++;
+	}
+
+	public void traite(TypeEvenement type) {
+		traites[type.ordinal()]++;
+	}
+
+	/**
+	 * Début du traitement d'un évènement d'ACS.
+	 */
+	public void traite(TypeEvenement type, Object evenement) {
+		traites[type.ordinal()]++;
+		enCours = evenement;
+	}
+
+	/**
+	 * Compte l'annulation d'un évènement planifié (ignorée si c'est l'évènement en
+	 * cours de traitement).
+	 */
+	public void annule(Object evenement) {
+		if (evenement != enCours)
+			annules++;
+	}
+
+	public void annule() {
+		annules++;
+	}
+
+	/**
+	 * Ajoute {@code nb} au nombre d'évènements d'un type (par exemple des
+	 * ajustements, qui ne sont pas des évènements planifiés).
+	 */
+	public void ajouter(TypeEvenement type, long nb) {
+		traites[type.ordinal()] += nb;
+	}
+
+	/**
+	 * Ajoute les compteurs {@code c} à ces compteurs.
+	 */
+	public void add(Compteurs c) {
+		for (int t = 0; t < traites.length; t++)
+			traites[t] += c.traites[t];
+		planifies += c.planifies;
+		annules += c.annules;
+	}
+
+	public long getTraites(TypeEvenement type) {
+		return traites[type.ordinal()];
+	}
+
+	/**
+	 * @return Le nombre d'évènements planifiés traités (tous types, sauf
+	 *         {@link TypeEvenement#AJUSTER})
+	 */
+	public long getTotal() {
+		long n = 0;
+		for (TypeEvenement t : TypeEvenement.values())
+			if (t != TypeEvenement.AJUSTER)
+				n += traites[t.ordinal()];
+		return n;
+	}
+
+	public long getPlanifies() {
+		return planifies;
+	}
+
+	public long getAnnules() {
+		return annules;
+	}
+
+	/**
+	 * @return Le nombre d'évènements planifiés, ni traités ni annulés
+	 */
+	public long getEnAttente() {
+		return planifies - getTotal() - annules;
+	}
+
+	/**
+	 * Compte les ajustements des objets {@link OurInterval} donnés.
+	 */
+	public void compterAjustements(Iterable<? extends CheckpointInterval> estimateurs) {
+		for (CheckpointInterval c : estimateurs)
+			if (c instanceof OurInterval)
+				ajouter(TypeEvenement.AJUSTER, ((OurInterval) c).getNbAjustements());
+	}
+}
@@ -0,0 +1,42 @@
+
+
+import com.samysadi.acs.utility.random.Exponential;
+
+/**
+ * Les générateurs des délais de checkpoint des jobs d'une {@link JobStore}
+ * (un générateur par job).
+ */
+public abstract class DeltaGenerators {
+	/**
+	 * @return Le prochain délai de checkpoint du job i
+	 */
+	public abstract long nextLong(int i);
+
+	/**
+	 * Un objet Exponential d'ACS par job (voir {@link Generateur#JAVA_UTIL}).
+	 */
+	public static DeltaGenerators acs(final Exponential[] generators) {
+		return new DeltaGenerators() {
+			@Override
+			public long nextLong(int i) {
+				return generators[i].nextLong();
+			}
+		};
+	}
+
+	/**
+	 * Un générateur SplitMix64 par job, dont l'état est gardé dans un tableau
+	 * (voir {@link Generateur#XOSHIRO}): aucun objet n'est créé par job.
+	 *
+	 * @param states L'état (initialisé avec la graine) du générateur de chaque job
+	 * @param mean   La moyenne des délais de checkpoint
+	 */
+	public static DeltaGenerators splitMix(final long[] states, final double mean) {
+		return new DeltaGenerators() {
+			@Override
+			public long nextLong(int i) {
+				return ExponentialBuffer.exponential(mean, SplitMix64.nextDouble(states, i));
+			}
+		};
+	}
+}
@@ -0,0 +1,162 @@
+
+
+import java.util.Arrays;
+
+/**
+ * File d'évènements sous forme de tas binaire indexé, stocké dans des tableaux
+ * de types primitifs (aucun objet n'est créé pour planifier un évènement).
+ * <p>
+ * Chaque évènement possible a un numéro fixe (un "slot", par exemple
+ * {@code job * nbTypes + type}). Un slot est planifié au plus une fois: le
+ * replanifier change son temps (en O(log n)), l'annuler le retire du tas (en
+ * O(log n)).
+ * <p>
+ * A temps égal, les évènements sont traités dans l'ordre où ils ont été
+ * planifiés (comme dans le simulateur d'ACS).
+ */
+public class EventHeap {
+	/**
+	 * Le temps de chaque slot
+	 */
+	private final long[] times;
+
+	/**
+	 * Le numéro d'ordre de planification de chaque slot
+	 */
+	private final long[] seqs;
+
+	/**
+	 * Le tas (contient des slots)
+	 */
+	private final int[] heap;
+
+	/**
+	 * La position de chaque slot dans le tas, ou -1 s'il n'est pas planifié
+	 */
+	private final int[] pos;
+
+	private int size = 0;
+
+	private long seq = 0;
+
+	public EventHeap(int nbSlots) {
+		times = new long[nbSlots];
+		seqs = new long[nbSlots];
+		heap = new int[nbSlots];
+		pos = new int[nbSlots];
+		Arrays.fill(pos, -1);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean isScheduled(int slot) {
+		return pos[slot] >= 0;
+	}
+
+	public long getTime(int slot) {
+		return times[slot];
+	}
+
+	/**
+	 * Planifie le slot au temps donné. S'il est déjà planifié, il est replanifié
+	 * (comme s'il avait été annulé puis planifié à nouveau).
+	 */
+	public void schedule(int slot, long time) {
+		times[slot] = time;
+		seqs[slot] = seq++;
+		int i = pos[slot];
+		if (i < 0) {
+			i = size++;
+			heap[i] = slot;
+			pos[slot] = i;
+			siftUp(i);
+		} else {
+			// le slot est replanifié après tous les autres: son rang ne peut que baisser
+			// si son temps a augmenté, ou monter s'il a diminué
+			siftDown(siftUp(i));
+		}
+	}
+
+	/**
+	 * Annule le slot s'il est planifié.
+	 */
+	public void cancel(int slot) {
+		final int i = pos[slot];
+		if (i < 0)
+			return;
+		pos[slot] = -1;
+		final int last = heap[--size];
+		if (i == size)
+			return;
+		heap[i] = last;
+		pos[last] = i;
+		siftDown(siftUp(i));
+	}
+
+	/**
+	 * @return Le prochain slot (sans le retirer), ou -1 si la file est vide
+	 */
+	public int peek() {
+		return size == 0 ? -1 : heap[0];
+	}
+
+	/**
+	 * Retire le prochain slot de la file.
+	 *
+	 * @return Le slot retiré
+	 */
+	public int poll() {
+		final int slot = heap[0];
+		cancel(slot);
+		return slot;
+	}
+
+	private boolean less(int s1, int s2) {
+		if (times[s1] != times[s2])
+			return times[s1] < times[s2];
+		return seqs[s1] < seqs[s2];
+	}
+
+	private int siftUp(int i) {
+		final int slot = heap[i];
+		while (i > 0) {
+			final int parent = (i - 1) >>> 1;
+			final int p = heap[parent];
+			if (!less(slot, p))
+				break;
+			heap[i] = p;
+			pos[p] = i;
+			i = parent;
+		}
+		heap[i] = slot;
+		pos[slot] = i;
+		return i;
+	}
+
+	private void siftDown(int i) {
+		final int slot = heap[i];
+		final int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			int c = heap[child];
+			final int right = child + 1;
+			if (right < size && less(heap[right], c)) {
+				child = right;
+				c = heap[child];
+			}
+			if (!less(c, slot))
+				break;
+			heap[i] = c;
+			pos[c] = i;
+			i = child;
+		}
+		heap[i] = slot;
+		pos[slot] = i;
+	}
+}
@@ -0,0 +1,38 @@
+
+
+/**
+ * Tire des nombres selon une loi exponentielle, par blocs: les tirages sont
+ * faits à l'avance dans un tableau, qui est rempli à nouveau quand il est
+ * épuisé.
+ */
+public class ExponentialBuffer {
+	private static final int TAILLE = 1024;
+
+	private final double mean;
+	private final RandomSource random;
+	private final long[] buffer = new long[TAILLE];
+	private int next = TAILLE;
+
+	public ExponentialBuffer(double mean, RandomSource random) {
+		this.mean = mean;
+		this.random = random;
+	}
+
+	/**
+	 * Tire un nombre selon une loi exponentielle de moyenne {@code mean}.
+	 *
+	 * @param u Un nombre uniforme dans [0, 1)
+	 */
+	public static long exponential(double mean, double u) {
+		return (long) (-mean * Math.log1p(-u));
+	}
+
+	public long nextLong() {
+		if (next == TAILLE) {
+			for (int i = 0; i < TAILLE; i++)
+				buffer[i] = exponential(mean, random.nextDouble());
+			next = 0;
+		}
+		return buffer[next++];
+	}
+}
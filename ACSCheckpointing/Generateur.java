@@ -0,0 +1,20 @@
+
+
+/**
+ * Les générateurs de nombres aléatoires utilisables par une
+ * {@link ShardedSimulation} (voir {@link Tirages}).
+ */
+public enum Generateur {
+	/**
+	 * java.util.Random et les Exponential d'ACS, avec les mêmes tirages que
+	 * {@link MainClass}: les résultats sont les mêmes qu'avec le simulateur d'ACS.
+	 */
+	JAVA_UTIL,
+
+	/**
+	 * xoshiro256** pour les pannes, les restarts et les durées des jobs (tirés par
+	 * blocs), et un SplitMix64 par job pour les délais de checkpoint. Plus rapide,
+	 * mais les tirages ne sont pas ceux de {@link MainClass}.
+	 */
+	XOSHIRO
+}
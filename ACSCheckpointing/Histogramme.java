@@ -0,0 +1,104 @@
+
+
+/**
+ * Histogramme de valeurs positives (des durées) à mémoire fixe, avec des
+ * classes de largeur logarithmique (comme HdrHistogram): les valeurs sont
+ * comptées sans être gardées, avec une erreur relative inférieure à 1% sur les
+ * quantiles.
+ * <p>
+ * Chaque puissance de deux est découpée en 128 classes de même largeur (les
+ * valeurs inférieures à 256 ont chacune leur classe).
+ */
+public class Histogramme {
+	/**
+	 * Nombre de bits significatifs gardés pour chaque valeur
+	 */
+	private static final int BITS = 8;
+
+	private static final int DEMI = 1 << (BITS - 1);
+
+	static final int NB_CLASSES = (64 - BITS) * DEMI + DEMI;
+
+	private final long[] comptes = new long[NB_CLASSES];
+
+	private long total = 0;
+
+	private long max = 0;
+
+	static int classe(long v) {
+		if (v < (1L << BITS))
+			return (int) v;
+		final int decalage = 64 - BITS - Long.numberOfLeadingZeros(v);
+		return decalage * DEMI + (int) (v >>> decalage);
+	}
+
+	/**
+	 * @return La plus grande valeur de la classe {@code c}
+	 */
+	static long maxClasse(int c) {
+		if (c < (1 << BITS))
+			return c;
+		final int decalage = c / DEMI - 1;
+		final long sub = c - decalage * DEMI;
+		return ((sub + 1) << decalage) - 1;
+	}
+
+	/**
+	 * Ajoute une valeur (les valeurs négatives sont comptées comme 0).
+	 */
+	public void add(long v) {
+		if (v < 0)
+			v = 0;
+		comptes[classe(v)]++;
+		total++;
+		if (v > max)
+			max = v;
+	}
+
+	/**
+	 * Ajoute toutes les valeurs d'un autre histogramme.
+	 */
+	public void add(Histogramme h) {
+		for (int c = 0; c < NB_CLASSES; c++)
+			comptes[c] += h.comptes[c];
+		total += h.total;
+		if (h.max > max)
+			max = h.max;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * @param p Le pourcentage (entre 0 et 100)
+	 * @return La valeur (arrondie à la borne supérieure de sa classe, sans
+	 *         dépasser le maximum) en dessous de laquelle se trouvent p% des
+	 *         valeurs, ou 0 si l'histogramme est vide
+	 */
+	public long getQuantile(double p) {
+		if (total == 0)
+			return 0;
+		long rang = (long) Math.ceil(p / 100 * total);
+		if (rang < 1)
+			rang = 1;
+		long cumul = 0;
+		for (int c = 0; c < NB_CLASSES; c++) {
+			cumul += comptes[c];
+			if (cumul >= rang)
+				return Math.min(maxClasse(c), max);
+		}
+		return max;
+	}
+
+	/**
+	 * @return Les quantiles p50, p90, p99 et le maximum
+	 */
+	public Quantiles getQuantiles() {
+		return new Quantiles(getQuantile(50), getQuantile(90), getQuantile(99), max);
+	}
+}
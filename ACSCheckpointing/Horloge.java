@@ -0,0 +1,33 @@
+
+import com.samysadi.acs.core.Simulator;
+
+/**
+ * Donne le temps courant de la simulation.
+ * <p>
+ * Utilisé par les objets qui ont besoin du temps sans planifier d'évènements
+ * (voir {@link OurInterval}), pour qu'ils fonctionnent aussi bien dans le
+ * simulateur d'ACS que dans une {@link Shard}.
+ */
+public interface Horloge {
+	long getTime();
+
+	/**
+	 * @return Le plus grand délai qui peut être planifié
+	 */
+	long getMaximumScheduleDelay();
+
+	/**
+	 * L'horloge du simulateur d'ACS
+	 */
+	public static final Horloge ACS = new Horloge() {
+		@Override
+		public long getTime() {
+			return Simulator.getSimulator().getTime();
+		}
+
+		@Override
+		public long getMaximumScheduleDelay() {
+			return Simulator.getSimulator().getMaximumScheduleDelay();
+		}
+	};
+}
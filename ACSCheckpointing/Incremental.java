@@ -0,0 +1,89 @@
+
+
+import com.samysadi.acs.core.Simulator;
+
+/**
+ * Le checkpointing incrémental: un checkpoint incrémental n'écrit que ce qui a
+ * changé depuis le checkpoint précédent, et coûte une fraction du coût d'un
+ * checkpoint complet.
+ * <p>
+ * La fraction dépend du travail effectué depuis le checkpoint précédent (le
+ * travail "sale"): {@code fixe + (1 - fixe) * (1 - exp(-sale / saturation))}.
+ * Elle vaut {@code fixe} pour un checkpoint juste après le précédent, et tend
+ * vers 1 (tout a changé) quand le travail sale dépasse largement
+ * {@code saturation}.
+ * <p>
+ * Le premier checkpoint d'un job est complet, puis un checkpoint sur
+ * {@code completTous} (par défaut, voir {@link CheckpointIntervalIncremental}
+ * pour qu'une approche choisisse elle-même). La reprise après une panne se
+ * fait depuis le dernier checkpoint, complet ou incrémental.
+ */
+public final class Incremental {
+	/**
+	 * La fraction du coût complet payée même sans travail sale
+	 */
+	private final double fixe;
+
+	/**
+	 * Le travail sale pour lequel la partie variable atteint 63% du coût complet
+	 */
+	private final long saturation;
+
+	/**
+	 * Un checkpoint complet tous les {@code completTous} checkpoints
+	 */
+	private final int completTous;
+
+	/**
+	 * @param fixe        La fraction (entre 0 et 1) du coût complet payée même
+	 *                    sans travail sale
+	 * @param saturation  Le travail sale pour lequel la partie variable atteint
+	 *                    63% du coût complet
+	 * @param completTous Un checkpoint complet tous les {@code completTous}
+	 *                    checkpoints (1: tous les checkpoints sont complets)
+	 */
+	public Incremental(double fixe, long saturation, int completTous) {
+		if (!(fixe >= 0 && fixe <= 1) || saturation <= 0 || completTous < 1)
+			throw new IllegalArgumentException("Il faut 0 <= fixe <= 1, saturation > 0 et completTous >= 1 (" + fixe
+					+ ", " + saturation + ", " + completTous + ")");
+		this.fixe = fixe;
+		this.saturation = saturation;
+		this.completTous = completTous;
+	}
+
+	/**
+	 * @param sale Le travail effectué depuis le checkpoint précédent
+	 * @return La fraction du coût complet payée par un checkpoint incrémental
+	 */
+	public double fraction(long sale) {
+		return fixe + (1 - fixe) * -Math.expm1(-(double) sale / saturation);
+	}
+
+	/**
+	 * Le choix par défaut.
+	 *
+	 * @param nbIncrementaux Le nombre de checkpoints incrémentaux depuis le
+	 *                       dernier checkpoint complet, ou -1 s'il n'y a pas de
+	 *                       checkpoint complet
+	 * @return true si le prochain checkpoint est incrémental
+	 */
+	public boolean isIncremental(int nbIncrementaux) {
+		return nbIncrementaux >= 0 && nbIncrementaux + 1 < completTous;
+	}
+
+	/**
+	 * @return {@code fixe:saturation:completTous} (saturation en heures), voir
+	 *         {@link #parse(String)}
+	 */
+	public String format() {
+		return fixe + ":" + ((double) saturation / Simulator.HOUR) + ":" + completTous;
+	}
+
+	public static Incremental parse(String s) {
+		final String[] p = s.split(":");
+		if (p.length != 3)
+			throw new IllegalArgumentException("Incrémental invalide (fixe:saturation:completTous attendu): " + s);
+		return new Incremental(Double.parseDouble(p[0]), (long) (Double.parseDouble(p[1]) * Simulator.HOUR),
+				Integer.parseInt(p[2]));
+	}
+}
@@ -1,5 +1,7 @@
 
 
+import java.util.Arrays;
+
 import com.samysadi.acs.core.Simulator;
 import com.samysadi.acs.core.event.DispensableEventImpl;
 import com.samysadi.acs.core.event.EventImpl;
@@ -16,9 +18,10 @@ public class Job {
 	private long completedDuration = 0;
 
 	/**
-	 * La durée complétée dans le dernier Checkpoint
+	 * La durée complétée dans le dernier Checkpoint de chaque niveau (ou d'un
+	 * niveau supérieur), voir {@link Niveaux}
 	 */
-	private long checkpointedDuration = 0;
+	private long[] checkpointedDurations = new long[1];
 
 	/**
 	 * Le prochain évènement de Checkpointing
@@ -40,18 +43,154 @@ public class Job {
 	 */
 	private long completedAt = 0;
 
+	/**
+	 * Le nombre de checkpoints effectués
+	 */
+	private int nbCheckpoints = 0;
+
+	/**
+	 * Le nombre de restarts après une panne
+	 */
+	private int nbRestarts = 0;
+
+	/**
+	 * Le travail perdu (non checkpointé) à cause des pannes
+	 */
+	private long lostWork = 0;
+
 	// Event pour redémarrer le job après un checkpointing
 	private EventImpl continueJob = null;
 
 	private final CheckpointInterval checkpointIntervalObject;
 	private final Exponential deltaGenerator;
 
+	/**
+	 * Notifié quand un job se termine.
+	 */
+	public interface Observateur {
+		void jobTermine(Job job);
+	}
+
+	/**
+	 * L'indice du job dans sa simulation, ou -1
+	 */
+	private final int id;
+
+	private Observateur observateur = null;
+
+	/**
+	 * Les compteurs d'évènements de la simulation, ou null
+	 */
+	private Compteurs compteurs = null;
+
+	/**
+	 * Le stockage partagé des checkpoints, ou null (capacité infinie)
+	 */
+	private Stockage stockage = null;
+
+	/**
+	 * L'écriture en cours du checkpoint dans le stockage, ou null
+	 */
+	private Stockage.Transfert transfert = null;
+
+	/**
+	 * Le moment où le dernier checkpoint a commencé
+	 */
+	private long debutCheckpoint = 0;
+
+	/**
+	 * Le coût effectif (écriture dans le stockage + delta) du dernier checkpoint
+	 * terminé de chaque niveau, ou -1
+	 */
+	private long[] coutsObserves = { -1 };
+
+	private Niveaux niveaux = Niveaux.UN;
+
+	/**
+	 * Le niveau du checkpoint planifié (ou en cours)
+	 */
+	private int niveauCheckpoint = 0;
+
+	/**
+	 * Le checkpointing incrémental, ou null (tous les checkpoints sont complets)
+	 */
+	private Incremental incremental = null;
+
+	/**
+	 * Le nombre de checkpoints incrémentaux depuis le dernier checkpoint complet
+	 * de chaque niveau, ou -1 (pas encore de checkpoint complet)
+	 */
+	private int[] incrementaux = { -1 };
+
+	/**
+	 * Le checkpoint en cours est incrémental
+	 */
+	private boolean checkpointIncremental = false;
+
 	public Job(long initialDuration, CheckpointInterval checkpointIntervalObject, Exponential deltaGenerator) {
+		this(-1, initialDuration, checkpointIntervalObject, deltaGenerator);
+	}
+
+	public Job(int id, long initialDuration, CheckpointInterval checkpointIntervalObject,
+			Exponential deltaGenerator) {
+		this.id = id;
 		this.initialDuration = initialDuration;
 		this.checkpointIntervalObject = checkpointIntervalObject;
 		this.deltaGenerator = deltaGenerator;
 	}
 
+	public int getId() {
+		return id;
+	}
+
+	public void setObservateur(Observateur observateur) {
+		this.observateur = observateur;
+	}
+
+	public void setCompteurs(Compteurs compteurs) {
+		this.compteurs = compteurs;
+	}
+
+	/**
+	 * @param stockage Le stockage partagé où écrire les checkpoints (voir
+	 *                 {@link Stockage}), ou null
+	 */
+	public void setStockage(Stockage stockage) {
+		this.stockage = stockage;
+	}
+
+	/**
+	 * @param niveaux Les niveaux de checkpoint (à donner avant de démarrer le job)
+	 */
+	public void setNiveaux(Niveaux niveaux) {
+		this.niveaux = niveaux;
+		checkpointedDurations = new long[niveaux.getNombre()];
+		coutsObserves = new long[niveaux.getNombre()];
+		Arrays.fill(coutsObserves, -1);
+		incrementaux = new int[niveaux.getNombre()];
+		Arrays.fill(incrementaux, -1);
+	}
+
+	/**
+	 * @param incremental Le checkpointing incrémental (voir {@link Incremental}),
+	 *                    ou null
+	 */
+	public void setIncremental(Incremental incremental) {
+		this.incremental = incremental;
+	}
+
+	private void planifier(long delay, EventImpl e) {
+		if (compteurs != null)
+			compteurs.planifie();
+		Simulator.getSimulator().schedule(delay, e);
+	}
+
+	private void annuler(EventImpl e) {
+		if (compteurs != null)
+			compteurs.annule(e);
+		e.cancel();
+	}
+
 	public long getInitialDuration() {
 		return initialDuration;
 	}
@@ -72,12 +211,20 @@ public class Job {
 		this.completedAt = completedAt;
 	}
 
+	/**
+	 * @return La durée complétée dans le dernier Checkpoint (de n'importe quel
+	 *         niveau)
+	 */
 	public long getCheckpointedDuration() {
-		return checkpointedDuration;
+		return checkpointedDurations[0];
 	}
 
-	private void setCheckpointedDuration(long checkpointedDuration) {
-		this.checkpointedDuration = checkpointedDuration;
+	/**
+	 * @return La durée complétée dans le dernier Checkpoint de ce niveau (ou d'un
+	 *         niveau supérieur)
+	 */
+	public long getCheckpointedDuration(int niveau) {
+		return checkpointedDurations[niveau];
 	}
 
 	public DispensableEventImpl getCheckEvent() {
@@ -92,6 +239,18 @@ public class Job {
 		this.lastTime = lastTime;
 	}
 
+	public int getNbCheckpoints() {
+		return nbCheckpoints;
+	}
+
+	public int getNbRestarts() {
+		return nbRestarts;
+	}
+
+	public long getLostWork() {
+		return lostWork;
+	}
+
 	public CheckpointInterval getCheckpointIntervalObject() {
 		return checkpointIntervalObject;
 	}
@@ -100,8 +259,17 @@ public class Job {
 		EventImpl e = new EventImpl() {
 			@Override
 			public void process() {
-				// mettre à jour la durée complétée
-				setCheckpointedDuration(getCompletedDuration());
+				if (compteurs != null)
+					compteurs.traite(TypeEvenement.CONTINUE, this);
+				// mettre à jour la durée complétée (le checkpoint sert aussi de point de
+				// reprise aux niveaux inférieurs)
+				final int nb = checkpointIncremental ? incrementaux[niveauCheckpoint] + 1 : 0;
+				for (int k = 0; k <= niveauCheckpoint; k++) {
+					checkpointedDurations[k] = getCompletedDuration();
+					incrementaux[k] = nb;
+				}
+				nbCheckpoints++;
+				coutsObserves[niveauCheckpoint] = Simulator.getSimulator().getTime() - debutCheckpoint;
 				// redémarer le Job
 				startJob();
 				// mettre l'event continueJob à null
@@ -129,54 +297,151 @@ public class Job {
 		endEvent = new EventImpl() {
 			@Override
 			public void process() {
+				if (compteurs != null)
+					compteurs.traite(TypeEvenement.END, this);
 				stopJob();
 			}
 		};
-		Simulator.getSimulator().schedule(timeToFinish, endEvent);
+		planifier(timeToFinish, endEvent);
 
 		// Si le prochain event de checkpointing existe alors l'annuler
 		if (getCheckEvent() != null) {
-			getCheckEvent().cancel();
+			annuler(getCheckEvent());
 		}
 		final long delta = deltaGenerator.nextLong();
+
+		// choisir le prochain checkpoint: le niveau dont l'intervalle (en temps de
+		// calcul depuis son dernier checkpoint) se termine en premier, le plus haut
+		// niveau en cas d'égalité
+		long interval_checkpointing = Long.MAX_VALUE;
+		int n = 0;
+		for (int k = 0; k < niveaux.getNombre(); k++) {
+			long interval = intervalle(k, cout(k, delta));
+			// s'assurer que l'intervalle de Checkpointing n'est pas 0 (sinon, la simulation ne va pas se terminer)
+			if (interval == 0)
+				interval = 10 * Simulator.MILLISECOND;
+			interval -= getCompletedDuration() - checkpointedDurations[k];
+			if (interval <= interval_checkpointing) {
+				interval_checkpointing = interval;
+				n = k;
+			}
+		}
+		if (interval_checkpointing <= 0)
+			interval_checkpointing = 10 * Simulator.MILLISECOND;
+		final int niveau = n;
+		final long duree = (long) (delta * niveaux.getCout(niveau));
+
 		checkEvent = new DispensableEventImpl() {
 			@Override
 			public void process() {
+				if (compteurs != null)
+					compteurs.traite(TypeEvenement.CHECKPOINT, this);
 				// stopper le job
 				stopJob();
-				// planifier la reprise
-				continueJob = createContinueJob();
-				Simulator.getSimulator().schedule(delta, continueJob);
+				debutCheckpoint = Simulator.getSimulator().getTime();
+				niveauCheckpoint = niveau;
+				// un checkpoint incrémental ne paie qu'une fraction du coût (et de la taille)
+				final double fraction = fraction(niveau, duree);
+				final long dureeCheckpoint = fraction == 1 ? duree : (long) (duree * fraction);
+				// seuls les checkpoints du plus haut niveau sont écrits dans le stockage
+				// partagé
+				if (stockage == null || niveau < niveaux.getNombre() - 1) {
+					// planifier la reprise
+					continueJob = createContinueJob();
+					planifier(dureeCheckpoint, continueJob);
+					return;
+				}
+				// écrire le checkpoint dans le stockage, puis planifier la reprise
+				transfert = stockage.soumettre(new Stockage.Client() {
+					@Override
+					public void transfertTermine() {
+						transfert = null;
+						continueJob = createContinueJob();
+						planifier(dureeCheckpoint, continueJob);
+					}
+				}, fraction);
 			}
 		};
 		// planifier le checkpointing
-		long interval_checkpointing = checkpointIntervalObject.getCheckpointInterval(delta);
-		// s'assurer que l'intervalle de Checkpointing n'est pas 0 (sinon, la simulation ne va pas se terminer)
-		if (interval_checkpointing == 0)
-			interval_checkpointing = 10 * Simulator.MILLISECOND;
-		Simulator.getSimulator().schedule(interval_checkpointing, getCheckEvent());
+		planifier(interval_checkpointing, getCheckEvent());
+	}
+
+	/**
+	 * Le coût d'un checkpoint de ce niveau donné à l'approche: avec un stockage
+	 * partagé ou des checkpoints incrémentaux, le coût effectif du dernier
+	 * checkpoint de ce niveau (ou le coût d'un checkpoint complet sans contention
+	 * pour le premier).
+	 */
+	private long cout(int niveau, long delta) {
+		final boolean stocke = stockage != null && niveau == niveaux.getNombre() - 1;
+		if ((stocke || incremental != null) && coutsObserves[niveau] >= 0)
+			return coutsObserves[niveau];
+		final long cout = (long) (delta * niveaux.getCout(niveau));
+		return stocke ? stockage.getDureeNominale() + cout : cout;
+	}
+
+	/**
+	 * Choisit entre un checkpoint complet et un checkpoint incrémental (voir
+	 * {@link CheckpointIntervalIncremental}).
+	 *
+	 * @param duree Le coût d'un checkpoint complet de ce niveau (sans le stockage)
+	 * @return La fraction du coût complet payée par le checkpoint (1 pour un
+	 *         checkpoint complet)
+	 */
+	private double fraction(int niveau, long duree) {
+		checkpointIncremental = false;
+		if (incremental == null || incrementaux[niveau] < 0)
+			return 1;
+		final long sale = getCompletedDuration() - checkpointedDurations[niveau];
+		final double fraction = incremental.fraction(sale);
+		if (checkpointIntervalObject instanceof CheckpointIntervalIncremental)
+			checkpointIncremental = ((CheckpointIntervalIncremental) checkpointIntervalObject).isIncremental(niveau,
+					sale, incrementaux[niveau], duree, (long) (duree * fraction));
+		else
+			checkpointIncremental = incremental.isIncremental(incrementaux[niveau]);
+		return checkpointIncremental ? fraction : 1;
+	}
+
+	/**
+	 * L'intervalle de checkpointing d'un niveau, voir
+	 * {@link CheckpointIntervalNiveaux}.
+	 */
+	private long intervalle(int niveau, long cout) {
+		if (checkpointIntervalObject instanceof CheckpointIntervalNiveaux)
+			return ((CheckpointIntervalNiveaux) checkpointIntervalObject).getCheckpointInterval(niveau, cout);
+		final long interval = checkpointIntervalObject.getCheckpointInterval(cout);
+		if (niveaux.getNombre() == 1)
+			return interval;
+		final double p = niveaux.getProportion(niveau);
+		return p == 0 ? Long.MAX_VALUE : (long) (interval / Math.sqrt(p));
 	}
 
 	public void stopJob() {
 		// Annuler l'event de Checkpointing
 		if (getCheckEvent() != null) {
-			getCheckEvent().cancel();
+			annuler(getCheckEvent());
 			checkEvent = null;
 		}
 
 		// Annuler l'event de reprise
 		if (continueJob != null) {
-			continueJob.cancel();
+			annuler(continueJob);
 			continueJob = null;
 		}
 
+		// Annuler l'écriture du checkpoint
+		if (transfert != null) {
+			stockage.annuler(transfert);
+			transfert = null;
+		}
+
 		// Si le Job n'a pas d'évent de fin (c-a-d n'est pas en exécution) ou qu'il est
 		// déjà fini, alors ne rien faire
 		if (endEvent == null || isCompleted())
 			return;
 
 		// Annuler l'event de fin
-		endEvent.cancel();
+		annuler(endEvent);
 		endEvent = null;
 
 		// Mettre à jour la Durée complétée
@@ -186,6 +451,8 @@ public class Job {
 		// calculer le temps moyen)
 		if (isCompleted()) {
 			setCompletedAt(Simulator.getSimulator().getTime());
+			if (observateur != null)
+				observateur.jobTermine(this);
 		}
 	}
 
@@ -202,6 +469,15 @@ public class Job {
 	 * Cette méthode récupère l'état du job depuis le Checkpoint.
 	 */
 	public void recoverFromCheckpoint() {
+		recoverFromCheckpoint(0);
+	}
+
+	/**
+	 * Récupère l'état du job depuis son dernier Checkpoint qui survit à une panne
+	 * de cette gravité (de niveau supérieur ou égal, voir {@link Niveaux}). Les
+	 * checkpoints des niveaux inférieurs sont perdus.
+	 */
+	public void recoverFromCheckpoint(int gravite) {
 		// si le job est terminé alors ne rien faire
 		if (isCompleted())
 			return;
@@ -213,6 +489,13 @@ public class Job {
 					"On ne peut pas récuperer l'etat d'un job lorsque celui est toujours en execution!");
 
 		// Le nouveau temps complété = temps complété dans le dernier Checkpoint
-		setCompletedDuration(getCheckpointedDuration());
+		final long reprise = checkpointedDurations[gravite];
+		lostWork += getCompletedDuration() - reprise;
+		nbRestarts++;
+		setCompletedDuration(reprise);
+		for (int k = 0; k < gravite; k++) {
+			checkpointedDurations[k] = reprise;
+			incrementaux[k] = incrementaux[gravite];
+		}
 	}
 }
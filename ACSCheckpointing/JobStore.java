@@ -0,0 +1,146 @@
+
+
+/**
+ * L'état des jobs d'une {@link Shard}, stocké dans des tableaux de types
+ * primitifs indexés par le numéro du job (au lieu d'un objet par job), pour
+ * pouvoir simuler des millions de jobs sans créer des millions d'objets.
+ * <p>
+ * Voir {@link Job} pour la signification de chaque champ. Les tableaux sont
+ * lus et modifiés directement par la partition.
+ */
+public class JobStore {
+	final long[] initialDuration;
+
+	/**
+	 * La durée complétée (pas forcément Checkpointée)
+	 */
+	final long[] completedDuration;
+
+	/**
+	 * La durée complétée dans le dernier Checkpoint
+	 */
+	final long[] checkpointedDuration;
+
+	/**
+	 * Dernier temps du démarrage
+	 */
+	final long[] lastTime;
+
+	/**
+	 * Le moment où le job a été complété
+	 */
+	final long[] completedAt;
+
+	/**
+	 * Le délai du checkpoint planifié (voir {@link Shard})
+	 */
+	final long[] checkDelta;
+
+	/**
+	 * true si le job est en exécution (équivalent à endEvent != null dans
+	 * {@link Job})
+	 */
+	final boolean[] running;
+
+	/**
+	 * Le nombre de checkpoints effectués
+	 */
+	final int[] nbCheckpoints;
+
+	/**
+	 * Le nombre de restarts après une panne
+	 */
+	final int[] nbRestarts;
+
+	/**
+	 * Le travail perdu (non checkpointé) à cause des pannes
+	 */
+	final long[] lostWork;
+
+	/**
+	 * L'objet CheckpointInterval de chaque job, ou null si tous les jobs partagent
+	 * {@link #intervalPartage}
+	 */
+	private final CheckpointInterval[] intervals;
+
+	private final CheckpointInterval intervalPartage;
+
+	private final DeltaGenerators deltaGenerators;
+
+	/**
+	 * @param initialDurations Les durées initiales des jobs
+	 * @param intervals        L'objet CheckpointInterval de chaque job
+	 * @param deltaGenerators  Le générateur des délais de checkpoint de chaque job
+	 */
+	public JobStore(long[] initialDurations, CheckpointInterval[] intervals, DeltaGenerators deltaGenerators) {
+		final int n = initialDurations.length;
+		this.initialDuration = initialDurations;
+		completedDuration = new long[n];
+		checkpointedDuration = new long[n];
+		lastTime = new long[n];
+		completedAt = new long[n];
+		checkDelta = new long[n];
+		running = new boolean[n];
+		nbCheckpoints = new int[n];
+		nbRestarts = new int[n];
+		lostWork = new long[n];
+		this.deltaGenerators = deltaGenerators;
+
+		// si tous les jobs partagent le même objet, on ne garde pas le tableau
+		boolean partage = n > 0;
+		for (int i = 1; i < n && partage; i++)
+			partage = intervals[i] == intervals[0];
+		this.intervalPartage = partage ? intervals[0] : null;
+		this.intervals = partage ? null : intervals;
+	}
+
+	public int size() {
+		return initialDuration.length;
+	}
+
+	public boolean isCompleted(int i) {
+		return completedDuration[i] == initialDuration[i];
+	}
+
+	public CheckpointInterval getCheckpointIntervalObject(int i) {
+		return intervals == null ? intervalPartage : intervals[i];
+	}
+
+	/**
+	 * @return Le prochain délai de checkpoint du job i
+	 */
+	public long nextDelta(int i) {
+		return deltaGenerators.nextLong(i);
+	}
+
+	public long getInitialDuration(int i) {
+		return initialDuration[i];
+	}
+
+	public long getCompletedAt(int i) {
+		return completedAt[i];
+	}
+
+	/**
+	 * Ajoute à {@code avg} le temps de complétion de chaque job divisé par
+	 * {@code count} (même calcul, et donc même arrondi, que
+	 * {@link MainClass#getAverageCompletionTime()}).
+	 */
+	public double addAverageCompletionTime(double avg, int count) {
+		final long[] t = completedAt;
+		for (int i = 0; i < t.length; i++)
+			avg += (double) t[i] / count;
+		return avg;
+	}
+
+	/**
+	 * Voir {@link #addAverageCompletionTime(double, int)} et
+	 * {@link MainClass#getAverageJobLength()}.
+	 */
+	public double addAverageJobLength(double avg, int count) {
+		final long[] t = initialDuration;
+		for (int i = 0; i < t.length; i++)
+			avg += (double) t[i] / count;
+		return avg;
+	}
+}
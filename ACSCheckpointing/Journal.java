@@ -0,0 +1,216 @@
+
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.samysadi.acs.core.Simulator;
+
+/**
+ * Journal des évènements de la simulation, par niveaux, pour les chemins
+ * critiques (par exemple une ligne par panne).
+ * <p>
+ * Le niveau est lu une seule fois, dans la propriété système {@code journal}
+ * ({@code AUCUN} par défaut, {@code INFO} ou {@code DEBUG}). Les tests
+ * {@code if (Journal.INFO)} / {@code if (Journal.DEBUG)} portent sur des
+ * constantes: quand le journal est désactivé, ils ne coûtent rien (aucun
+ * calcul, aucune allocation).
+ * <p>
+ * Quand il est activé, chaque évènement est un enregistrement de taille fixe
+ * (type, temps, deux valeurs) écrit dans un tableau circulaire, sans créer de
+ * chaîne de caractères. Les enregistrements sont décodés et écrits par un
+ * thread séparé, sur la sortie standard ou dans le fichier donné par la
+ * propriété {@code journal.fichier}. Si le tableau est plein, l'enregistrement
+ * est perdu (le nombre d'enregistrements perdus est écrit par {@link #vider()}).
+ * Dans un balayage parallèle, chaque processus fils écrit dans son propre
+ * fichier (voir {@link #getFichier(String, Scenario, long)}), ou sur sa sortie
+ * standard, recopiée par {@link SweepRunner}.
+ * <p>
+ * Un seul thread écrit dans le journal (le thread du simulateur d'ACS).
+ */
+public final class Journal {
+	public enum Niveau {
+		AUCUN, INFO, DEBUG
+	}
+
+	/**
+	 * Les types d'enregistrements, et leur décodage.
+	 */
+	public enum Type {
+		/**
+		 * a: le moment de la panne planifiée
+		 */
+		PANNE_PLANIFIEE {
+			@Override
+			String decoder(long a, long b) {
+				return "Une panne a été planifiée à: " + Simulator.formatTime(a);
+			}
+		},
+		/**
+		 * a: l'indice du job mis en panne, b: le délai de restart
+		 */
+		PANNE {
+			@Override
+			String decoder(long a, long b) {
+				return "Panne du job " + a + ", restart dans " + Simulator.formatTime(b);
+			}
+		},
+		/**
+		 * a: l'indice du job (déjà terminé) mis en panne
+		 */
+		PANNE_SANS_EFFET {
+			@Override
+			String decoder(long a, long b) {
+				return "Panne sans effet (job " + a + " terminé)";
+			}
+		};
+
+		abstract String decoder(long a, long b);
+	}
+
+	/**
+	 * La propriété système du fichier du journal
+	 */
+	public static final String PROPRIETE_FICHIER = "journal.fichier";
+
+	private static final Niveau NIVEAU = Niveau.valueOf(System.getProperty("journal", Niveau.AUCUN.name()));
+
+	public static final boolean INFO = NIVEAU.compareTo(Niveau.INFO) >= 0;
+
+	public static final boolean DEBUG = NIVEAU.compareTo(Niveau.DEBUG) >= 0;
+
+	/**
+	 * Nombre d'enregistrements du tableau circulaire
+	 */
+	private static final int CAPACITE = 1 << 16;
+
+	/**
+	 * Nombre de longs par enregistrement: type, temps, a, b
+	 */
+	private static final int TAILLE = 4;
+
+	private Journal() {
+	}
+
+	/**
+	 * @param prefixe Le fichier du journal du balayage
+	 * @param mttf    Le MTTF (en heures)
+	 * @return Le fichier du journal d'un point simulé dans un processus fils
+	 */
+	public static File getFichier(String prefixe, Scenario scenario, long mttf) {
+		return new File(prefixe + "." + scenario.getApproche().getSimpleName() + ".mttf" + mttf + ".seed"
+				+ scenario.getRandomSeed() + ".journal");
+	}
+
+	/**
+	 * Ecrit un enregistrement (à appeler seulement si {@link #INFO} ou
+	 * {@link #DEBUG}, selon le niveau de l'enregistrement).
+	 *
+	 * @param time Le temps de la simulation
+	 */
+	public static void ecrire(Type type, long time, long a, long b) {
+		Anneau.INSTANCE.ecrire(type, time, a, b);
+	}
+
+	/**
+	 * Attend que tous les enregistrements soient écrits (ne fait rien si le
+	 * journal est désactivé).
+	 */
+	public static void vider() {
+		if (INFO)
+			Anneau.INSTANCE.vider();
+	}
+
+	/**
+	 * Le tableau circulaire et son thread de décodage, créés au premier
+	 * enregistrement.
+	 */
+	private static final class Anneau {
+		static final Anneau INSTANCE = new Anneau();
+
+		private final long[] enregistrements = new long[CAPACITE * TAILLE];
+
+		/**
+		 * Nombre d'enregistrements écrits / décodés depuis le début
+		 */
+		private final AtomicLong ecrits = new AtomicLong();
+		private final AtomicLong lus = new AtomicLong();
+
+		private long perdus = 0;
+
+		private final PrintStream sortie;
+
+		private final Thread decodeur;
+
+		private Anneau() {
+			final String fichier = System.getProperty(PROPRIETE_FICHIER);
+			PrintStream s = System.out;
+			if (fichier != null) {
+				try {
+					s = new PrintStream(new FileOutputStream(fichier, true), false, "UTF-8");
+				} catch (FileNotFoundException e) {
+					System.err.println("Cannot create journal file, using standard output!");
+				} catch (java.io.UnsupportedEncodingException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			sortie = s;
+			decodeur = new Thread("Journal") {
+				@Override
+				public void run() {
+					decoder();
+				}
+			};
+			decodeur.setDaemon(true);
+			decodeur.start();
+		}
+
+		void ecrire(Type type, long time, long a, long b) {
+			final long n = ecrits.get();
+			if (n - lus.get() >= CAPACITE) {
+				perdus++;
+				return;
+			}
+			final int i = (int) (n & (CAPACITE - 1)) * TAILLE;
+			enregistrements[i] = type.ordinal();
+			enregistrements[i + 1] = time;
+			enregistrements[i + 2] = a;
+			enregistrements[i + 3] = b;
+			// publie l'enregistrement pour le thread de décodage
+			ecrits.lazySet(n + 1);
+		}
+
+		private void decoder() {
+			final Type[] types = Type.values();
+			long n = lus.get();
+			while (true) {
+				final long fin = ecrits.get();
+				if (n == fin) {
+					sortie.flush();
+					LockSupport.parkNanos(1000000L);
+					continue;
+				}
+				for (; n < fin; n++) {
+					final int i = (int) (n & (CAPACITE - 1)) * TAILLE;
+					sortie.println("[" + Simulator.formatTime(enregistrements[i + 1]) + "] "
+							+ types[(int) enregistrements[i]].decoder(enregistrements[i + 2], enregistrements[i + 3]));
+				}
+				lus.lazySet(n);
+			}
+		}
+
+		void vider() {
+			final long fin = ecrits.get();
+			while (lus.get() < fin)
+				LockSupport.parkNanos(100000L);
+			if (perdus > 0) {
+				sortie.println("Journal: " + perdus + " enregistrements perdus (tableau plein)");
+				perdus = 0;
+			}
+			sortie.flush();
+		}
+	}
+}
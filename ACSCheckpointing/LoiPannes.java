@@ -0,0 +1,29 @@
+
+
+/**
+ * La loi des temps entre deux pannes (de l'ensemble des jobs), voir
+ * {@link SourcePannes}.
+ */
+public enum LoiPannes {
+	/**
+	 * Loi exponentielle (modèle d'origine)
+	 */
+	EXPONENTIELLE,
+
+	/**
+	 * Loi de Weibull de paramètre de forme {@link Scenario#getFormePannes()} (une
+	 * forme inférieure à 1 donne des pannes en rafales)
+	 */
+	WEIBULL,
+
+	/**
+	 * Loi log-normale d'écart type (du logarithme)
+	 * {@link Scenario#getFormePannes()}
+	 */
+	LOGNORMALE,
+
+	/**
+	 * Rejeu d'une trace de pannes réelle (voir {@link PannesTrace})
+	 */
+	TRACE
+}
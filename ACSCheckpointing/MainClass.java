@@ -1,17 +1,19 @@
 
 
-import java.lang.reflect.Constructor;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
 import com.samysadi.acs.core.Config;
 import com.samysadi.acs.core.Simulator;
 import com.samysadi.acs.core.event.DispensableEventImpl;
 import com.samysadi.acs.core.event.EventImpl;
-import com.samysadi.acs.utility.collections.ShuffledIterator;
 import com.samysadi.acs.utility.random.Exponential;
 
-public class MainClass {
+public class MainClass implements Simulation {
 
 	// compteur du nombre de pannes
 	private int nbPannes = 0;
@@ -43,9 +45,9 @@ public class MainClass {
 	private final Random random;
 
 	/**
-	 * Utilisé pour générer les pannes.
+	 * Utilisé pour générer les pannes (voir {@link Scenario#getLoiPannes()}).
 	 */
-	private final Exponential failuresGenerator;
+	private final SourcePannes failuresGenerator;
 
 	// moment de la dernière panne
 	private long lastFailureTime;
@@ -70,6 +72,129 @@ public class MainClass {
 
 	private final Class<? extends CheckpointInterval> checkpointingIntervalClass;
 
+	/**
+	 * Crée les estimateurs des jobs (voir {@link Scenario#creerEstimateur(long, Horloge)})
+	 */
+	private final Scenario scenario;
+
+	/**
+	 * Les objets CheckpointInterval des jobs, chacun une seule fois (un seul objet
+	 * si l'estimateur est partagé). Ce sont eux qui sont notifiés des pannes.
+	 */
+	private final ArrayList<CheckpointInterval> estimateurs;
+
+	/**
+	 * L'objet CheckpointInterval partagé par tous les jobs, si l'estimateur est
+	 * partagé, null sinon.
+	 */
+	private CheckpointInterval estimateurPartage = null;
+
+	private final boolean partagerEstimateur;
+
+	/**
+	 * Les jobs non terminés (indices dans {@link #jobs})
+	 */
+	private final ActiveJobs actifs;
+
+	private final ModeVictimes modeVictimes;
+
+	/**
+	 * Réutilisé pour choisir le job mis en panne (équivalent à un new
+	 * Random(random.nextLong()) à chaque panne).
+	 */
+	private final Random choix = new Random();
+
+	/**
+	 * Les temps de complétion des jobs terminés
+	 */
+	private final Histogramme completionTimes = new Histogramme();
+
+	/**
+	 * Le temps ajouté (temps de complétion - durée initiale) de chaque job terminé
+	 */
+	private final Histogramme overheads = new Histogramme();
+
+	/**
+	 * Retire les jobs terminés de {@link #actifs}, et compte leurs temps de
+	 * complétion.
+	 */
+	private final Job.Observateur observateur = new Job.Observateur() {
+		@Override
+		public void jobTermine(Job job) {
+			completionTimes.add(job.getCompletedAt());
+			overheads.add(job.getCompletedAt() - job.getInitialDuration());
+			actifs.remove(job.getId());
+			if (actifs.isEmpty())
+				onQuiescence();
+		}
+	};
+
+	/**
+	 * Le moment où le dernier job s'est terminé, ou -1
+	 */
+	private long quiescentAt = -1;
+
+	/**
+	 * La trace des pannes et des jobs, ou null
+	 */
+	private TraceWriter trace = null;
+
+	/**
+	 * Les compteurs d'évènements (voir {@link Metriques})
+	 */
+	private final Compteurs compteurs = new Compteurs();
+
+	/**
+	 * Le stockage partagé des checkpoints, ou null (voir
+	 * {@link Scenario#getStockage()})
+	 */
+	private final Stockage stockage;
+
+	/**
+	 * Les niveaux de checkpoint (voir {@link Scenario#getNiveaux()})
+	 */
+	private final Niveaux niveaux;
+
+	/**
+	 * Le checkpointing incrémental, ou null (voir
+	 * {@link Scenario#getIncremental()})
+	 */
+	private final Incremental incremental;
+
+	/**
+	 * Tire la gravité des pannes (flux séparé, pour ne pas changer les autres
+	 * tirages)
+	 */
+	private final Random gravites;
+
+	/**
+	 * Le placement des jobs sur des hôtes et des racks, ou null (voir
+	 * {@link Scenario#getTopologie()})
+	 */
+	private final Topologie topologie;
+
+	/**
+	 * Avec une topologie, les processus de pannes de chaque niveau
+	 */
+	private final List<ProcessusPannes> processus = new ArrayList<ProcessusPannes>();
+
+	/**
+	 * Avec une topologie, les jobs arrêtés qui attendent leur redémarrage
+	 */
+	private final boolean[] enPanne;
+
+	/**
+	 * La réserve de noeuds de secours, ou null (voir
+	 * {@link Scenario#getCapaciteReserve()})
+	 */
+	private final ReserveNoeuds reserve;
+
+	/**
+	 * Avec une topologie, le moment du dernier arrêt de chaque job (voir
+	 * {@link #panneCorrelee(int, int)})
+	 */
+	private final long[] dernieresPannes;
+
 	/**
 	 * @param real_mttf          Le MTTF reel (d'un seul job) utilisé pour générer
 	 *                           les pannes
@@ -84,27 +209,233 @@ public class MainClass {
 	 */
 	public MainClass(Class<? extends CheckpointInterval> checkpointingIntervalClass, long real_mttf, long ap_mttf,
 			long delta, long restart_delay_mean, int job_count, long mean_job_length, long randomSeed) {
-		this.checkpointingIntervalClass = checkpointingIntervalClass;
+		this(new Scenario(checkpointingIntervalClass, OurIntervalMultiplicativeApproach.DEFAULT_A,
+				OurIntervalAdditiveApproach.DEFAULT_N, delta, restart_delay_mean, job_count, mean_job_length, null,
+				randomSeed, 0, 0), real_mttf, ap_mttf);
+	}
+
+	/**
+	 * Crée la simulation d'un point avec les paramètres et les options d'un
+	 * scénario.
+	 * <p>
+	 * Si l'estimateur est partagé ({@link Scenario#isEstimateurPartage()}), tous
+	 * les jobs (qui ont la même approche avec les mêmes paramètres) utilisent un
+	 * seul objet {@link CheckpointInterval}. Comme chaque objet reçoit les mêmes
+	 * ttf, le MTTF estimé (et donc l'intervalle de checkpointing) est le même que
+	 * s'il y avait un objet par job, mais une panne ne coûte plus qu'un seul appel
+	 * à onFailure() au lieu d'un appel par job. Avec une topologie, seuls les
+	 * jobs arrêtés notifient leur estimateur, chacun avec son propre ttf (voir
+	 * {@link #panneCorrelee(int, int)}): un estimateur partagé voit alors les
+	 * pannes de tous les jobs.
+	 *
+	 * @param real_mttf Le MTTF reel (d'un seul job) utilisé pour générer les
+	 *                  pannes
+	 * @param ap_mttf   Le MTTF à priori (d'un seul job) donné comme paramètre
+	 */
+	public MainClass(Scenario scenario, long real_mttf, long ap_mttf) {
+		final int job_count = scenario.getNbJobs();
+		this.checkpointingIntervalClass = scenario.getApproche();
+		this.scenario = scenario;
 		this.mttf = real_mttf;
 		this.ap_mttf = ap_mttf;
-		this.delta = delta;
+		this.delta = scenario.getDelta();
+		this.partagerEstimateur = scenario.isEstimateurPartage();
+		this.modeVictimes = scenario.getModeVictimes();
 		jobs = new ArrayList<Job>(job_count);
-		this.mean_job_length = mean_job_length;
-		random = new Random(randomSeed);
+		actifs = new ActiveJobs(job_count);
+		estimateurs = new ArrayList<CheckpointInterval>(partagerEstimateur ? 1 : job_count);
+		this.mean_job_length = scenario.getMeanJobLength();
+		random = new Random(scenario.getRandomSeed());
 		// on crée un nouveau générateur (new random) pour éviter d'interférer avec la
 		// génération d'autres nombres
-		restartDelayGenerator = new Exponential(restart_delay_mean, new Random(random.nextLong()));
+		restartDelayGenerator = new Exponential(scenario.getRestartDelayMean(), new Random(random.nextLong()));
 		// on crée un nouveau générateur (new random) pour éviter d'interférer avec la
 		// génération d'autres nombres
 		// le real_mttf est celui d'un seul job, donc si on a 1000 jobs -> il y a une
 		// panne toutes les real_mttf / 1000
-		failuresGenerator = new Exponential(real_mttf / job_count, new Random(random.nextLong()));
+		failuresGenerator = SourcePannes.creer(scenario, real_mttf / job_count, random);
 		lastFailureTime = Simulator.getSimulator().getTime();
+		stockage = Stockage.creer(scenario, compteurs);
+		niveaux = scenario.getNiveaux();
+		incremental = scenario.getIncremental();
+		gravites = new Random(SplitMix64.seed(scenario.getRandomSeed(), -1));
+		topologie = scenario.getTopologie();
+		enPanne = topologie == null ? null : new boolean[job_count];
+		dernieresPannes = topologie == null ? null : new long[job_count];
+		if (dernieresPannes != null)
+			Arrays.fill(dernieresPannes, lastFailureTime);
+		reserve = ReserveNoeuds.creer(scenario, compteurs);
 
 		// Initialisation
-		generateFailureEvent(0);
+		if (topologie == null)
+			generateFailureEvent(0);
 		initJobs(job_count);
 		startJobs();
+		if (topologie != null)
+			demarrerPannesCorrelees(scenario.getRandomSeed());
+	}
+
+	/**
+	 * Un processus de pannes d'un niveau de la topologie: chaque panne touche tous
+	 * les jobs d'un domaine (un job, un hôte ou un rack, voir {@link Topologie}).
+	 */
+	private final class ProcessusPannes {
+		private final SourcePannes source;
+
+		/**
+		 * Le nombre de jobs d'un domaine
+		 */
+		private final int taille;
+
+		private final int nbDomaines;
+
+		/**
+		 * Choisit le domaine en panne
+		 */
+		private final Random random;
+
+		private DispensableEventImpl evenement = null;
+
+		ProcessusPannes(SourcePannes source, int taille, Random random) {
+			this.source = source;
+			this.taille = taille;
+			this.nbDomaines = Topologie.getNbDomaines(jobs.size(), taille);
+			this.random = random;
+		}
+	}
+
+	/**
+	 * Démarre un processus de pannes par niveau de la topologie: les jobs (la
+	 * source de pannes du scénario), les hôtes et les racks (loi exponentielle).
+	 */
+	private void demarrerPannesCorrelees(long seed) {
+		final int n = jobs.size();
+		processus.add(new ProcessusPannes(failuresGenerator, 1, new Random(SplitMix64.seed(seed, -2))));
+		if (topologie.getMttfHote() > 0) {
+			final int taille = topologie.getJobsParHote();
+			processus.add(new ProcessusPannes(
+					SourcePannes.exponentielle(topologie.getMttfHote() / Topologie.getNbDomaines(n, taille),
+							new Random(SplitMix64.seed(seed, -3))),
+					taille, new Random(SplitMix64.seed(seed, -4))));
+		}
+		if (topologie.getMttfRack() > 0) {
+			final int taille = topologie.getJobsParRack();
+			processus.add(new ProcessusPannes(
+					SourcePannes.exponentielle(topologie.getMttfRack() / Topologie.getNbDomaines(n, taille),
+							new Random(SplitMix64.seed(seed, -5))),
+					taille, new Random(SplitMix64.seed(seed, -6))));
+		}
+		for (ProcessusPannes p : processus)
+			planifierPanne(p);
+	}
+
+	/**
+	 * Planifie la prochaine panne d'un niveau de la topologie. Les niveaux sont
+	 * indépendants, et un niveau n'attend pas les redémarrages: la prochaine panne
+	 * est planifiée dès qu'une panne survient.
+	 */
+	private void planifierPanne(final ProcessusPannes p) {
+		if (actifs.isEmpty()) {
+			onQuiescence();
+			return;
+		}
+		final long intervalle = p.source.prochainIntervalle();
+		final int noeud = p.source.getNoeud();
+		p.evenement = new DispensableEventImpl() {
+			@Override
+			public void process() {
+				compteurs.traite(TypeEvenement.BREAKDOWN, this);
+				p.evenement = null;
+				final int domaine;
+				if (noeud >= 0)
+					domaine = noeud % p.nbDomaines;
+				else if (p.taille == 1 && modeVictimes == ModeVictimes.ACTIFS)
+					domaine = actifs.sample(p.random);
+				else
+					domaine = p.random.nextInt(p.nbDomaines);
+				panneCorrelee(domaine * p.taille, Math.min(jobs.size(), (domaine + 1) * p.taille));
+				planifierPanne(p);
+			}
+		};
+		compteurs.planifie();
+		Simulator.getSimulator().schedule(intervalle, p.evenement);
+	}
+
+	/**
+	 * Met en panne les jobs {@code [debut, fin)} qui sont en exécution, et les
+	 * redémarre ensemble après un seul délai de restart. Seuls les estimateurs des
+	 * jobs arrêtés sont notifiés (pas ceux des jobs terminés ou déjà en panne): le
+	 * coût d'une panne est proportionnel au nombre de jobs touchés.
+	 * <p>
+	 * Le ttf d'un job arrêté est le temps écoulé depuis son arrêt précédent (ou
+	 * depuis le début de la simulation). Estimateur partagé ou non, c'est le même
+	 * ttf: un estimateur partagé reçoit un ttf par job arrêté.
+	 */
+	private void panneCorrelee(int debut, int fin) {
+		final long now = Simulator.getSimulator().getTime();
+		final int gravite = niveaux.tirerGravite(gravites);
+		final List<Job> victimes = new ArrayList<Job>(fin - debut);
+		long delai = -1;
+		for (int j = debut; j < fin; j++) {
+			final Job job = jobs.get(j);
+			if (job.isCompleted() || enPanne[j])
+				continue;
+			if (delai < 0)
+				delai = restartDelayGenerator.nextLong();
+			job.getCheckpointIntervalObject().onFailure(now - dernieresPannes[j]);
+			dernieresPannes[j] = now;
+			nbPannes++;
+			job.stopJob();
+			enPanne[j] = true;
+			victimes.add(job);
+			if (trace != null)
+				trace.panne(now, j, job.getCompletedDuration() - job.getCheckpointedDuration(gravite), delai, false);
+			if (Journal.DEBUG)
+				Journal.ecrire(Journal.Type.PANNE, now, j, delai);
+		}
+		if (victimes.isEmpty()) {
+			if (trace != null)
+				trace.panne(now, debut, 0, 0, true);
+			if (Journal.DEBUG)
+				Journal.ecrire(Journal.Type.PANNE_SANS_EFFET, now, debut, 0);
+			return;
+		}
+		if (reserve == null) {
+			redemarrer(victimes, delai, gravite);
+			return;
+		}
+		// les jobs qui ont un noeud de secours libre redémarrent ensemble, les autres
+		// chacun quand un noeud lui est attribué
+		final List<Job> servis = new ArrayList<Job>(victimes.size());
+		for (final Job job : victimes)
+			if (reserve.demander(new ReserveNoeuds.Client() {
+				@Override
+				public void noeudAttribue() {
+					redemarrer(Collections.singletonList(job), restartDelayGenerator.nextLong(), gravite);
+				}
+			}))
+				servis.add(job);
+		if (!servis.isEmpty())
+			redemarrer(servis, delai, gravite);
+		reserve.reparer(victimes.size());
+	}
+
+	/**
+	 * Redémarre ensemble des jobs en panne (avec une topologie), après un délai.
+	 */
+	private void redemarrer(final List<Job> victimes, long delai, final int gravite) {
+		compteurs.planifie();
+		Simulator.getSimulator().schedule(delai, new EventImpl() {
+			@Override
+			public void process() {
+				compteurs.traite(TypeEvenement.RESTART, this);
+				for (Job job : victimes) {
+					enPanne[job.getId()] = false;
+					job.recoverFromCheckpoint(gravite);
+					job.startJob();
+				}
+			}
+		});
 	}
 
 	/**
@@ -131,34 +462,59 @@ public class MainClass {
 			return;
 		}
 
+		// si tous les jobs sont terminés, il n'y a plus de pannes (la première panne
+		// est planifiée avant la création des jobs)
+		if (!jobs.isEmpty() && actifs.isEmpty()) {
+			onQuiescence();
+			return;
+		}
+
 		// s'il y a déjà une panne de planifiée, on l'annule
 		if (breakdownEvent != null) {
+			compteurs.annule(breakdownEvent);
 			breakdownEvent.cancel();
 			breakdownEvent = null;
 		}
 
+		final long intervalle = failuresGenerator.prochainIntervalle();
+		// le noeud en panne, ou -1 pour tirer la victime au hasard
+		final int noeud = failuresGenerator.getNoeud();
 		breakdownEvent = new DispensableEventImpl() {
 			@Override
 			public void process() {
+				compteurs.traite(TypeEvenement.BREAKDOWN, this);
 				breakdownEvent = null;
 
 				long ttf = Simulator.getSimulator().getTime() - lastFailureTime;
 				lastFailureTime = Simulator.getSimulator().getTime();
 				// ajuster le ttf pour chaque job
-				ttf = ttf * jobs.size();
-				// pour chaque job, appeler sa méthode onFailure()
-				for (Job j : jobs)
-					j.getCheckpointIntervalObject().onFailure(ttf);
-
-				// seléctionner un job aléatoirement et le mettre en panne (ShuffledIterator est
-				// un iterateur offert par ACS pour parcourir une liste aléatoirement)
-				ShuffledIterator<Job> iterator = new ShuffledIterator<Job>(jobs, new Random(random.nextLong()));
-				final Job job = iterator.next();
+				diffuserPanne(ttf * jobs.size());
+
+				// tous les jobs se sont terminés depuis que cette panne a été planifiée
+				if (actifs.isEmpty())
+					return;
+
+				// seléctionner un job aléatoirement et le mettre en panne (parmi tous les jobs,
+				// ou parmi les jobs non terminés)
+				choix.setSeed(random.nextLong());
+				final Job job;
+				if (noeud >= 0)
+					// la victime est le job du noeud donné par la source (quel que soit le mode)
+					job = jobs.get(noeud % jobs.size());
+				else
+					job = modeVictimes == ModeVictimes.ACTIFS ? jobs.get(actifs.sample(choix))
+							: jobs.get(choix.nextInt(jobs.size()));
 				// si le job est terminé, il n'y a rien à faire (on planifie une autre panne)
 				if (job.isCompleted()) {
+					if (trace != null)
+						trace.panne(Simulator.getSimulator().getTime(), job.getId(), 0, 0, true);
+					if (Journal.DEBUG)
+						Journal.ecrire(Journal.Type.PANNE_SANS_EFFET, Simulator.getSimulator().getTime(), job.getId(), 0);
+					compteurs.planifie();
 					Simulator.getSimulator().schedule(new EventImpl() {
 						@Override
 						public void process() {
+							compteurs.traite(TypeEvenement.PLANIFICATION, this);
 							generateFailureEvent(0);
 						}
 					});
@@ -167,35 +523,118 @@ public class MainClass {
 					// le job doit être mis en panne
 					// 1 - arrêter le job
 					job.stopJob();
-					// 2 - attendre pour un délai = restart délai
+					// 2 - attendre pour un délai = restart délai (avec une réserve de noeuds de
+					// secours, l'attente d'un noeud libre puis ce délai de démarrage)
 					final long restartDelay = restartDelayGenerator.nextLong();
+					final long momentPanne = Simulator.getSimulator().getTime();
+					// la gravité de la panne: le niveau de checkpoint depuis lequel le job reprend
+					final int gravite = niveaux.tirerGravite(gravites);
+					if (trace != null)
+						trace.panne(Simulator.getSimulator().getTime(), job.getId(),
+								job.getCompletedDuration() - job.getCheckpointedDuration(gravite), restartDelay, false);
+					if (Journal.DEBUG)
+						Journal.ecrire(Journal.Type.PANNE, Simulator.getSimulator().getTime(), job.getId(), restartDelay);
 					restartEvent = new EventImpl() {
 						@Override
 						public void process() {
+							compteurs.traite(TypeEvenement.RESTART, this);
 							restartEvent = null;
 
 							// 3 - récuperer l'etat du job depuis le dernier Checkpoint
-							job.recoverFromCheckpoint();
+							job.recoverFromCheckpoint(gravite);
 
 							// 4 - continuer l'execution du job
 							job.startJob();
 
 							// 5 - ne pas oublier de planifier un autre évènement de panne
+							final long delai = Simulator.getSimulator().getTime() - momentPanne;
+							compteurs.planifie();
 							Simulator.getSimulator().schedule(new EventImpl() {
 								@Override
 								public void process() {
-									generateFailureEvent(restartDelay);
+									compteurs.traite(TypeEvenement.PLANIFICATION, this);
+									generateFailureEvent(delai);
 								}
 							});
 						}
 					};
-					Simulator.getSimulator().schedule(restartDelay, restartEvent);
+					final EventImpl redemarrage = restartEvent;
+					if (reserve == null || reserve.demander(new ReserveNoeuds.Client() {
+						@Override
+						public void noeudAttribue() {
+							compteurs.planifie();
+							Simulator.getSimulator().schedule(restartDelay, redemarrage);
+						}
+					})) {
+						compteurs.planifie();
+						Simulator.getSimulator().schedule(restartDelay, restartEvent);
+					}
+					if (reserve != null)
+						reserve.reparer(1);
 				}
 			}
 		};
-		Simulator.getSimulator().schedule(Math.max(0, failuresGenerator.nextLong() - lastRestartDelay), breakdownEvent);
-		Simulator.getSimulator().getLogger()
-				.log("Une panne a été planifiée à: " + Simulator.formatTime(breakdownEvent.getScheduledAt()));
+		compteurs.planifie();
+		Simulator.getSimulator().schedule(Math.max(0, intervalle - lastRestartDelay), breakdownEvent);
+		if (Journal.INFO)
+			Journal.ecrire(Journal.Type.PANNE_PLANIFIEE, Simulator.getSimulator().getTime(),
+					breakdownEvent.getScheduledAt(), 0);
+	}
+
+	/**
+	 * Pour chaque job, appelle sa méthode onFailure() (un seul appel si
+	 * l'estimateur est partagé).
+	 *
+	 * @param ttf Le ttf (déjà ajusté pour chaque job)
+	 */
+	void diffuserPanne(long ttf) {
+		for (CheckpointInterval c : estimateurs)
+			c.onFailure(ttf);
+	}
+
+	/**
+	 * Appelée quand tous les jobs sont terminés: les pannes (et les réparations de
+	 * la réserve) planifiées sont annulées et aucune autre panne n'est planifiée. Il n'y a alors plus aucun évènement et la
+	 * simulation s'arrête, sans attendre la fin du temps maximal de simulation.
+	 * <p>
+	 * Le résultat n'est pas modifié: une panne sur un job terminé n'a aucun effet
+	 * (et n'est pas comptée).
+	 */
+	private void onQuiescence() {
+		if (quiescentAt < 0)
+			quiescentAt = Simulator.getSimulator().getTime();
+		if (breakdownEvent != null) {
+			compteurs.annule(breakdownEvent);
+			breakdownEvent.cancel();
+			breakdownEvent = null;
+		}
+		for (ProcessusPannes p : processus)
+			if (p.evenement != null) {
+				compteurs.annule(p.evenement);
+				p.evenement.cancel();
+				p.evenement = null;
+			}
+		if (reserve != null)
+			reserve.annulerReparations();
+	}
+
+	/**
+	 * @param trace La trace où enregistrer les pannes (et les jobs, voir
+	 *              {@link #tracerJobs()}), ou null
+	 */
+	public void setTrace(TraceWriter trace) {
+		this.trace = trace;
+	}
+
+	/**
+	 * Enregistre l'état de chaque job dans la trace (à la fin de la simulation).
+	 */
+	public void tracerJobs() {
+		if (trace == null)
+			return;
+		for (Job job : jobs)
+			trace.job(job.getId(), job.getInitialDuration(), job.getCompletedAt(), job.getNbCheckpoints(),
+					job.getNbRestarts(), job.getLostWork());
 	}
 
 	/**
@@ -206,26 +645,38 @@ public class MainClass {
 		Exponential exponential = new Exponential(this.mean_job_length, new Random(random.nextLong()));
 		// Initialiser les Jobs
 		for (int i = 0; i < jobsCount; i++) {
-			Job job = new Job(exponential.nextLong(), createCheckpointInterval(ap_mttf),
+			Job job = new Job(i, exponential.nextLong(), createCheckpointInterval(ap_mttf),
 					new Exponential(delta, new Random(random.nextLong())));
+			job.setObservateur(observateur);
+			job.setCompteurs(compteurs);
+			job.setStockage(stockage);
+			job.setNiveaux(niveaux);
+			job.setIncremental(incremental);
 			jobs.add(job);
+			if (!job.isCompleted())
+				actifs.add(i);
 		}
 		Simulator.getSimulator().getLogger().log("Tous les jobs ont été créés. Nb Jobs = " + jobsCount
 				+ ". Durée moyenne (en heures) = " + ((double) this.getAverageJobLength() / Simulator.HOUR));
 	}
 
 	/**
-	 * Appelle le constructeur de façon dynamique.
+	 * Crée l'estimateur d'un job avec le scénario (une seule fois si l'estimateur
+	 * est partagé).
 	 *
 	 * @return Le CheckpointInterval
 	 */
 	private CheckpointInterval createCheckpointInterval(long mttf) {
+		if (estimateurPartage != null)
+			return estimateurPartage;
 		try {
-			Constructor<? extends CheckpointInterval> c = checkpointingIntervalClass.getConstructor(long.class);
-			return c.newInstance(mttf);
+			CheckpointInterval ci = scenario.creerEstimateur(mttf, null);
+			estimateurs.add(ci);
+			if (partagerEstimateur)
+				estimateurPartage = ci;
+			return ci;
 		} catch (Exception e) {
-			Simulator.getSimulator().getLogger().log("ERREUR: La classe " + checkpointingIntervalClass.getSimpleName()
-					+ " ne contient pas un constructeur adéquat.");
+			Simulator.getSimulator().getLogger().log("ERREUR: " + e.getMessage());
 			System.exit(1);
 			return null;
 		}
@@ -240,6 +691,7 @@ public class MainClass {
 		Simulator.getSimulator().getLogger().log("Tous les jobs ont été démarrés");
 	}
 
+	@Override
 	public long getAverageCompletionTime() {
 		double avg = 0;
 		for (Job job : jobs)
@@ -247,6 +699,7 @@ public class MainClass {
 		return (long) avg;
 	}
 
+	@Override
 	public long getAverageJobLength() {
 		double avg = 0;
 		for (Job job : jobs)
@@ -258,10 +711,64 @@ public class MainClass {
 		return checkpointingIntervalClass;
 	}
 
+	@Override
 	public int getNbPannes() {
 		return nbPannes;
 	}
 
+	@Override
+	public int getJobsRestants() {
+		return actifs.size();
+	}
+
+	@Override
+	public Compteurs getCompteurs() {
+		final Compteurs c = new Compteurs();
+		c.add(compteurs);
+		c.compterAjustements(estimateurs);
+		return c;
+	}
+
+	@Override
+	public long getTempsSimule() {
+		return Simulator.getSimulator().getTime();
+	}
+
+	@Override
+	public int getJobsTermines() {
+		return jobs.size() - actifs.size();
+	}
+
+	@Override
+	public ArretSimulation getArret() {
+		return actifs.isEmpty() ? ArretSimulation.QUIESCENCE : ArretSimulation.HORIZON;
+	}
+
+	@Override
+	public Histogramme getCompletionTimes() {
+		return completionTimes;
+	}
+
+	@Override
+	public Histogramme getOverheads() {
+		return overheads;
+	}
+
+	/**
+	 * @return Le moment où le dernier job s'est terminé, ou -1 si des jobs ne sont
+	 *         pas terminés
+	 */
+	public long getQuiescentAt() {
+		return quiescentAt;
+	}
+
+	/**
+	 * @return La réserve de noeuds de secours, ou null
+	 */
+	public ReserveNoeuds getReserve() {
+		return reserve;
+	}
+
 	public long getMttf() {
 		return mttf;
 	}
@@ -274,74 +781,330 @@ public class MainClass {
 		return nbPannes;
 	}
 
+	/**
+	 * Simule un point du balayage (une approche, un MTTF) dans un nouveau
+	 * simulateur, puis libère ce simulateur.
+	 * <p>
+	 * Le simulateur d'ACS étant unique dans un processus, cette méthode ne doit pas
+	 * être appelée par plusieurs threads en même temps pour des scénarios sans
+	 * partitions (voir {@link SweepRunner} pour un balayage parallèle).
+	 *
+	 * @param scenario Les paramètres de la simulation
+	 * @param mttf     Le MTTF réel (d'un seul job) en heures
+	 * @return Le résultat de la simulation
+	 */
+	public static PointResult simulerPoint(Scenario scenario, long mttf) {
+		final TraceWriter trace = scenario.getTraceFile(mttf) == null ? null
+				: new TraceWriter(scenario.getTraceFile(mttf));
+
+		if (scenario.getNbShards() > 0) {
+			ShardedSimulation m = new ShardedSimulation(scenario, mttf * Simulator.HOUR, scenario.getApMttf(mttf));
+			m.setTrace(trace);
+			final Metriques metriques = new Metriques(m, Metriques.point(scenario, mttf),
+					scenario.getMetriquesFile(mttf));
+			try {
+				m.run(scenario.getHorizon());
+			} finally {
+				metriques.close();
+			}
+			if (trace != null) {
+				m.tracerJobs();
+				trace.close();
+			}
+			return PointResult.depuis(mttf * Simulator.HOUR, m);
+		}
+
+		if (scenario.getGenerateur() != Generateur.JAVA_UTIL)
+			throw new IllegalArgumentException(
+					"Le générateur " + scenario.getGenerateur() + " n'est utilisable qu'avec des partitions");
+
+		if (scenario.isOuvert())
+			return SimulationOuverte.simulerPoint(scenario, mttf, trace);
+
+		// Initialiser le Simulateur
+		Simulator simulator = new Simulator(new Config());
+		MainClass m = new MainClass(scenario,
+				// mttf_reel pour chaque job
+				mttf * Simulator.HOUR,
+				// mttf à priori pour chaque job
+				scenario.getApMttf(mttf));
+		m.setTrace(trace);
+		final Metriques metriques = new Metriques(m, Metriques.point(scenario, mttf), scenario.getMetriquesFile(mttf));
+		// démarre la simulation pour un delai max = horizon du scénario
+		try {
+			simulator.start(scenario.getHorizon());
+		} finally {
+			metriques.close();
+		}
+		Journal.vider();
+		if (trace != null) {
+			m.tracerJobs();
+			trace.close();
+		}
+		// affiche le nombre de pannes
+		Simulator.getSimulator().getLogger().log("LE NOMBRE DE PANNES = " + m.getNumberOfFailures());
+		// affiche le nombre de pannes
+		Simulator.getSimulator().getLogger().log("DUREE INITIALE MOYENNE DES JOBS (en heures) = "
+				+ ((double) m.getAverageJobLength() / Simulator.HOUR));
+		// affiche la durée moyenne de completion d'un job
+		Simulator.getSimulator().getLogger().log("LE TEMPS MOYEN POUR COMPLETER LES JOBS (en heures) = "
+				+ ((double) m.getAverageCompletionTime() / Simulator.HOUR));
+		// affiche le temps ajouté (causé par les pannes / checkpointing)
+		long addedTime = m.getAverageCompletionTime() - m.getAverageJobLength();
+		Simulator.getSimulator().getLogger()
+				.log("LE TEMPS AJOUTÉ (en heures) = " + ((double) addedTime / Simulator.HOUR));
+		PointResult r = PointResult.depuis(mttf * Simulator.HOUR, m);
+		Simulator.getSimulator().getLogger()
+				.log("LE TEMPS AJOUTÉ (pourcentage) = " + Math.round(r.getPourcentage() * 100) / 100d + "%");
+
+		if (r.getArret() == ArretSimulation.HORIZON)
+			Simulator.getSimulator().getLogger()
+					.log("LA SIMULATION A ÉTÉ ARRÉTÉ PRÉMATURÉMENT: NbJobs restants = " + r.getJobsRestants());
+		else
+			Simulator.getSimulator().getLogger().log("LA SIMULATION S'EST ARRÊTÉE, TOUS LES JOBS SONT TERMINÉS (à "
+					+ Simulator.formatTime(m.getQuiescentAt()) + ")");
+		if (m.getReserve() != null)
+			Simulator.getSimulator().getLogger()
+					.log("ATTENTE D'UN NOEUD DE SECOURS: " + Math.round(m.getReserve().getProportionAttentes() * 10000) / 100d
+							+ "% des pannes, attente moyenne (en heures) = "
+							+ ((double) m.getReserve().getAttenteMoyenne() / Simulator.HOUR) + ", file max = "
+							+ m.getReserve().getFileMax());
+
+		Simulator.getSimulator().free();
+
+		return r;
+	}
+
+	/**
+	 * Simule un point (un MTTF) pour plusieurs approches en une seule passe, avec
+	 * les mêmes tirages (voir {@link MultiPolicySimulation}). Le scénario doit
+	 * utiliser des partitions.
+	 *
+	 * @return Les résultats, dans l'ordre de {@code approches}
+	 */
+	public static PointResult[] simulerApproches(Scenario scenario,
+			List<Class<? extends CheckpointInterval>> approches, long mttf) {
+		if (scenario.getNbShards() < 1)
+			throw new IllegalArgumentException(
+					"Les approches ne peuvent être simulées en une seule passe qu'avec des partitions");
+		MultiPolicySimulation m = new MultiPolicySimulation(scenario, approches, mttf * Simulator.HOUR,
+				scenario.getApMttf(mttf));
+		final TraceWriter[] traces = new TraceWriter[m.getNbApproches()];
+		for (int i = 0; i < traces.length; i++) {
+			final File f = scenario.withApproche(approches.get(i)).getTraceFile(mttf);
+			if (f != null) {
+				traces[i] = new TraceWriter(f);
+				m.getSimulation(i).setTrace(traces[i]);
+			}
+		}
+		final Metriques[] metriques = new Metriques[m.getNbApproches()];
+		for (int i = 0; i < metriques.length; i++) {
+			final Scenario s = scenario.withApproche(approches.get(i));
+			metriques[i] = new Metriques(m.getSimulation(i), Metriques.point(s, mttf), s.getMetriquesFile(mttf));
+		}
+		try {
+			m.run(scenario.getHorizon());
+		} finally {
+			for (Metriques met : metriques)
+				met.close();
+		}
+		final PointResult[] r = new PointResult[m.getNbApproches()];
+		for (int i = 0; i < r.length; i++) {
+			r[i] = PointResult.depuis(mttf * Simulator.HOUR, m.getSimulation(i));
+			if (traces[i] != null) {
+				m.getSimulation(i).tracerJobs();
+				traces[i].close();
+			}
+		}
+		return r;
+	}
+
 	public static void main(String[] args) {
 		final String filename = "resultats";
-		// la classe (approche) à utiliser pour le checkpointing
-		final Class<? extends CheckpointInterval> APPROCHE = YoungCheckpoint.class;
-		OurIntervalMultiplicativeApproach.DEFAULT_A = 1.5;
-		OurIntervalAdditiveApproach.DEFAULT_N = 0.5;
+		// les classes (approches) à utiliser pour le checkpointing, un fichier csv est
+		// créé pour chaque approche
+		final List<Class<? extends CheckpointInterval>> APPROCHES = new ArrayList<Class<? extends CheckpointInterval>>();
+		APPROCHES.add(YoungCheckpoint.class);
+		final double A = 1.5; // OurIntervalMultiplicativeApproach
+		final double N = 0.5; // OurIntervalAdditiveApproach
 		final long DELTA = 5 * Simulator.MINUTE;
 		final long RESTART = 5 * Simulator.MINUTE; // delay_restart_moyen
 		final int NB_JOBS = 500;
 		final long LENGTH_JOB = 1000 * Simulator.HOUR;
+		// Nombre de points simulés en parallèle (chacun dans son propre processus),
+		// mettre à 1 pour tout simuler dans ce processus, un point après l'autre
+		final int NB_PROCESSUS = Runtime.getRuntime().availableProcessors();
+		// Nombre de partitions (threads) pour simuler un seul point, mettre à 0 pour
+		// utiliser le simulateur ACS, à 1 pour utiliser le moteur rapide sur un seul
+		// thread (voir ShardedSimulation)
+		final int NB_SHARDS = 0;
+		// Simuler toutes les approches en une seule passe, avec les mêmes tirages pour
+		// toutes les approches (nécessite NB_SHARDS >= 1, voir MultiPolicySimulation)
+		final boolean MEMES_TIRAGES = false;
+		// Nombre de réplications (graines) par point: si REPLICATIONS_MAX > 1, chaque
+		// point est simulé avec au moins REPLICATIONS_MIN graines, jusqu'à ce que
+		// l'intervalle de confiance à 95% du temps ajouté soit plus étroit que
+		// LARGEUR_IC (en points de %), voir ReplicationRunner (MEMES_TIRAGES n'est
+		// alors pas utilisé)
+		final int REPLICATIONS_MIN = 5;
+		final int REPLICATIONS_MAX = 1;
+		final double LARGEUR_IC = 1.0;
+		// Préfixe des fichiers de trace (un fichier binaire par point, avec un
+		// enregistrement par job et par panne, voir TraceReader pour les convertir en
+		// csv), mettre à null pour ne pas écrire de trace
+		final String TRACE = null;
+		// Préfixe des fichiers de métriques (un fichier csv par point, une ligne toutes
+		// les 10 secondes pendant la simulation), mettre à null pour ne pas en écrire.
+		// Les métriques sont aussi visibles par JMX (jconsole), voir Metriques
+		final String METRIQUES = null;
+		// Stockage partagé des checkpoints: AUCUN pour un coût de checkpoint égal à
+		// delta (capacité infinie), FIFO ou PARTAGE pour écrire chaque checkpoint
+		// (TAILLE_CHECKPOINT Mo) dans un stockage de débit total DEBIT_STOCKAGE Mo/s
+		// (simulateur d'ACS seulement, NB_SHARDS = 0), voir Stockage
+		final ModeStockage STOCKAGE = ModeStockage.AUCUN;
+		final double DEBIT_STOCKAGE = 10000;
+		final double TAILLE_CHECKPOINT = 4096;
+		// Niveaux de checkpoint (par exemple local, partenaire, global): pour chaque
+		// niveau, son coût (multiplie delta) et la probabilité qu'une panne ne puisse
+		// être récupérée qu'à partir de ce niveau ou plus (simulateur d'ACS
+		// seulement), voir Niveaux. Niveaux.UN: un seul niveau (modèle d'origine)
+		final Niveaux NIVEAUX = Niveaux.UN;
+		// Checkpointing incrémental: un checkpoint incrémental coûte une fraction du
+		// coût complet qui dépend du travail depuis le checkpoint précédent, avec un
+		// checkpoint complet périodique (simulateur d'ACS seulement), voir
+		// Incremental. null: tous les checkpoints sont complets
+		final Incremental INCREMENTAL = null;
+		// Loi des temps entre pannes: EXPONENTIELLE (modèle d'origine), WEIBULL ou
+		// LOGNORMALE de forme FORME_PANNES, ou TRACE pour rejouer TRACE_PANNES (une
+		// trace convertie par PannesTrace, mise à l'échelle du MTTF), simulateur
+		// d'ACS seulement, voir SourcePannes
+		final LoiPannes LOI_PANNES = LoiPannes.EXPONENTIELLE;
+		final double FORME_PANNES = 0.7;
+		final String TRACE_PANNES = null;
+		// Topologie: les jobs sont placés sur des hôtes et des racks qui ont leurs
+		// propres pannes (chaque panne arrête tous les jobs de l'hôte ou du rack),
+		// simulateur d'ACS seulement, voir Topologie. null: chaque panne touche un
+		// seul job, et aucune panne n'arrive pendant un restart (modèle d'origine)
+		final Topologie TOPOLOGIE = null;
+		// Réserve de noeuds de secours: un job en panne attend un des CAPACITE_RESERVE
+		// noeuds libres avant son délai de restart, et son noeud est réparé en
+		// REPARATION en moyenne (simulateur d'ACS seulement), voir ReserveNoeuds.
+		// CAPACITE_RESERVE < 0: un noeud est toujours libre (modèle d'origine)
+		final int CAPACITE_RESERVE = -1;
+		final long REPARATION = 24 * Simulator.HOUR;
+		// Système ouvert: les jobs arrivent en moyenne toutes les INTER_ARRIVEE
+		// (processus de Poisson), ou aux temps de TRACE_ARRIVEES (csv temps,duree en
+		// secondes), jusqu'à NB_JOBS arrivées, et un job terminé est oublié
+		// (simulateur d'ACS seulement), voir SimulationOuverte. 0 et null: tous les
+		// jobs sont créés au début (système fermé)
+		final long INTER_ARRIVEE = 0;
+		final String TRACE_ARRIVEES = null;
 
 		final long[] MTTF_A_TESTER = new long[] { 100, 200, 300, 400, 500, 600, 700, 800, 900, 1000, 2000, 3000, 4000,
 				5000, 6000, 7000, 8000, 9000, 10000, 20000, 30000, 40000, 50000, 60000, 70000, 80000, 90000, 100000 };
+		// Balayage adaptatif: si SEUIL_INTERPOLATION > 0 (en points de %), le balayage
+		// part de la grille grossière MTTF_INITIAUX et ajoute des MTTF là où le temps
+		// ajouté ou le classement des approches change le plus vite, jusqu'à ce que
+		// l'erreur d'interpolation soit sous le seuil (au plus MAX_POINTS MTTF), voir
+		// BalayageAdaptatif. 0: la grille fixe MTTF_A_TESTER (les réplications
+		// utilisent toujours MTTF_A_TESTER)
+		final double SEUIL_INTERPOLATION = 0;
+		final long[] MTTF_INITIAUX = new long[] { 100, 1000, 10000, 100000 };
+		final int MAX_POINTS = 40;
+		// Réglage: si REGLAGE, cherche pour chaque approche de APPROCHES qui a un
+		// paramètre la valeur de a (dans REGLAGE_A) ou de n (dans REGLAGE_N) qui
+		// minimise le temps ajouté moyen sur MTTF_REGLAGE, à TOLERANCE_REGLAGE près,
+		// puis s'arrête sans balayage (A et N ne sont pas utilisés), voir Autotuneur.
+		// Avec NB_SHARDS >= 1, les candidats sont simulés dans ce processus
+		final boolean REGLAGE = false;
+		final double[] REGLAGE_A = new double[] { 1, 3 };
+		final double[] REGLAGE_N = new double[] { 0, 1 };
+		final long[] MTTF_REGLAGE = new long[] { 100, 1000, 10000 };
+		final double TOLERANCE_REGLAGE = 0.01;
 
 		// Le MTTF à priori à donner pour l'approche, mettre à null pour donner le MTTF reel
 		final Long MTTF_A_PRIORI = 1000000l;
 
-		final Sortie sortie = new Sortie(filename + "." + APPROCHE.getSimpleName() + ".csv",
-				"Approche = " + APPROCHE.getSimpleName() + Sortie.SEP + "Delta (moyenne) = "
-						+ String.valueOf(DELTA / Simulator.MINUTE) + "min" + Sortie.SEP + "JobLength (moyenne) = "
-						+ String.valueOf(LENGTH_JOB / Simulator.HOUR) + "h");
-
-		for (long mttf : MTTF_A_TESTER) {
-			final long ap_mttf = MTTF_A_PRIORI == null ? mttf : MTTF_A_PRIORI;
-
-			// Initialiser le Simulateur
-			Simulator simulator = new Simulator(new Config());
-			MainClass m = new MainClass(APPROCHE,
-					// mttf_reel pour chaque job
-					mttf * Simulator.HOUR,
-					// mttf à priori pour chaque job
-					ap_mttf * Simulator.HOUR,
-					DELTA, RESTART, NB_JOBS, LENGTH_JOB,
-					// randomSeed: il faut que cette valeur soit la meme pour tous
-					// les tests pour pouvoir faire une comparaison cohérente
-					0);
-			// démarre la simulation pour un delai max = taille d'un job * 100
-			simulator.start(LENGTH_JOB * 20);
-			// affiche le nombre de pannes
-			Simulator.getSimulator().getLogger().log("LE NOMBRE DE PANNES = " + m.getNumberOfFailures());
-			// affiche le nombre de pannes
-			Simulator.getSimulator().getLogger().log("DUREE INITIALE MOYENNE DES JOBS (en heures) = "
-					+ ((double) m.getAverageJobLength() / Simulator.HOUR));
-			// affiche la durée moyenne de completion d'un job
-			Simulator.getSimulator().getLogger().log("LE TEMPS MOYEN POUR COMPLETER LES JOBS (en heures) = "
-					+ ((double) m.getAverageCompletionTime() / Simulator.HOUR));
-			// affiche le temps ajouté (causé par les pannes / checkpointing)
-			long addedTime = m.getAverageCompletionTime() - m.getAverageJobLength();
-			Simulator.getSimulator().getLogger()
-					.log("LE TEMPS AJOUTÉ (en heures) = " + ((double) addedTime / Simulator.HOUR));
-			double pourcentage = (double) addedTime * 100 / m.getAverageJobLength();
-			Simulator.getSimulator().getLogger()
-					.log("LE TEMPS AJOUTÉ (pourcentage) = " + Math.round(pourcentage * 100) / 100d + "%");
-
-			int jobsRestants = 0;
-			for (Job j : m.jobs)
-				if (!j.isCompleted())
-					jobsRestants++;
-			if (jobsRestants != 0)
-				Simulator.getSimulator().getLogger()
-						.log("LA SIMULATION A ÉTÉ ARRÉTÉ PRÉMATURÉMENT: NbJobs restants = " + jobsRestants);
+		// randomSeed: il faut que cette valeur soit la meme pour tous les tests pour
+		// pouvoir faire une comparaison cohérente.
+		// horizon: la simulation s'arrête au plus tard après taille d'un job * 20
+		// estimateurPartage: un seul objet CheckpointInterval pour tous les jobs (même
+		// résultat, mais une panne coûte un seul appel à onFailure())
+		// modeVictimes: TOUS pour mettre en panne n'importe quel job (même terminé),
+		// ACTIFS pour ne mettre en panne que les jobs non terminés
+		final Scenario scenario = new Scenario(APPROCHES.get(0), A, N, DELTA, RESTART, NB_JOBS, LENGTH_JOB,
+				MTTF_A_PRIORI, 0, LENGTH_JOB * 20, NB_SHARDS).withEstimateurPartage(true)
+						.withModeVictimes(ModeVictimes.TOUS).withGenerateur(Generateur.JAVA_UTIL)
+						.withTrace(TRACE).withMetriques(METRIQUES)
+						.withStockage(STOCKAGE, DEBIT_STOCKAGE, TAILLE_CHECKPOINT).withNiveaux(NIVEAUX)
+						.withIncremental(INCREMENTAL).withPannes(LOI_PANNES, FORME_PANNES, TRACE_PANNES)
+						.withTopologie(TOPOLOGIE).withReserve(CAPACITE_RESERVE, REPARATION)
+						.withArrivees(INTER_ARRIVEE, TRACE_ARRIVEES);
 
-			sortie.writeInfo(mttf * Simulator.HOUR, pourcentage, m.getNbPannes(), jobsRestants);
+		final List<Scenario> scenarios = new ArrayList<Scenario>();
+		for (Class<? extends CheckpointInterval> approche : APPROCHES)
+			scenarios.add(scenario.withApproche(approche));
 
-			Simulator.getSimulator().free();
+		final SweepRunner runner = new SweepRunner(NB_PROCESSUS);
+		if (REGLAGE) {
+			final Autotuneur autotuneur = new Autotuneur(runner, Math.max(2, NB_PROCESSUS / MTTF_REGLAGE.length),
+					TOLERANCE_REGLAGE);
+			for (Scenario s : scenarios) {
+				final String parametre = Autotuneur.getParametre(s.getApproche());
+				if (parametre == null)
+					continue;
+				final double[] bornes = "a".equals(parametre) ? REGLAGE_A : REGLAGE_N;
+				final Autotuneur.Reglage r = autotuneur.regler(s, bornes[0], bornes[1], MTTF_REGLAGE);
+				for (Autotuneur.Tour t : r.getTours())
+					System.out.println("Réglage de " + parametre + " (" + s.getApproche().getSimpleName() + "): ["
+							+ t.getDebut() + ", " + t.getFin() + "], meilleur " + parametre + " = " + t.getValeur()
+							+ " (" + t.getPourcentage() + "%)");
+				System.out.println("Approche = " + s.getApproche().getSimpleName() + Sortie.SEP + parametre + " = "
+						+ r.getValeur() + Sortie.SEP + "Temps ajouté moyen = " + r.getPourcentage() + "%" + Sortie.SEP
+						+ "Points simulés = " + r.getNbPoints());
+			}
+			return;
+		}
+		if (REPLICATIONS_MAX > 1) {
+			final List<ReplicationResult[]> resultats = new ReplicationRunner(runner,
+					Math.min(REPLICATIONS_MIN, REPLICATIONS_MAX), REPLICATIONS_MAX, LARGEUR_IC).run(scenarios,
+							MTTF_A_TESTER);
+			for (int i = 0; i < scenarios.size(); i++) {
+				final Class<? extends CheckpointInterval> approche = scenarios.get(i).getApproche();
+				final SortieReplications sortie = new SortieReplications(
+						filename + "." + approche.getSimpleName() + ".csv",
+						"Approche = " + approche.getSimpleName() + Sortie.SEP + "Delta (moyenne) = "
+								+ String.valueOf(DELTA / Simulator.MINUTE) + "min" + Sortie.SEP
+								+ "JobLength (moyenne) = " + String.valueOf(LENGTH_JOB / Simulator.HOUR) + "h");
+				for (ReplicationResult r : resultats.get(i))
+					sortie.writeInfo(r);
+				sortie.close();
+				System.out.println("Resultats (format csv) enregistrés sous: " + sortie.getFileName());
+			}
+			return;
 		}
+		final List<PointResult[]> resultats;
+		if (SEUIL_INTERPOLATION > 0) {
+			final BalayageAdaptatif balayage = new BalayageAdaptatif(runner, SEUIL_INTERPOLATION, MAX_POINTS);
+			resultats = MEMES_TIRAGES ? balayage.run(scenario, APPROCHES, MTTF_INITIAUX)
+					: balayage.run(scenarios, MTTF_INITIAUX);
+			System.out.println("Balayage adaptatif: " + balayage.getNbTours() + " tours" + Sortie.SEP
+					+ resultats.get(0).length + " MTTF simulés");
+		} else
+			resultats = MEMES_TIRAGES ? runner.run(scenario, APPROCHES, MTTF_A_TESTER)
+					: runner.run(scenarios, MTTF_A_TESTER);
 
-		sortie.close();
-		System.out.println("Resultats (format csv) enregistrés sous: " + sortie.getFileName());
+		for (int i = 0; i < scenarios.size(); i++) {
+			final Class<? extends CheckpointInterval> approche = scenarios.get(i).getApproche();
+			final Sortie sortie = new Sortie(filename + "." + approche.getSimpleName() + ".csv",
+					"Approche = " + approche.getSimpleName() + Sortie.SEP + "Delta (moyenne) = "
+							+ String.valueOf(DELTA / Simulator.MINUTE) + "min" + Sortie.SEP + "JobLength (moyenne) = "
+							+ String.valueOf(LENGTH_JOB / Simulator.HOUR) + "h");
+			// les résultats sont déjà dans l'ordre des MTTF croissants
+			for (PointResult r : resultats.get(i))
+				sortie.writeInfo(r);
+			sortie.close();
+			System.out.println("Resultats (format csv) enregistrés sous: " + sortie.getFileName());
+		}
 	}
 }
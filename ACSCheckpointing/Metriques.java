@@ -0,0 +1,246 @@
+
+
+import java.io.Closeable;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.samysadi.acs.core.Simulator;
+
+/**
+ * Les métriques d'une simulation pendant qu'elle s'exécute: évènements traités
+ * par type et par seconde, taille de la file d'évènements, proportion
+ * d'évènements annulés, pannes, jobs terminés, temps simulé et temps réel.
+ * <p>
+ * Les métriques sont échantillonnées toutes les {@link #PERIODE} secondes (par
+ * un thread commun à toutes les simulations du processus), à partir des
+ * compteurs de la simulation ({@link Simulation#getCompteurs()}). Elles sont
+ * visibles par JMX ({@link MetriquesMXBean}) et, si un fichier est donné,
+ * chaque échantillon y est ajouté (une ligne csv, voir
+ * {@link SortieMetriques}).
+ * <p>
+ * Les MXBeans sont enregistrés dans le processus qui simule le point. Dans un
+ * balayage parallèle avec le simulateur d'ACS, chaque point est simulé dans un
+ * processus fils (voir {@link SweepRunner}): il faut se connecter au processus
+ * fils, dont l'identifiant ({@code pid@hôte}) est écrit au début de la sortie
+ * du point. Les fichiers de métriques, eux, sont écrits pour tous les points.
+ * La période d'échantillonnage est transmise aux processus fils.
+ * <p>
+ * Les valeurs sont lues sans synchronisation avec la simulation: elles sont
+ * approchées (la simulation n'est jamais ralentie).
+ */
+public class Metriques implements MetriquesMXBean, Closeable {
+	/**
+	 * La période d'échantillonnage, en secondes (propriété système
+	 * {@code metriques.periode}, 10 par défaut)
+	 */
+	public static final long PERIODE = Long.getLong("metriques.periode", 10);
+
+	private static ScheduledExecutorService echantillonneur = null;
+
+	/**
+	 * Rend uniques les noms JMX (un même point peut être simulé plusieurs fois)
+	 */
+	private static final AtomicInteger NUMERO = new AtomicInteger();
+
+	private final Simulation simulation;
+
+	private final String point;
+
+	private final ObjectName nom;
+
+	private final SortieMetriques sortie;
+
+	private final ScheduledFuture<?> tache;
+
+	private final long debut = System.nanoTime();
+
+	private static final TypeEvenement[] TYPES = TypeEvenement.values();
+
+	// le dernier échantillon
+
+	private long instant = debut;
+	private final long[] evenements = new long[TYPES.length];
+	private final double[] parSeconde = new double[TYPES.length];
+	private long total = 0;
+	private double debit = 0;
+	private long tailleFile = 0;
+	private double tauxAnnulation = 0;
+	private int nbPannes = 0;
+	private int jobsTermines = 0;
+	private long tempsSimule = 0;
+	private double vitesse = 0;
+
+	private boolean ferme = false;
+
+	/**
+	 * Commence à échantillonner les métriques d'une simulation (qui peut déjà
+	 * être créée, mais pas encore lancée).
+	 *
+	 * @param point   Décrit le point simulé (approche, MTTF, graine)
+	 * @param fichier Le fichier où écrire les échantillons, ou null
+	 */
+	public Metriques(Simulation simulation, String point, File fichier) {
+		this.simulation = simulation;
+		this.point = point;
+		this.sortie = fichier == null ? null : new SortieMetriques(fichier.getPath(), point);
+		try {
+			nom = new ObjectName("checkpointing:type=Simulation,name="
+					+ ObjectName.quote(point + " #" + NUMERO.incrementAndGet()));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, nom);
+		} catch (JMException e) {
+			throw new IllegalStateException("Impossible d'enregistrer les métriques " + point, e);
+		}
+		tache = getEchantillonneur().scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				echantillonner();
+			}
+		}, PERIODE, PERIODE, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Le point simulé: l'approche, le MTTF (en heures) et la graine d'un scénario.
+	 */
+	public static String point(Scenario scenario, long mttf) {
+		return scenario.getApproche().getSimpleName() + " mttf=" + mttf + " seed=" + scenario.getRandomSeed();
+	}
+
+	private static synchronized ScheduledExecutorService getEchantillonneur() {
+		if (echantillonneur == null)
+			echantillonneur = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "Metriques");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		return echantillonneur;
+	}
+
+	private synchronized void echantillonner() {
+		if (ferme)
+			return;
+		final long maintenant = System.nanoTime();
+		final double secondes = (maintenant - instant) / 1e9;
+		instant = maintenant;
+
+		final Compteurs c = simulation.getCompteurs();
+		for (int t = 0; t < TYPES.length; t++) {
+			final long n = c.getTraites(TYPES[t]);
+			parSeconde[t] = secondes > 0 ? (n - evenements[t]) / secondes : 0;
+			evenements[t] = n;
+		}
+		final long n = c.getTotal();
+		debit = secondes > 0 ? (n - total) / secondes : 0;
+		total = n;
+		tailleFile = c.getEnAttente();
+		tauxAnnulation = c.getPlanifies() == 0 ? 0 : (double) c.getAnnules() / c.getPlanifies();
+		nbPannes = simulation.getNbPannes();
+		jobsTermines = simulation.getJobsTermines();
+		final long temps = simulation.getTempsSimule();
+		vitesse = secondes > 0 ? (double) (temps - tempsSimule) / Simulator.HOUR / secondes : 0;
+		tempsSimule = temps;
+
+		if (sortie != null)
+			sortie.writeEchantillon(getTempsReelSecondes(), getTempsSimuleHeures(), vitesse, debit, parSeconde,
+					tailleFile, tauxAnnulation, nbPannes, jobsTermines);
+	}
+
+	/**
+	 * Arrête l'échantillonnage, après un dernier échantillon, et retire les
+	 * métriques de JMX.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (ferme)
+				return;
+			tache.cancel(false);
+			echantillonner();
+			ferme = true;
+			if (sortie != null)
+				sortie.close();
+		}
+		try {
+			final MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+			if (serveur.isRegistered(nom))
+				serveur.unregisterMBean(nom);
+		} catch (JMException e) {
+			System.err.println("Cannot unregister metrics " + nom);
+		}
+	}
+
+	@Override
+	public String getPoint() {
+		return point;
+	}
+
+	@Override
+	public synchronized Map<String, Long> getEvenements() {
+		final Map<String, Long> m = new LinkedHashMap<String, Long>();
+		for (int t = 0; t < TYPES.length; t++)
+			m.put(TYPES[t].name(), evenements[t]);
+		return m;
+	}
+
+	@Override
+	public synchronized Map<String, Double> getEvenementsParSeconde() {
+		final Map<String, Double> m = new LinkedHashMap<String, Double>();
+		for (int t = 0; t < TYPES.length; t++)
+			m.put(TYPES[t].name(), parSeconde[t]);
+		return m;
+	}
+
+	@Override
+	public synchronized double getDebit() {
+		return debit;
+	}
+
+	@Override
+	public synchronized long getTailleFile() {
+		return tailleFile;
+	}
+
+	@Override
+	public synchronized double getTauxAnnulation() {
+		return tauxAnnulation;
+	}
+
+	@Override
+	public synchronized int getNbPannes() {
+		return nbPannes;
+	}
+
+	@Override
+	public synchronized int getJobsTermines() {
+		return jobsTermines;
+	}
+
+	@Override
+	public synchronized double getTempsSimuleHeures() {
+		return (double) tempsSimule / Simulator.HOUR;
+	}
+
+	@Override
+	public synchronized double getTempsReelSecondes() {
+		return (instant - debut) / 1e9;
+	}
+
+	@Override
+	public synchronized double getVitesse() {
+		return vitesse;
+	}
+}
@@ -0,0 +1,56 @@
+
+
+import java.util.Map;
+
+/**
+ * Les métriques d'une simulation en cours, visibles par JMX (par exemple avec
+ * jconsole, sous {@code checkpointing:type=Simulation}). Voir
+ * {@link Metriques}.
+ * <p>
+ * Les débits sont calculés sur la dernière période d'échantillonnage.
+ */
+public interface MetriquesMXBean {
+	/**
+	 * @return L'approche, le MTTF et la graine du point simulé
+	 */
+	String getPoint();
+
+	/**
+	 * @return Le nombre d'évènements traités, par type (voir
+	 *         {@link TypeEvenement})
+	 */
+	Map<String, Long> getEvenements();
+
+	/**
+	 * @return Le nombre d'évènements traités par seconde, par type
+	 */
+	Map<String, Double> getEvenementsParSeconde();
+
+	/**
+	 * @return Le nombre d'évènements traités par seconde (tous types)
+	 */
+	double getDebit();
+
+	/**
+	 * @return Le nombre d'évènements planifiés, ni traités ni annulés
+	 */
+	long getTailleFile();
+
+	/**
+	 * @return La proportion des évènements planifiés qui ont été annulés
+	 */
+	double getTauxAnnulation();
+
+	int getNbPannes();
+
+	int getJobsTermines();
+
+	double getTempsSimuleHeures();
+
+	double getTempsReelSecondes();
+
+	/**
+	 * @return Les heures simulées par seconde réelle (sur la dernière période)
+	 */
+	double getVitesse();
+}
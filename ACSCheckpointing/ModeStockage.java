@@ -0,0 +1,24 @@
+
+
+/**
+ * Comment le stockage des checkpoints est partagé entre les jobs qui
+ * checkpointent en même temps (voir {@link Stockage}).
+ */
+public enum ModeStockage {
+	/**
+	 * Pas de stockage partagé: le coût d'un checkpoint est seulement le délai
+	 * delta de chaque job (comportement d'origine, capacité infinie).
+	 */
+	AUCUN,
+
+	/**
+	 * Les checkpoints sont écrits l'un après l'autre, dans l'ordre où ils sont
+	 * demandés, chacun avec tout le débit du stockage.
+	 */
+	FIFO,
+
+	/**
+	 * Les checkpoints en cours se partagent le débit du stockage à parts égales.
+	 */
+	PARTAGE
+}
@@ -0,0 +1,17 @@
+
+/**
+ * Comment choisir le job mis en panne lors d'une panne.
+ */
+public enum ModeVictimes {
+	/**
+	 * N'importe quel job, même terminé. Si le job choisi est terminé, la panne
+	 * n'a aucun effet et une autre panne est planifiée (comportement d'origine).
+	 */
+	TOUS,
+
+	/**
+	 * Uniquement un job non terminé: chaque panne met un job en panne. Quand
+	 * tous les jobs sont terminés, il n'y a plus de pannes.
+	 */
+	ACTIFS
+}
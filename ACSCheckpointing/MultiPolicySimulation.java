@@ -0,0 +1,91 @@
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Simule un seul MTTF pour plusieurs approches en une seule passe, avec les
+ * mêmes nombres aléatoires pour toutes les approches.
+ * <p>
+ * Les tirages (durées des jobs, délais de checkpoint, pannes, victimes,
+ * restarts) sont faits une seule fois ({@link TiragesPartages}), puis chaque
+ * approche est simulée par sa propre {@link ShardedSimulation}, toutes en
+ * parallèle. Les différences entre les approches ne viennent donc pas des
+ * tirages, et le résultat de chaque approche est le même que si elle avait été
+ * simulée seule avec le même scénario.
+ */
+public class MultiPolicySimulation {
+	private final List<Class<? extends CheckpointInterval>> approches;
+
+	private final ShardedSimulation[] simulations;
+
+	/**
+	 * @param scenario  Le scénario (son approche n'est pas utilisée)
+	 * @param approches Les approches à simuler
+	 * @param real_mttf Voir {@link ShardedSimulation#ShardedSimulation(Scenario, long, long)}
+	 * @param ap_mttf   Voir {@link ShardedSimulation#ShardedSimulation(Scenario, long, long)}
+	 */
+	public MultiPolicySimulation(Scenario scenario, List<Class<? extends CheckpointInterval>> approches,
+			long real_mttf, long ap_mttf) {
+		if (approches.isEmpty())
+			throw new IllegalArgumentException("Aucune approche à simuler");
+		this.approches = new ArrayList<Class<? extends CheckpointInterval>>(approches);
+		final TiragesPartages tirages = new TiragesPartages(
+				Tirages.creer(scenario.getGenerateur(), scenario, real_mttf));
+		simulations = new ShardedSimulation[approches.size()];
+		for (int i = 0; i < simulations.length; i++)
+			simulations[i] = new ShardedSimulation(scenario.withApproche(approches.get(i)), ap_mttf,
+					tirages.lecteur());
+	}
+
+	/**
+	 * Lance toutes les simulations jusqu'au temps {@code horizon} (inclus).
+	 */
+	public void run(final long horizon) {
+		if (simulations.length == 1) {
+			simulations[0].run(horizon);
+			return;
+		}
+		final ExecutorService pool = Executors.newFixedThreadPool(simulations.length);
+		try {
+			final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(simulations.length);
+			for (final ShardedSimulation s : simulations)
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						s.run(horizon);
+						return null;
+					}
+				});
+			for (Future<Void> f : pool.invokeAll(tasks))
+				f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Simulation interrompue", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Echec d'une approche: " + e.getCause().getMessage(), e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	public int getNbApproches() {
+		return simulations.length;
+	}
+
+	public Class<? extends CheckpointInterval> getApproche(int i) {
+		return approches.get(i);
+	}
+
+	/**
+	 * @return La simulation de la i-ème approche
+	 */
+	public ShardedSimulation getSimulation(int i) {
+		return simulations[i];
+	}
+}
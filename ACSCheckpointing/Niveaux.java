@@ -0,0 +1,127 @@
+
+
+import java.util.Random;
+
+/**
+ * Les niveaux de checkpoint (checkpointing multi-niveaux, par exemple local,
+ * partenaire et global comme dans SCR), du moins cher (niveau 0) au plus sûr.
+ * <p>
+ * Chaque niveau a un coût, relatif au délai delta du job (un checkpoint de
+ * niveau k coûte {@code delta * cout(k)}). Chaque panne a une gravité: une
+ * panne de gravité g détruit les checkpoints des niveaux inférieurs à g, le
+ * job reprend donc depuis son dernier checkpoint de niveau g ou plus. Un
+ * checkpoint de niveau k sert aussi de point de reprise pour tous les niveaux
+ * inférieurs.
+ * <p>
+ * Avec un seul niveau ({@link #UN}), le modèle est celui d'origine.
+ */
+public final class Niveaux {
+	public static final Niveaux UN = new Niveaux(new double[] { 1 }, new double[] { 1 });
+
+	/**
+	 * Le coût de chaque niveau (multiplie delta)
+	 */
+	private final double[] couts;
+
+	/**
+	 * La probabilité qu'une panne ait chaque gravité
+	 */
+	private final double[] gravites;
+
+	/**
+	 * La probabilité qu'une panne ait une gravité supérieure ou égale à chaque
+	 * niveau (les pannes dont protège un checkpoint de ce niveau)
+	 */
+	private final double[] proportions;
+
+	/**
+	 * @param couts    Le coût de chaque niveau (multiplie delta)
+	 * @param gravites La probabilité qu'une panne ait chaque gravité (une
+	 *                 gravité par niveau, de somme 1)
+	 */
+	public Niveaux(double[] couts, double[] gravites) {
+		if (couts.length == 0 || couts.length != gravites.length)
+			throw new IllegalArgumentException("Il faut un coût et une probabilité de gravité par niveau");
+		double somme = 0;
+		for (int k = 0; k < couts.length; k++) {
+			if (!(couts[k] > 0) || !(gravites[k] >= 0))
+				throw new IllegalArgumentException(
+						"Niveau " + k + ": le coût doit être positif et la probabilité positive ou nulle");
+			somme += gravites[k];
+		}
+		if (Math.abs(somme - 1) > 1e-9)
+			throw new IllegalArgumentException("La somme des probabilités des gravités doit être 1 (" + somme + ")");
+		this.couts = couts.clone();
+		this.gravites = gravites.clone();
+		this.proportions = new double[couts.length];
+		double p = 0;
+		for (int k = couts.length - 1; k >= 0; k--) {
+			p += gravites[k];
+			proportions[k] = p;
+		}
+	}
+
+	public int getNombre() {
+		return couts.length;
+	}
+
+	public double getCout(int niveau) {
+		return couts[niveau];
+	}
+
+	public double getGravite(int niveau) {
+		return gravites[niveau];
+	}
+
+	/**
+	 * @return La probabilité qu'une panne ait une gravité supérieure ou égale à
+	 *         {@code niveau}
+	 */
+	public double getProportion(int niveau) {
+		return proportions[niveau];
+	}
+
+	/**
+	 * Tire la gravité d'une panne (aucun tirage s'il n'y a qu'un seul niveau).
+	 */
+	public int tirerGravite(Random random) {
+		if (couts.length == 1)
+			return 0;
+		final double u = random.nextDouble();
+		double p = 0;
+		for (int k = 0; k < gravites.length - 1; k++) {
+			p += gravites[k];
+			if (u < p)
+				return k;
+		}
+		return gravites.length - 1;
+	}
+
+	/**
+	 * @return Les niveaux sous la forme {@code cout:gravite,cout:gravite...} (voir
+	 *         {@link #parse(String)})
+	 */
+	public String format() {
+		final StringBuilder sb = new StringBuilder();
+		for (int k = 0; k < couts.length; k++) {
+			if (k > 0)
+				sb.append(',');
+			sb.append(couts[k]).append(':').append(gravites[k]);
+		}
+		return sb.toString();
+	}
+
+	public static Niveaux parse(String s) {
+		final String[] niveaux = s.split(",");
+		final double[] couts = new double[niveaux.length];
+		final double[] gravites = new double[niveaux.length];
+		for (int k = 0; k < niveaux.length; k++) {
+			final int sep = niveaux[k].indexOf(':');
+			if (sep < 0)
+				throw new IllegalArgumentException("Niveau invalide (cout:gravite attendu): " + niveaux[k]);
+			couts[k] = Double.parseDouble(niveaux[k].substring(0, sep));
+			gravites[k] = Double.parseDouble(niveaux[k].substring(sep + 1));
+		}
+		return new Niveaux(couts, gravites);
+	}
+}
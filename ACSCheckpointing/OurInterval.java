@@ -1,41 +1,80 @@
 
-
-import com.samysadi.acs.core.Simulator;
-import com.samysadi.acs.core.event.DispensableEventImpl;
-import com.samysadi.acs.core.event.Event;
-
+/**
+ * Approche où le MTTF estimé est mis à jour à chaque panne, puis ajusté (voir
+ * {@link #ajusterMttf()}) si aucune panne ne survient pendant une durée égale
+ * au MTTF estimé.
+ * <p>
+ * L'ajustement n'est pas planifié comme un évènement: on garde seulement le
+ * moment où il doit avoir lieu, et il est appliqué au prochain appel de
+ * {@link #getCheckpointInterval(long)} ou de {@link #onFailure(long)} fait à
+ * partir de ce moment. Le MTTF utilisé est le même que si un évènement avait
+ * été planifié à ce moment.
+ */
 public abstract class OurInterval implements CheckpointInterval {
+	/**
+	 * Valeur de {@link #prochainAjustement} quand il n'y a pas d'ajustement à
+	 * faire.
+	 */
+	private static final long AUCUN = Long.MAX_VALUE;
+
 	protected long ap_Mttf;
-	protected Event ajuster;
+
+	/**
+	 * Le moment où le MTTF doit être ajusté, ou {@link #AUCUN}
+	 */
+	private long prochainAjustement;
+
+	/**
+	 * Le nombre d'ajustements appliqués (voir {@link Metriques})
+	 */
+	private int nbAjustements = 0;
+
+	protected final Horloge horloge;
 
 	public OurInterval(long ap_Mttf) {
+		this(ap_Mttf, Horloge.ACS);
+	}
+
+	public OurInterval(long ap_Mttf, Horloge horloge) {
 		this.ap_Mttf = ap_Mttf;
-		this.ajuster = null;
+		this.horloge = horloge;
 		generateAjuster();
 	}
 
+	/**
+	 * Fixe le moment du prochain ajustement (dans ap_Mttf). Il n'y a qu'un seul
+	 * ajustement après chaque panne.
+	 */
 	protected void generateAjuster() {
-		if (this.ajuster != null) {
-			this.ajuster.cancel();
-			this.ajuster = null;
+		long now = horloge.getTime();
+		// un ajustement trop lointain n'aura jamais lieu
+		prochainAjustement = ap_Mttf >= AUCUN - now ? AUCUN : now + ap_Mttf;
+	}
+
+	/**
+	 * Applique l'ajustement s'il devait avoir lieu avant maintenant. Doit être
+	 * appelée avant toute utilisation de ap_Mttf.
+	 */
+	protected void ajusterSiEchu() {
+		if (prochainAjustement != AUCUN && horloge.getTime() >= prochainAjustement) {
+			prochainAjustement = AUCUN;
+			nbAjustements++;
+			ap_Mttf = ajusterMttf();
 		}
-		long delay = ap_Mttf;
-		this.ajuster = new DispensableEventImpl() {
-			@Override
-			public void process() {
-				ap_Mttf = ajusterMttf();
-			}
-		};
-		Simulator.getSimulator().schedule(delay, this.ajuster);
 	}
 
 	@Override
 	public long getCheckpointInterval(long delta) {
+		ajusterSiEchu();
 		long interval = (long) Math.sqrt(2 * (double) delta * ap_Mttf);
 		if (interval <= 0)
 			return delta;
 		return interval;
 	}
 
+	public int getNbAjustements() {
+		return nbAjustements;
+	}
+
 	abstract protected long ajusterMttf();
 }
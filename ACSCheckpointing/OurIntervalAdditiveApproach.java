@@ -1,12 +1,16 @@
 
 
 public class OurIntervalAdditiveApproach extends OurInterval {
-	public static double DEFAULT_N = 0.3;
+	public static final double DEFAULT_N = 0.3;
 
 	private final double n;
 
 	public OurIntervalAdditiveApproach(long ap_Mttf, double n) {
-		super(ap_Mttf);
+		this(ap_Mttf, n, Horloge.ACS);
+	}
+
+	public OurIntervalAdditiveApproach(long ap_Mttf, double n, Horloge horloge) {
+		super(ap_Mttf, horloge);
 		if (n > 1 || n <= 0)
 			throw new IllegalStateException("Le paramètre n doit être compris entre 0 et 1");
 		this.n = n;
@@ -16,8 +20,13 @@ public class OurIntervalAdditiveApproach extends OurInterval {
 		this(ap_Mttf, DEFAULT_N);
 	}
 
+	public OurIntervalAdditiveApproach(long ap_Mttf, Horloge horloge) {
+		this(ap_Mttf, DEFAULT_N, horloge);
+	}
+
 	@Override
 	public void onFailure(long ttf) {
+		ajusterSiEchu();
 		ap_Mttf = (long) (ap_Mttf + n * (ttf - ap_Mttf));
 		generateAjuster();
 	}
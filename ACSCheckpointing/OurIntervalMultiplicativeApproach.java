@@ -1,14 +1,16 @@
 
 
-import com.samysadi.acs.core.Simulator;
-
 public class OurIntervalMultiplicativeApproach extends OurInterval {
-	public static double DEFAULT_A = 1.1;
+	public static final double DEFAULT_A = 1.1;
 
 	private final double a;
 
 	public OurIntervalMultiplicativeApproach(long ap_Mttf, double a) {
-		super(ap_Mttf);
+		this(ap_Mttf, a, Horloge.ACS);
+	}
+
+	public OurIntervalMultiplicativeApproach(long ap_Mttf, double a, Horloge horloge) {
+		super(ap_Mttf, horloge);
 		if (a <= 1)
 			throw new IllegalStateException("Le paramètre a doit être strictement supérieur à 1");
 		this.a = a;
@@ -18,15 +20,20 @@ public class OurIntervalMultiplicativeApproach extends OurInterval {
 		this(ap_Mttf, DEFAULT_A);
 	}
 
+	public OurIntervalMultiplicativeApproach(long ap_Mttf, Horloge horloge) {
+		this(ap_Mttf, DEFAULT_A, horloge);
+	}
+
 	private long verifierDepassement(long v) {
 		// s'il y a dépassement arithmétique, ou si on dépasse la capacité du simulateur (temps maximal)
-		if (v < 0 || v >= Simulator.getSimulator().getMaximumScheduleDelay())
-			v = Simulator.getSimulator().getMaximumScheduleDelay();
+		if (v < 0 || v >= horloge.getMaximumScheduleDelay())
+			v = horloge.getMaximumScheduleDelay();
 		return v;
 	}
 
 	@Override
 	public void onFailure(long ttf) {
+		ajusterSiEchu();
 		ap_Mttf = (long) (ap_Mttf * Math.pow(a, (double) (ttf - ap_Mttf) / ap_Mttf));
 		ap_Mttf = verifierDepassement(ap_Mttf);
 		generateAjuster();
@@ -0,0 +1,257 @@
+
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rejoue une trace de pannes réelle (par exemple les journaux de pannes du LANL
+ * ou du CFDR): les temps entre pannes et les noeuds en panne sont ceux de la
+ * trace.
+ * <p>
+ * La trace est lue par fenêtres projetées en mémoire ({@link MappedByteBuffer}),
+ * une fenêtre à la fois: une trace de plusieurs Go n'est jamais chargée dans le
+ * tas. Les temps de la trace sont mis à l'échelle pour que le temps moyen entre
+ * pannes soit celui du point simulé ({@code mttf / nbJobs}): le MTTF du
+ * balayage reste le paramètre, la trace ne donne que la forme (les rafales).
+ * Quand la trace est finie, elle est rejouée depuis le début (et la première
+ * panne de chaque passage arrive après le temps moyen entre pannes).
+ * <p>
+ * Format binaire (voir {@link #main(String[])} pour convertir un csv):
+ * {@link #MAGIC}, {@link #VERSION} (int), le nombre de pannes, le temps de la
+ * première et celui de la dernière panne (long), puis une panne par
+ * enregistrement: temps en millisecondes (long) et noeud (int), triées par
+ * temps.
+ */
+public class PannesTrace extends SourcePannes {
+	public static final int MAGIC = 0x50414e4e; // "PANN"
+	public static final int VERSION = 1;
+
+	static final int ENTETE = 32;
+	static final int TAILLE = 12;
+
+	/**
+	 * Le nombre d'enregistrements d'une fenêtre (48 Mo)
+	 */
+	private static final long FENETRE = 1L << 22;
+
+	private final File fichier;
+
+	/**
+	 * Le nombre de pannes de la trace
+	 */
+	private final long nombre;
+
+	/**
+	 * Le nombre d'unités de temps du simulateur par milliseconde de la trace
+	 */
+	private final double echelle;
+
+	/**
+	 * Le temps moyen entre pannes (en unités du simulateur)
+	 */
+	private final long moyenne;
+
+	private MappedByteBuffer fenetre = null;
+
+	/**
+	 * L'indice de la première panne de la fenêtre
+	 */
+	private long debutFenetre = 0;
+
+	/**
+	 * L'indice de la prochaine panne
+	 */
+	private long suivante = 0;
+
+	private long tempsPrecedent = 0;
+
+	private int noeud = -1;
+
+	/**
+	 * @param moyenne Le temps moyen entre pannes voulu (en unités du simulateur)
+	 */
+	public PannesTrace(File fichier, long moyenne) {
+		this.fichier = fichier;
+		this.moyenne = moyenne;
+		try {
+			final RandomAccessFile f = new RandomAccessFile(fichier, "r");
+			try {
+				if (f.readInt() != MAGIC)
+					throw new IllegalArgumentException("Ce fichier n'est pas une trace de pannes: " + fichier);
+				final int version = f.readInt();
+				if (version != VERSION)
+					throw new IllegalArgumentException("Version de trace de pannes non supportée: " + version);
+				nombre = f.readLong();
+				final long premier = f.readLong();
+				final long dernier = f.readLong();
+				if (nombre < 2 || dernier <= premier)
+					throw new IllegalArgumentException(
+							"Une trace de pannes doit contenir au moins deux pannes à des temps différents: " + fichier);
+				if (f.length() < ENTETE + nombre * TAILLE)
+					throw new IllegalArgumentException("Trace de pannes incomplète: " + fichier);
+				echelle = (double) moyenne * (nombre - 1) / (dernier - premier);
+			} finally {
+				f.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot read failure trace file: " + fichier, e);
+		}
+	}
+
+	@Override
+	public long prochainIntervalle() {
+		if (suivante == nombre)
+			suivante = 0;
+		if (fenetre == null || suivante < debutFenetre || suivante >= debutFenetre + FENETRE)
+			projeter(suivante);
+		fenetre.position((int) ((suivante - debutFenetre) * TAILLE));
+		final long temps = fenetre.getLong();
+		noeud = fenetre.getInt();
+		final long intervalle = suivante == 0 ? moyenne : (long) ((temps - tempsPrecedent) * echelle);
+		tempsPrecedent = temps;
+		suivante++;
+		return intervalle;
+	}
+
+	@Override
+	public int getNoeud() {
+		return noeud;
+	}
+
+	/**
+	 * Projette la fenêtre qui commence à la panne {@code debut} (la projection
+	 * reste valide après la fermeture du fichier).
+	 */
+	private void projeter(long debut) {
+		try {
+			final RandomAccessFile f = new RandomAccessFile(fichier, "r");
+			try {
+				final long n = Math.min(FENETRE, nombre - debut);
+				fenetre = f.getChannel().map(FileChannel.MapMode.READ_ONLY, ENTETE + debut * TAILLE, n * TAILLE);
+				debutFenetre = debut;
+			} finally {
+				f.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot read failure trace file: " + fichier, e);
+		}
+	}
+
+	/**
+	 * Convertit un journal de pannes csv en trace binaire, en le lisant ligne par
+	 * ligne. Les lignes qui ne peuvent pas être lues (en-têtes, commentaires) sont
+	 * ignorées. Les pannes doivent être triées par temps.
+	 *
+	 * @param colonneTemps La colonne du temps de la panne: un nombre de secondes,
+	 *                     ou une date au format {@code formatDate}
+	 * @param colonneNoeud La colonne du noeud: un entier, sinon chaque nom de
+	 *                     noeud reçoit un numéro
+	 * @param formatDate   Le format des dates (voir {@link SimpleDateFormat}), ou
+	 *                     null
+	 * @return Le nombre de lignes ignorées
+	 */
+	public static long convertir(File csv, File trace, int colonneTemps, int colonneNoeud, String formatDate)
+			throws IOException {
+		final SimpleDateFormat dates = formatDate == null ? null : new SimpleDateFormat(formatDate);
+		final Map<String, Integer> noms = new HashMap<String, Integer>();
+		final BufferedReader in = new BufferedReader(new FileReader(csv), 1 << 16);
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(trace), 1 << 16));
+		long nombre = 0;
+		long premier = 0;
+		long dernier = 0;
+		long ignorees = 0;
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			// le nombre de pannes et les temps extrêmes sont écrits à la fin
+			out.writeLong(0);
+			out.writeLong(0);
+			out.writeLong(0);
+			long ligne = 0;
+			String s;
+			while ((s = in.readLine()) != null) {
+				ligne++;
+				final String[] champs = s.split(",");
+				if (champs.length <= Math.max(colonneTemps, colonneNoeud)) {
+					ignorees++;
+					continue;
+				}
+				final long temps;
+				try {
+					final String t = champs[colonneTemps].trim();
+					temps = dates == null ? (long) (Double.parseDouble(t) * 1000) : dates.parse(t).getTime();
+				} catch (NumberFormatException e) {
+					ignorees++;
+					continue;
+				} catch (ParseException e) {
+					ignorees++;
+					continue;
+				}
+				final String nom = champs[colonneNoeud].trim();
+				int noeud;
+				try {
+					noeud = Integer.parseInt(nom);
+				} catch (NumberFormatException e) {
+					Integer n = noms.get(nom);
+					if (n == null) {
+						n = noms.size();
+						noms.put(nom, n);
+					}
+					noeud = n;
+				}
+				if (nombre > 0 && temps < dernier)
+					throw new IOException("Les pannes doivent être triées par temps (ligne " + ligne + ")");
+				if (nombre == 0)
+					premier = temps;
+				dernier = temps;
+				out.writeLong(temps);
+				out.writeInt(noeud);
+				nombre++;
+			}
+		} finally {
+			in.close();
+			out.close();
+		}
+		final RandomAccessFile f = new RandomAccessFile(trace, "rw");
+		try {
+			f.seek(8);
+			f.writeLong(nombre);
+			f.writeLong(premier);
+			f.writeLong(dernier);
+		} finally {
+			f.close();
+		}
+		return ignorees;
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 2 && args.length != 4 && args.length != 5) {
+			System.err.println("Usage: PannesTrace <csv> <trace> [<colonneTemps> <colonneNoeud> [<formatDate>]]");
+			System.exit(2);
+		}
+		final int colonneTemps = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+		final int colonneNoeud = args.length > 2 ? Integer.parseInt(args[3]) : 1;
+		final String formatDate = args.length > 4 ? args[4] : null;
+		try {
+			final long ignorees = convertir(new File(args[0]), new File(args[1]), colonneTemps, colonneNoeud,
+					formatDate);
+			System.out.println("Trace de pannes écrite: " + args[1] + " (" + ignorees + " lignes ignorées)");
+		} catch (IOException e) {
+			System.err.println("Cannot convert failure log " + args[0] + ": " + e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+
+
+/**
+ * Le résultat de la simulation d'un point (une approche, un MTTF) du balayage.
+ */
+public class PointResult {
+	private final long mttf;
+	private final double pourcentage;
+	private final int nbPannes;
+	private final int jobsRestants;
+	private final ArretSimulation arret;
+	private final Quantiles completionTimes;
+	private final Quantiles overheads;
+
+	/**
+	 * @param mttf         Le MTTF réel (d'un seul job) simulé
+	 * @param pourcentage  Le temps ajouté (causé par les pannes / checkpointing) en
+	 *                     pourcentage de la durée initiale moyenne
+	 * @param nbPannes     Le nombre de pannes
+	 * @param jobsRestants Le nombre de jobs non terminés à la fin de la simulation
+	 * @param arret        La raison de l'arrêt de la simulation
+	 */
+	public PointResult(long mttf, double pourcentage, int nbPannes, int jobsRestants, ArretSimulation arret) {
+		this(mttf, pourcentage, nbPannes, jobsRestants, arret, Quantiles.VIDE, Quantiles.VIDE);
+	}
+
+	/**
+	 * @param completionTimes Les quantiles des temps de complétion des jobs
+	 *                        terminés
+	 * @param overheads       Les quantiles du temps ajouté de chaque job terminé
+	 */
+	public PointResult(long mttf, double pourcentage, int nbPannes, int jobsRestants, ArretSimulation arret,
+			Quantiles completionTimes, Quantiles overheads) {
+		this.mttf = mttf;
+		this.pourcentage = pourcentage;
+		this.nbPannes = nbPannes;
+		this.jobsRestants = jobsRestants;
+		this.arret = arret;
+		this.completionTimes = completionTimes;
+		this.overheads = overheads;
+	}
+
+	/**
+	 * Calcule le résultat à partir des mesures d'une simulation terminée.
+	 *
+	 * @param mttf Le MTTF réel (d'un seul job) simulé
+	 */
+	public static PointResult depuis(long mttf, Simulation m) {
+		// le temps ajouté (causé par les pannes / checkpointing)
+		long addedTime = m.getAverageCompletionTime() - m.getAverageJobLength();
+		double pourcentage = (double) addedTime * 100 / m.getAverageJobLength();
+		return new PointResult(mttf, pourcentage, m.getNbPannes(), m.getJobsRestants(), m.getArret(),
+				m.getCompletionTimes().getQuantiles(), m.getOverheads().getQuantiles());
+	}
+
+	public long getMttf() {
+		return mttf;
+	}
+
+	public double getPourcentage() {
+		return pourcentage;
+	}
+
+	public int getNbPannes() {
+		return nbPannes;
+	}
+
+	public int getJobsRestants() {
+		return jobsRestants;
+	}
+
+	public ArretSimulation getArret() {
+		return arret;
+	}
+
+	public Quantiles getCompletionTimes() {
+		return completionTimes;
+	}
+
+	public Quantiles getOverheads() {
+		return overheads;
+	}
+
+	/**
+	 * Sérialise ce résultat sur une ligne (voir {@link #parse(String)}). Le
+	 * pourcentage est écrit sans arrondi pour qu'un résultat calculé dans un
+	 * processus fils soit identique à celui d'une exécution séquentielle.
+	 */
+	public String format() {
+		return mttf + Sortie.SEP + Double.toString(pourcentage) + Sortie.SEP + nbPannes + Sortie.SEP + jobsRestants
+				+ Sortie.SEP + arret.name() + Sortie.SEP + completionTimes.format() + Sortie.SEP + overheads.format();
+	}
+
+	public static PointResult parse(String line) {
+		String[] v = line.split(Sortie.SEP);
+		if (v.length != 13)
+			throw new IllegalArgumentException("Résultat invalide: " + line);
+		return new PointResult(Long.parseLong(v[0]), Double.parseDouble(v[1]), Integer.parseInt(v[2]),
+				Integer.parseInt(v[3]), ArretSimulation.valueOf(v[4]), Quantiles.parse(v, 5), Quantiles.parse(v, 9));
+	}
+}
@@ -0,0 +1,55 @@
+
+
+/**
+ * Les quantiles p50, p90, p99 et le maximum d'une mesure (voir
+ * {@link Histogramme}).
+ */
+public class Quantiles {
+	/**
+	 * Aucune valeur mesurée
+	 */
+	public static final Quantiles VIDE = new Quantiles(0, 0, 0, 0);
+
+	private final long p50;
+	private final long p90;
+	private final long p99;
+	private final long max;
+
+	public Quantiles(long p50, long p90, long p99, long max) {
+		this.p50 = p50;
+		this.p90 = p90;
+		this.p99 = p99;
+		this.max = max;
+	}
+
+	public long getP50() {
+		return p50;
+	}
+
+	public long getP90() {
+		return p90;
+	}
+
+	public long getP99() {
+		return p99;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Voir {@link PointResult#format()}
+	 */
+	public String format() {
+		return p50 + Sortie.SEP + p90 + Sortie.SEP + p99 + Sortie.SEP + max;
+	}
+
+	/**
+	 * Lit les 4 valeurs à partir de l'indice {@code offset}.
+	 */
+	public static Quantiles parse(String[] v, int offset) {
+		return new Quantiles(Long.parseLong(v[offset]), Long.parseLong(v[offset + 1]),
+				Long.parseLong(v[offset + 2]), Long.parseLong(v[offset + 3]));
+	}
+}
@@ -0,0 +1,14 @@
+
+
+/**
+ * Un générateur de nombres aléatoires (non synchronisé: un générateur ne doit
+ * être utilisé que par un seul thread).
+ */
+public interface RandomSource {
+	long nextLong();
+
+	/**
+	 * @return Un nombre uniforme dans [0, 1)
+	 */
+	double nextDouble();
+}
@@ -0,0 +1,53 @@
+
+
+/**
+ * Le résultat agrégé de plusieurs réplications (graines différentes) d'un même
+ * point (une approche, un MTTF), voir {@link ReplicationRunner}.
+ */
+public class ReplicationResult {
+	private final long mttf;
+	private final Statistique pourcentage = new Statistique();
+	private final Statistique nbPannes = new Statistique();
+	private final Statistique jobsRestants = new Statistique();
+
+	/**
+	 * @param mttf Le MTTF réel (d'un seul job) simulé
+	 */
+	public ReplicationResult(long mttf) {
+		this.mttf = mttf;
+	}
+
+	/**
+	 * Ajoute le résultat d'une réplication.
+	 */
+	public void add(PointResult r) {
+		if (r.getMttf() != mttf)
+			throw new IllegalArgumentException("Le résultat ne correspond pas au même MTTF");
+		pourcentage.add(r.getPourcentage());
+		nbPannes.add(r.getNbPannes());
+		jobsRestants.add(r.getJobsRestants());
+	}
+
+	public long getMttf() {
+		return mttf;
+	}
+
+	public int getNbReplications() {
+		return pourcentage.getN();
+	}
+
+	/**
+	 * Le temps ajouté (en pourcentage de la durée initiale moyenne)
+	 */
+	public Statistique getPourcentage() {
+		return pourcentage;
+	}
+
+	public Statistique getNbPannes() {
+		return nbPannes;
+	}
+
+	public Statistique getJobsRestants() {
+		return jobsRestants;
+	}
+}
@@ -0,0 +1,136 @@
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.samysadi.acs.core.Simulator;
+
+/**
+ * Simule chaque point (approche, MTTF) d'un balayage plusieurs fois avec des
+ * graines différentes, et agrège les résultats ({@link ReplicationResult}).
+ * <p>
+ * Les réplications d'un point sont ajoutées une à une, dans l'ordre des
+ * graines, jusqu'à ce que l'intervalle de confiance à 95% du temps ajouté (%)
+ * soit plus étroit que la largeur cible (ou que le nombre maximal de
+ * réplications soit atteint). Elles sont simulées par lots: tous les points non
+ * terminés sont simulés ensemble à chaque lot, par le {@link SweepRunner} donné
+ * (processus fils ou simulation dans ce processus). La taille d'un lot dépend
+ * du nombre de processus, mais les réplications d'un lot qui suivent la
+ * première où le point est terminé sont ignorées.
+ * <p>
+ * La réplication k d'un point utilise la graine
+ * {@code SplitMix64.seed(graine, k)}, sauf la première qui utilise la graine du
+ * scénario: toutes les approches et tous les MTTF utilisent les mêmes graines,
+ * et une seule réplication donne le même résultat qu'un balayage simple. Les
+ * réplications sont agrégées dans l'ordre des graines, et le nombre de
+ * réplications d'un point ne dépend que des résultats: le balayage est
+ * reproductible.
+ */
+public class ReplicationRunner {
+	private final SweepRunner runner;
+
+	private final int minReplications;
+
+	private final int maxReplications;
+
+	private final double largeurCible;
+
+	/**
+	 * @param runner          Simule les réplications
+	 * @param minReplications Le nombre minimal de réplications par point (au moins
+	 *                        2 pour avoir un intervalle de confiance)
+	 * @param maxReplications Le nombre maximal de réplications par point
+	 * @param largeurCible    La largeur (totale) de l'intervalle de confiance du
+	 *                        temps ajouté (en points de pourcentage) à atteindre
+	 */
+	public ReplicationRunner(SweepRunner runner, int minReplications, int maxReplications, double largeurCible) {
+		if (minReplications < 1 || maxReplications < minReplications)
+			throw new IllegalArgumentException(
+					"Il faut 1 <= minReplications <= maxReplications (" + minReplications + ", " + maxReplications + ")");
+		if (!(largeurCible >= 0))
+			throw new IllegalArgumentException("La largeur cible doit être positive");
+		this.runner = runner;
+		this.minReplications = minReplications;
+		this.maxReplications = maxReplications;
+		this.largeurCible = largeurCible;
+	}
+
+	/**
+	 * @return La graine de la k-ième réplication d'un scénario
+	 */
+	public static long graine(Scenario scenario, int k) {
+		return k == 0 ? scenario.getRandomSeed() : SplitMix64.seed(scenario.getRandomSeed(), k);
+	}
+
+	private boolean termine(ReplicationResult r) {
+		final int n = r.getNbReplications();
+		if (n >= maxReplications)
+			return true;
+		return n >= minReplications && 2 * r.getPourcentage().getDemiLargeurIC() <= largeurCible;
+	}
+
+	/**
+	 * Simule tous les points (scénario, MTTF).
+	 *
+	 * @param scenarios Les scénarios (un par approche)
+	 * @param mttfs     Les MTTF à tester (en heures)
+	 * @return Pour chaque scénario (dans l'ordre), les résultats dans l'ordre de
+	 *         {@code mttfs}
+	 */
+	public List<ReplicationResult[]> run(List<Scenario> scenarios, long[] mttfs) {
+		final List<ReplicationResult[]> resultats = new ArrayList<ReplicationResult[]>(scenarios.size());
+		final List<int[]> enCours = new ArrayList<int[]>();
+		for (int i = 0; i < scenarios.size(); i++) {
+			final ReplicationResult[] r = new ReplicationResult[mttfs.length];
+			for (int j = 0; j < mttfs.length; j++) {
+				r[j] = new ReplicationResult(mttfs[j] * Simulator.HOUR);
+				enCours.add(new int[] { i, j });
+			}
+			resultats.add(r);
+		}
+
+		while (!enCours.isEmpty()) {
+			// premier lot: minReplications, ensuite les processus sont répartis entre les
+			// points non terminés
+			final List<Scenario> lot = new ArrayList<Scenario>();
+			final List<Long> lotMttfs = new ArrayList<Long>();
+			final List<ReplicationResult> destinations = new ArrayList<ReplicationResult>();
+			for (int[] p : enCours) {
+				final ReplicationResult r = resultats.get(p[0])[p[1]];
+				final int n = r.getNbReplications();
+				int nb = n == 0 ? minReplications : Math.max(1, runner.getNbProcessus() / enCours.size());
+				nb = Math.min(nb, maxReplications - n);
+				for (int k = n; k < n + nb; k++) {
+					lot.add(scenarios.get(p[0]).withRandomSeed(graine(scenarios.get(p[0]), k)));
+					lotMttfs.add(mttfs[p[1]]);
+					destinations.add(r);
+				}
+			}
+
+			final long[] m = new long[lotMttfs.size()];
+			for (int k = 0; k < m.length; k++)
+				m[k] = lotMttfs.get(k);
+			final PointResult[] r = runner.runPoints(lot, m);
+			// les réplications d'un point sont dans l'ordre des graines: celles qui suivent
+			// la première où le point est terminé sont ignorées, pour que le nombre de
+			// réplications ne dépende pas de la taille des lots
+			for (int k = 0; k < r.length; k++)
+				if (!termine(destinations.get(k)))
+					destinations.get(k).add(r[k]);
+
+			final List<int[]> suivants = new ArrayList<int[]>();
+			for (int[] p : enCours)
+				if (!termine(resultats.get(p[0])[p[1]]))
+					suivants.add(p);
+			enCours.clear();
+			enCours.addAll(suivants);
+		}
+		return resultats;
+	}
+
+	public ReplicationResult[] run(Scenario scenario, long[] mttfs) {
+		List<Scenario> scenarios = new ArrayList<Scenario>(1);
+		scenarios.add(scenario);
+		return run(scenarios, mttfs).get(0);
+	}
+}
@@ -0,0 +1,164 @@
+
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import com.samysadi.acs.core.Simulator;
+import com.samysadi.acs.core.event.EventImpl;
+import com.samysadi.acs.utility.random.Exponential;
+
+/**
+ * La réserve de noeuds de secours où redémarrent les jobs après une panne
+ * (simulateur d'ACS seulement).
+ * <p>
+ * Un job en panne doit attendre un noeud de secours libre, puis le temps de
+ * démarrage du noeud (le délai de restart du scénario): son délai de restart est
+ * donc l'attente dans la file plus le démarrage. Le noeud en panne part en
+ * réparation, puis revient dans la réserve (ou est donné directement au premier
+ * job en attente). La réserve est comptée en noeuds d'un job (une panne d'hôte,
+ * voir {@link Topologie}, envoie en réparation un noeud par job touché). La
+ * trace ({@link TraceWriter}) enregistre le délai de démarrage, sans l'attente.
+ * <p>
+ * Sans réserve (capacité négative, par défaut), un noeud de secours est
+ * toujours libre. Sans topologie, aucune panne ne survient tant qu'un job
+ * attend son restart (voir {@link MainClass#generateFailureEvent(long)}), donc
+ * il n'y a jamais plus d'un job en attente: pour étudier les files d'attente
+ * après des pannes corrélées, il faut une topologie.
+ * <p>
+ * Quand tous les jobs sont terminés, les réparations en cours sont annulées
+ * (voir {@link #annulerReparations()}): elles ne retardent pas la fin de la
+ * simulation.
+ */
+public final class ReserveNoeuds {
+	/**
+	 * Notifié quand un noeud de secours est attribué à un job en attente.
+	 */
+	public interface Client {
+		void noeudAttribue();
+	}
+
+	private final Compteurs compteurs;
+
+	private final Exponential reparations;
+
+	/**
+	 * Le nombre de noeuds de secours libres
+	 */
+	private int libres;
+
+	/**
+	 * Les jobs qui attendent un noeud de secours, avec le moment de leur demande
+	 */
+	private final ArrayDeque<Client> file = new ArrayDeque<Client>();
+	private final ArrayDeque<Long> debuts = new ArrayDeque<Long>();
+
+	/**
+	 * Les réparations planifiées
+	 */
+	private final Set<EventImpl> reparationsEnCours = new HashSet<EventImpl>();
+
+	private long nbDemandes = 0;
+	private long nbAttentes = 0;
+	private long attenteTotale = 0;
+	private int fileMax = 0;
+
+	private ReserveNoeuds(int capacite, long reparation, Random random, Compteurs compteurs) {
+		if (reparation <= 0)
+			throw new IllegalArgumentException("Le temps de réparation doit être positif (" + reparation + ")");
+		this.libres = capacite;
+		this.reparations = new Exponential(reparation, random);
+		this.compteurs = compteurs;
+	}
+
+	/**
+	 * @return La réserve décrite par le scénario, ou null si la réserve n'est pas
+	 *         modélisée (capacité négative)
+	 */
+	public static ReserveNoeuds creer(Scenario scenario, Compteurs compteurs) {
+		if (scenario.getCapaciteReserve() < 0)
+			return null;
+		return new ReserveNoeuds(scenario.getCapaciteReserve(), scenario.getReparation(),
+				new Random(SplitMix64.seed(scenario.getRandomSeed(), -7)), compteurs);
+	}
+
+	/**
+	 * Demande un noeud de secours pour un job en panne.
+	 *
+	 * @return true si un noeud est libre (le client n'est pas notifié), false si
+	 *         le job est mis en attente (le client est notifié quand un noeud lui
+	 *         est attribué)
+	 */
+	public boolean demander(Client client) {
+		nbDemandes++;
+		if (libres > 0) {
+			libres--;
+			return true;
+		}
+		file.add(client);
+		debuts.add(Simulator.getSimulator().getTime());
+		fileMax = Math.max(fileMax, file.size());
+		return false;
+	}
+
+	/**
+	 * Envoie en réparation les noeuds de {@code nb} jobs en panne.
+	 */
+	public void reparer(int nb) {
+		for (int k = 0; k < nb; k++) {
+			final EventImpl reparation = new EventImpl() {
+				@Override
+				public void process() {
+					compteurs.traite(TypeEvenement.REPARATION, this);
+					reparationsEnCours.remove(this);
+					final Client client = file.poll();
+					if (client == null) {
+						libres++;
+						return;
+					}
+					nbAttentes++;
+					attenteTotale += Simulator.getSimulator().getTime() - debuts.poll();
+					client.noeudAttribue();
+				}
+			};
+			reparationsEnCours.add(reparation);
+			compteurs.planifie();
+			Simulator.getSimulator().schedule(reparations.nextLong(), reparation);
+		}
+	}
+
+	/**
+	 * Annule les réparations planifiées. Appelée quand tous les jobs sont
+	 * terminés: aucun job n'attend de noeud, et les statistiques de la réserve ne
+	 * changent pas.
+	 */
+	public void annulerReparations() {
+		for (EventImpl reparation : reparationsEnCours) {
+			compteurs.annule(reparation);
+			reparation.cancel();
+		}
+		reparationsEnCours.clear();
+	}
+
+	/**
+	 * @return La proportion des jobs en panne qui ont attendu un noeud de secours
+	 */
+	public double getProportionAttentes() {
+		return nbDemandes == 0 ? 0 : (double) nbAttentes / nbDemandes;
+	}
+
+	/**
+	 * @return L'attente moyenne d'un noeud de secours (sur tous les jobs en panne)
+	 */
+	public long getAttenteMoyenne() {
+		return nbDemandes == 0 ? 0 : attenteTotale / nbDemandes;
+	}
+
+	/**
+	 * @return Le plus grand nombre de jobs en attente d'un noeud de secours
+	 */
+	public int getFileMax() {
+		return fileMax;
+	}
+}
@@ -0,0 +1,621 @@
+
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.samysadi.acs.core.Simulator;
+
+/**
+ * Regroupe les paramètres d'une simulation (tout sauf le MTTF réel, qui varie
+ * d'un point du balayage à l'autre).
+ * <p>
+ * Un scénario peut être converti en arguments de ligne de commande (et
+ * inversement) pour être transmis à un processus fils lors d'un balayage
+ * parallèle (voir {@link SweepRunner}).
+ * <p>
+ * Les options (tout ce qui n'est pas passé au constructeur) ont une valeur par
+ * défaut qui donne le comportement d'origine, et se changent avec les méthodes
+ * {@code with...()} qui retournent une copie du scénario.
+ */
+public class Scenario {
+	private final Class<? extends CheckpointInterval> approche;
+
+	/**
+	 * Paramètre a de {@link OurIntervalMultiplicativeApproach}
+	 */
+	private final double a;
+
+	/**
+	 * Paramètre n de {@link OurIntervalAdditiveApproach}
+	 */
+	private final double n;
+
+	private final long delta;
+	private final long restartDelayMean;
+	private final int nbJobs;
+	private final long meanJobLength;
+
+	/**
+	 * Le MTTF à priori (en heures) à donner pour l'approche, null pour donner le
+	 * MTTF reel
+	 */
+	private final Long mttfAPriori;
+
+	private final long randomSeed;
+
+	/**
+	 * Temps maximal de simulation
+	 */
+	private final long horizon;
+
+	/**
+	 * Nombre de partitions pour une simulation partitionnée (voir
+	 * {@link ShardedSimulation}), 0 pour utiliser le simulateur ACS
+	 */
+	private final int nbShards;
+
+	/**
+	 * Les jobs qui utilisent la même approche avec les mêmes paramètres partagent
+	 * un seul objet {@link CheckpointInterval} (voir
+	 * {@link MainClass#MainClass(Scenario, long, long)}).
+	 */
+	private boolean estimateurPartage = false;
+
+	/**
+	 * Comment choisir le job mis en panne
+	 */
+	private ModeVictimes modeVictimes = ModeVictimes.TOUS;
+
+	/**
+	 * Le générateur de nombres aléatoires de la simulation partitionnée (la
+	 * simulation avec ACS utilise toujours java.util.Random)
+	 */
+	private Generateur generateur = Generateur.JAVA_UTIL;
+
+	/**
+	 * Le préfixe des fichiers de trace (voir {@link TraceWriter}), ou null pour ne
+	 * pas écrire de trace
+	 */
+	private String trace = null;
+
+	/**
+	 * Le préfixe des fichiers de métriques (voir {@link Metriques}), ou null pour
+	 * ne pas écrire de métriques
+	 */
+	private String metriques = null;
+
+	/**
+	 * Le modèle du stockage des checkpoints (voir {@link Stockage})
+	 */
+	private ModeStockage stockage = ModeStockage.AUCUN;
+
+	/**
+	 * Le débit total du stockage (en Mo/s) et la taille d'un checkpoint (en Mo),
+	 * si {@link #stockage} n'est pas {@link ModeStockage#AUCUN}
+	 */
+	private double debitStockage = 0;
+	private double tailleCheckpoint = 0;
+
+	/**
+	 * Les niveaux de checkpoint (voir {@link Niveaux})
+	 */
+	private Niveaux niveaux = Niveaux.UN;
+
+	/**
+	 * Le checkpointing incrémental (voir {@link Incremental}), ou null
+	 */
+	private Incremental incremental = null;
+
+	/**
+	 * La loi des temps entre pannes (voir {@link SourcePannes}), sa forme (pour
+	 * {@link LoiPannes#WEIBULL} et {@link LoiPannes#LOGNORMALE}) et la trace à
+	 * rejouer (pour {@link LoiPannes#TRACE})
+	 */
+	private LoiPannes loiPannes = LoiPannes.EXPONENTIELLE;
+	private double formePannes = 1;
+	private String tracePannes = null;
+
+	/**
+	 * Le placement des jobs sur des hôtes et des racks (voir {@link Topologie}),
+	 * ou null
+	 */
+	private Topologie topologie = null;
+
+	/**
+	 * Le nombre de noeuds de secours (négatif: pas de réserve, voir
+	 * {@link ReserveNoeuds}) et leur temps moyen de réparation
+	 */
+	private int capaciteReserve = -1;
+	private long reparation = 0;
+
+	/**
+	 * Système ouvert (voir {@link SimulationOuverte}): le temps moyen entre deux
+	 * arrivées de jobs (processus de Poisson), ou la trace des arrivées à rejouer.
+	 * 0 et null: tous les jobs sont créés au début (système fermé)
+	 */
+	private long interArrivee = 0;
+	private String traceArrivees = null;
+
+	public Scenario(Class<? extends CheckpointInterval> approche, double a, double n, long delta,
+			long restartDelayMean, int nbJobs, long meanJobLength, Long mttfAPriori, long randomSeed, long horizon,
+			int nbShards) {
+		this.approche = approche;
+		this.a = a;
+		this.n = n;
+		this.delta = delta;
+		this.restartDelayMean = restartDelayMean;
+		this.nbJobs = nbJobs;
+		this.meanJobLength = meanJobLength;
+		this.mttfAPriori = mttfAPriori;
+		this.randomSeed = randomSeed;
+		this.horizon = horizon;
+		this.nbShards = nbShards;
+	}
+
+	public Class<? extends CheckpointInterval> getApproche() {
+		return approche;
+	}
+
+	public double getA() {
+		return a;
+	}
+
+	public double getN() {
+		return n;
+	}
+
+	public long getDelta() {
+		return delta;
+	}
+
+	public long getRestartDelayMean() {
+		return restartDelayMean;
+	}
+
+	public int getNbJobs() {
+		return nbJobs;
+	}
+
+	public long getMeanJobLength() {
+		return meanJobLength;
+	}
+
+	public Long getMttfAPriori() {
+		return mttfAPriori;
+	}
+
+	public long getRandomSeed() {
+		return randomSeed;
+	}
+
+	public long getHorizon() {
+		return horizon;
+	}
+
+	public int getNbShards() {
+		return nbShards;
+	}
+
+	/**
+	 * Retourne le MTTF à priori (en unités du simulateur) à utiliser pour un MTTF
+	 * réel donné (en heures).
+	 */
+	public long getApMttf(long mttf) {
+		return (mttfAPriori == null ? mttf : mttfAPriori) * Simulator.HOUR;
+	}
+
+	/**
+	 * Une copie de ce scénario avec une autre approche.
+	 */
+	public Scenario withApproche(Class<? extends CheckpointInterval> approche) {
+		return new Scenario(approche, a, n, delta, restartDelayMean, nbJobs, meanJobLength, mttfAPriori, randomSeed,
+				horizon, nbShards).withOptions(this);
+	}
+
+	/**
+	 * Une copie de ce scénario avec une autre graine.
+	 */
+	public Scenario withRandomSeed(long randomSeed) {
+		return new Scenario(approche, a, n, delta, restartDelayMean, nbJobs, meanJobLength, mttfAPriori, randomSeed,
+				horizon, nbShards).withOptions(this);
+	}
+
+	/**
+	 * Une copie de ce scénario avec d'autres paramètres a et n (voir
+	 * {@link Autotuneur}).
+	 */
+	public Scenario withParametres(double a, double n) {
+		return new Scenario(approche, a, n, delta, restartDelayMean, nbJobs, meanJobLength, mttfAPriori, randomSeed,
+				horizon, nbShards).withOptions(this);
+	}
+
+	/**
+	 * Crée l'estimateur de l'approche de ce scénario, avec les paramètres a et n
+	 * de ce scénario (les autres approches sont créées par leur constructeur
+	 * (long, Horloge) s'il existe, sinon (long)).
+	 *
+	 * @param ap_mttf Le MTTF à priori
+	 * @param horloge L'horloge de l'estimateur, ou null pour celle du simulateur
+	 *                d'ACS
+	 */
+	public CheckpointInterval creerEstimateur(long ap_mttf, Horloge horloge) {
+		if (approche == OurIntervalMultiplicativeApproach.class)
+			return new OurIntervalMultiplicativeApproach(ap_mttf, a, horloge == null ? Horloge.ACS : horloge);
+		if (approche == OurIntervalAdditiveApproach.class)
+			return new OurIntervalAdditiveApproach(ap_mttf, n, horloge == null ? Horloge.ACS : horloge);
+		try {
+			if (horloge != null)
+				try {
+					return approche.getConstructor(long.class, Horloge.class).newInstance(ap_mttf, horloge);
+				} catch (NoSuchMethodException e) {
+					// constructeur (long) ci-dessous
+				}
+			return approche.getConstructor(long.class).newInstance(ap_mttf);
+		} catch (Exception e) {
+			throw new IllegalArgumentException(
+					"La classe " + approche.getSimpleName() + " ne contient pas un constructeur adéquat.", e);
+		}
+	}
+
+	public boolean isEstimateurPartage() {
+		return estimateurPartage;
+	}
+
+	public Scenario withEstimateurPartage(boolean estimateurPartage) {
+		Scenario s = copy();
+		s.estimateurPartage = estimateurPartage;
+		return s;
+	}
+
+	public ModeVictimes getModeVictimes() {
+		return modeVictimes;
+	}
+
+	public Scenario withModeVictimes(ModeVictimes modeVictimes) {
+		Scenario s = copy();
+		s.modeVictimes = modeVictimes;
+		return s;
+	}
+
+	public ModeStockage getStockage() {
+		return stockage;
+	}
+
+	public double getDebitStockage() {
+		return debitStockage;
+	}
+
+	public double getTailleCheckpoint() {
+		return tailleCheckpoint;
+	}
+
+	/**
+	 * @param stockage         Le partage du stockage entre les checkpoints
+	 *                         simultanés
+	 * @param debitStockage    Le débit total du stockage (en Mo/s)
+	 * @param tailleCheckpoint La taille d'un checkpoint (en Mo)
+	 */
+	public Scenario withStockage(ModeStockage stockage, double debitStockage, double tailleCheckpoint) {
+		Scenario s = copy();
+		s.stockage = stockage;
+		s.debitStockage = debitStockage;
+		s.tailleCheckpoint = tailleCheckpoint;
+		return s;
+	}
+
+	public Niveaux getNiveaux() {
+		return niveaux;
+	}
+
+	public Scenario withNiveaux(Niveaux niveaux) {
+		Scenario s = copy();
+		s.niveaux = niveaux;
+		return s;
+	}
+
+	public Incremental getIncremental() {
+		return incremental;
+	}
+
+	public Scenario withIncremental(Incremental incremental) {
+		Scenario s = copy();
+		s.incremental = incremental;
+		return s;
+	}
+
+	public LoiPannes getLoiPannes() {
+		return loiPannes;
+	}
+
+	public double getFormePannes() {
+		return formePannes;
+	}
+
+	public String getTracePannes() {
+		return tracePannes;
+	}
+
+	/**
+	 * @param loiPannes   La loi des temps entre pannes
+	 * @param formePannes La forme de la loi (forme de Weibull, écart type du
+	 *                    logarithme pour la loi log-normale)
+	 * @param tracePannes La trace de pannes à rejouer (voir {@link PannesTrace}),
+	 *                    ou null
+	 */
+	public Scenario withPannes(LoiPannes loiPannes, double formePannes, String tracePannes) {
+		Scenario s = copy();
+		s.loiPannes = loiPannes;
+		s.formePannes = formePannes;
+		s.tracePannes = tracePannes;
+		return s;
+	}
+
+	public Topologie getTopologie() {
+		return topologie;
+	}
+
+	public Scenario withTopologie(Topologie topologie) {
+		Scenario s = copy();
+		s.topologie = topologie;
+		return s;
+	}
+
+	public int getCapaciteReserve() {
+		return capaciteReserve;
+	}
+
+	public long getReparation() {
+		return reparation;
+	}
+
+	/**
+	 * @param capaciteReserve Le nombre de noeuds de secours, négatif pour ne pas
+	 *                        modéliser la réserve
+	 * @param reparation      Le temps moyen de réparation d'un noeud en panne
+	 */
+	public Scenario withReserve(int capaciteReserve, long reparation) {
+		Scenario s = copy();
+		s.capaciteReserve = capaciteReserve;
+		s.reparation = reparation;
+		return s;
+	}
+
+	/**
+	 * @return true si les jobs arrivent au fil du temps (voir
+	 *         {@link SimulationOuverte}): le nombre de jobs est alors le nombre
+	 *         total d'arrivées
+	 */
+	public boolean isOuvert() {
+		return interArrivee > 0 || traceArrivees != null;
+	}
+
+	public long getInterArrivee() {
+		return interArrivee;
+	}
+
+	public String getTraceArrivees() {
+		return traceArrivees;
+	}
+
+	/**
+	 * @param interArrivee  Le temps moyen entre deux arrivées de jobs (0 pour un
+	 *                      système fermé)
+	 * @param traceArrivees La trace des arrivées à rejouer (à la place du processus
+	 *                      de Poisson), ou null
+	 */
+	public Scenario withArrivees(long interArrivee, String traceArrivees) {
+		Scenario s = copy();
+		s.interArrivee = interArrivee;
+		s.traceArrivees = traceArrivees;
+		return s;
+	}
+
+	public Generateur getGenerateur() {
+		return generateur;
+	}
+
+	public Scenario withGenerateur(Generateur generateur) {
+		Scenario s = copy();
+		s.generateur = generateur;
+		return s;
+	}
+
+	public String getTrace() {
+		return trace;
+	}
+
+	/**
+	 * @param trace Le préfixe des fichiers de trace (un fichier par point), ou null
+	 *              pour ne pas écrire de trace
+	 */
+	public Scenario withTrace(String trace) {
+		Scenario s = copy();
+		s.trace = trace;
+		return s;
+	}
+
+	/**
+	 * @param mttf Le MTTF (en heures)
+	 * @return Le fichier de trace d'un point de ce scénario, ou null
+	 */
+	public File getTraceFile(long mttf) {
+		if (trace == null)
+			return null;
+		return new File(trace + "." + approche.getSimpleName() + ".mttf" + mttf + ".seed" + randomSeed + ".trace");
+	}
+
+	public String getMetriques() {
+		return metriques;
+	}
+
+	/**
+	 * @param metriques Le préfixe des fichiers de métriques (un fichier par point),
+	 *                  ou null pour ne pas écrire de métriques (elles restent
+	 *                  visibles par JMX)
+	 */
+	public Scenario withMetriques(String metriques) {
+		Scenario s = copy();
+		s.metriques = metriques;
+		return s;
+	}
+
+	/**
+	 * @param mttf Le MTTF (en heures)
+	 * @return Le fichier de métriques d'un point de ce scénario, ou null
+	 */
+	public File getMetriquesFile(long mttf) {
+		if (metriques == null)
+			return null;
+		return new File(
+				metriques + "." + approche.getSimpleName() + ".mttf" + mttf + ".seed" + randomSeed + ".metriques.csv");
+	}
+
+	private Scenario copy() {
+		return withApproche(approche);
+	}
+
+	/**
+	 * Copie les options d'un autre scénario dans ce scénario.
+	 */
+	private Scenario withOptions(Scenario s) {
+		this.estimateurPartage = s.estimateurPartage;
+		this.modeVictimes = s.modeVictimes;
+		this.generateur = s.generateur;
+		this.trace = s.trace;
+		this.metriques = s.metriques;
+		this.stockage = s.stockage;
+		this.debitStockage = s.debitStockage;
+		this.tailleCheckpoint = s.tailleCheckpoint;
+		this.niveaux = s.niveaux;
+		this.incremental = s.incremental;
+		this.loiPannes = s.loiPannes;
+		this.formePannes = s.formePannes;
+		this.tracePannes = s.tracePannes;
+		this.topologie = s.topologie;
+		this.capaciteReserve = s.capaciteReserve;
+		this.reparation = s.reparation;
+		this.interArrivee = s.interArrivee;
+		this.traceArrivees = s.traceArrivees;
+		return this;
+	}
+
+	/**
+	 * Convertit ce scénario en arguments pour {@link #fromArgs(String[], int)}.
+	 * Les options sont ajoutées après les paramètres du constructeur, sous la forme
+	 * {@code cle=valeur}.
+	 */
+	public List<String> toArgs() {
+		List<String> args = new ArrayList<String>();
+		args.add(approche.getName());
+		args.add(String.valueOf(a));
+		args.add(String.valueOf(n));
+		args.add(String.valueOf(delta));
+		args.add(String.valueOf(restartDelayMean));
+		args.add(String.valueOf(nbJobs));
+		args.add(String.valueOf(meanJobLength));
+		args.add(mttfAPriori == null ? "null" : String.valueOf(mttfAPriori));
+		args.add(String.valueOf(randomSeed));
+		args.add(String.valueOf(horizon));
+		args.add(String.valueOf(nbShards));
+		args.add("estimateurPartage=" + estimateurPartage);
+		args.add("modeVictimes=" + modeVictimes.name());
+		args.add("generateur=" + generateur.name());
+		args.add("trace=" + (trace == null ? "" : trace));
+		args.add("metriques=" + (metriques == null ? "" : metriques));
+		args.add("stockage=" + stockage.name());
+		args.add("debitStockage=" + debitStockage);
+		args.add("tailleCheckpoint=" + tailleCheckpoint);
+		args.add("niveaux=" + niveaux.format());
+		args.add("incremental=" + (incremental == null ? "" : incremental.format()));
+		args.add("loiPannes=" + loiPannes.name());
+		args.add("formePannes=" + formePannes);
+		args.add("tracePannes=" + (tracePannes == null ? "" : tracePannes));
+		args.add("topologie=" + (topologie == null ? "" : topologie.format()));
+		args.add("capaciteReserve=" + capaciteReserve);
+		args.add("reparation=" + reparation);
+		args.add("interArrivee=" + interArrivee);
+		args.add("traceArrivees=" + (traceArrivees == null ? "" : traceArrivees));
+		return args;
+	}
+
+	/**
+	 * Nombre de paramètres du constructeur dans les arguments de
+	 * {@link #fromArgs(String[], int)}.
+	 */
+	private static final int NB_ARGS = 11;
+
+	/**
+	 * Reconstruit un scénario à partir des arguments (à partir de l'indice
+	 * {@code offset} jusqu'à la fin) donnés par {@link #toArgs()}.
+	 */
+	@SuppressWarnings("unchecked")
+	public static Scenario fromArgs(String[] args, int offset) {
+		Class<? extends CheckpointInterval> approche;
+		try {
+			approche = (Class<? extends CheckpointInterval>) Class.forName(args[offset]);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalArgumentException("Approche inconnue: " + args[offset]);
+		}
+		int i = offset + 1;
+		double a = Double.parseDouble(args[i++]);
+		double n = Double.parseDouble(args[i++]);
+		long delta = Long.parseLong(args[i++]);
+		long restart = Long.parseLong(args[i++]);
+		int nbJobs = Integer.parseInt(args[i++]);
+		long length = Long.parseLong(args[i++]);
+		String ap = args[i++];
+		Long mttfAPriori = "null".equals(ap) ? null : Long.valueOf(ap);
+		long seed = Long.parseLong(args[i++]);
+		long horizon = Long.parseLong(args[i++]);
+		int nbShards = Integer.parseInt(args[i++]);
+		Scenario s = new Scenario(approche, a, n, delta, restart, nbJobs, length, mttfAPriori, seed, horizon,
+				nbShards);
+		for (i = offset + NB_ARGS; i < args.length; i++) {
+			final int eq = args[i].indexOf('=');
+			if (eq < 0)
+				throw new IllegalArgumentException("Option invalide: " + args[i]);
+			final String cle = args[i].substring(0, eq);
+			final String valeur = args[i].substring(eq + 1);
+			if ("estimateurPartage".equals(cle))
+				s.estimateurPartage = Boolean.parseBoolean(valeur);
+			else if ("modeVictimes".equals(cle))
+				s.modeVictimes = ModeVictimes.valueOf(valeur);
+			else if ("generateur".equals(cle))
+				s.generateur = Generateur.valueOf(valeur);
+			else if ("trace".equals(cle))
+				s.trace = valeur.isEmpty() ? null : valeur;
+			else if ("metriques".equals(cle))
+				s.metriques = valeur.isEmpty() ? null : valeur;
+			else if ("stockage".equals(cle))
+				s.stockage = ModeStockage.valueOf(valeur);
+			else if ("debitStockage".equals(cle))
+				s.debitStockage = Double.parseDouble(valeur);
+			else if ("tailleCheckpoint".equals(cle))
+				s.tailleCheckpoint = Double.parseDouble(valeur);
+			else if ("niveaux".equals(cle))
+				s.niveaux = Niveaux.parse(valeur);
+			else if ("incremental".equals(cle))
+				s.incremental = valeur.isEmpty() ? null : Incremental.parse(valeur);
+			else if ("loiPannes".equals(cle))
+				s.loiPannes = LoiPannes.valueOf(valeur);
+			else if ("formePannes".equals(cle))
+				s.formePannes = Double.parseDouble(valeur);
+			else if ("tracePannes".equals(cle))
+				s.tracePannes = valeur.isEmpty() ? null : valeur;
+			else if ("topologie".equals(cle))
+				s.topologie = valeur.isEmpty() ? null : Topologie.parse(valeur);
+			else if ("capaciteReserve".equals(cle))
+				s.capaciteReserve = Integer.parseInt(valeur);
+			else if ("reparation".equals(cle))
+				s.reparation = Long.parseLong(valeur);
+			else if ("interArrivee".equals(cle))
+				s.interArrivee = Long.parseLong(valeur);
+			else if ("traceArrivees".equals(cle))
+				s.traceArrivees = valeur.isEmpty() ? null : valeur;
+			else
+				throw new IllegalArgumentException("Option inconnue: " + cle);
+		}
+		return s;
+	}
+}
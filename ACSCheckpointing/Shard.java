@@ -0,0 +1,324 @@
+
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import com.samysadi.acs.core.Simulator;
+
+/**
+ * Une partition des jobs d'une {@link ShardedSimulation}, avec sa propre file
+ * d'évènements.
+ * <p>
+ * Les jobs d'une partition évoluent exactement comme ceux de la classe
+ * {@link Job} (démarrage, checkpoint, reprise, fin, récupération après une
+ * panne), mais les évènements sont ordonnancés dans la file de la partition et
+ * non dans le simulateur d'ACS (qui est unique dans un processus). Une
+ * partition n'est jamais utilisée par deux threads en même temps.
+ * <p>
+ * La file est un {@link EventHeap}: un évènement est identifié par le couple
+ * (job, type), aucun objet n'est créé pour planifier ou annuler un évènement.
+ * <p>
+ * La partition est aussi l'{@link Horloge} des objets CheckpointInterval de ses
+ * jobs.
+ */
+public class Shard implements Horloge {
+	private static final int END = 0;
+	private static final int CHECK = 1;
+	private static final int CONTINUE = 2;
+	private static final int NB_TYPES = 3;
+
+	/**
+	 * Le type (compté) de chaque type d'évènement de la partition
+	 */
+	private static final TypeEvenement[] TYPES = { TypeEvenement.END, TypeEvenement.CHECKPOINT,
+			TypeEvenement.CONTINUE };
+
+	private final JobStore jobs;
+
+	private final EventHeap queue;
+
+	/**
+	 * Les objets CheckpointInterval des jobs, chacun une seule fois
+	 */
+	private final CheckpointInterval[] estimateurs;
+
+	private long time = 0;
+
+	/**
+	 * Les évènements traités, planifiés et annulés
+	 */
+	private final Compteurs compteurs = new Compteurs();
+
+	/**
+	 * Le nombre de jobs terminés
+	 */
+	private int nbJobsTermines = 0;
+
+	/**
+	 * Les jobs terminés depuis le dernier appel à {@link #viderTermines()}, dans
+	 * l'ordre où ils se sont terminés
+	 */
+	private int[] termines = new int[16];
+	private int nbTermines = 0;
+
+	/**
+	 * Voir {@link Simulation#getCompletionTimes()} et
+	 * {@link Simulation#getOverheads()}
+	 */
+	private final Histogramme completionTimes = new Histogramme();
+	private final Histogramme overheads = new Histogramme();
+
+	/**
+	 * Crée les objets CheckpointInterval des jobs d'une partition.
+	 */
+	public interface Fabrique {
+		/**
+		 * @param horloge L'horloge de la partition
+		 * @return L'objet CheckpointInterval d'un job (le même objet peut être
+		 *         retourné pour plusieurs jobs)
+		 */
+		CheckpointInterval creer(Horloge horloge);
+	}
+
+	/**
+	 * @param initialDurations Les durées initiales des jobs de cette partition
+	 * @param deltaGenerators  Le générateur des délais de checkpoint de chaque job
+	 * @param fabrique         Crée l'objet CheckpointInterval de chaque job
+	 */
+	public Shard(long[] initialDurations, DeltaGenerators deltaGenerators, Fabrique fabrique) {
+		final int n = initialDurations.length;
+		final CheckpointInterval[] intervals = new CheckpointInterval[n];
+		final LinkedHashSet<CheckpointInterval> distincts = new LinkedHashSet<CheckpointInterval>();
+		for (int i = 0; i < n; i++) {
+			intervals[i] = fabrique.creer(this);
+			// l'égalité de CheckpointInterval est l'identité
+			distincts.add(intervals[i]);
+		}
+		jobs = new JobStore(initialDurations, intervals, deltaGenerators);
+		queue = new EventHeap(n * NB_TYPES);
+		estimateurs = distincts.toArray(new CheckpointInterval[distincts.size()]);
+	}
+
+	public int size() {
+		return jobs.size();
+	}
+
+	public JobStore getJobs() {
+		return jobs;
+	}
+
+	@Override
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Le temps est un long, il n'y a pas d'autre limite.
+	 */
+	@Override
+	public long getMaximumScheduleDelay() {
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * Traite tous les évènements dont le temps est strictement inférieur à
+	 * {@code limit}, puis avance le temps de la partition à {@code limit}.
+	 */
+	public void advanceTo(long limit) {
+		int slot;
+		while ((slot = queue.peek()) >= 0 && queue.getTime(slot) < limit)
+			process(slot);
+		time = limit;
+	}
+
+	/**
+	 * Traite tous les évènements dont le temps est inférieur ou égal à
+	 * {@code limit}.
+	 */
+	public void advanceThrough(long limit) {
+		int slot;
+		while ((slot = queue.peek()) >= 0 && queue.getTime(slot) <= limit)
+			process(slot);
+	}
+
+	private void process(int slot) {
+		time = queue.getTime(slot);
+		queue.poll();
+		final int i = slot / NB_TYPES;
+		final int type = slot - i * NB_TYPES;
+		compteurs.traite(TYPES[type]);
+		switch (type) {
+		case END:
+			stopJob(i);
+			break;
+		case CHECK:
+			// stopper le job
+			stopJob(i);
+			// planifier la reprise
+			schedule(jobs.checkDelta[i], i, CONTINUE);
+			break;
+		case CONTINUE:
+			// mettre à jour la durée complétée
+			jobs.checkpointedDuration[i] = jobs.completedDuration[i];
+			jobs.nbCheckpoints[i]++;
+			// redémarer le Job
+			startJob(i);
+			break;
+		default:
+			throw new IllegalStateException();
+		}
+	}
+
+	private void schedule(long delay, int i, int type) {
+		final int slot = i * NB_TYPES + type;
+		// replanifier un évènement revient à l'annuler puis à le planifier
+		if (queue.isScheduled(slot))
+			compteurs.annule();
+		compteurs.planifie();
+		queue.schedule(slot, time + delay);
+	}
+
+	private void cancel(int i, int type) {
+		final int slot = i * NB_TYPES + type;
+		if (queue.isScheduled(slot)) {
+			compteurs.annule();
+			queue.cancel(slot);
+		}
+	}
+
+	/**
+	 * Voir {@link Job#startJob()}
+	 */
+	private void startJob(int i) {
+		stopJob(i);
+
+		long timeToFinish = jobs.initialDuration[i] - jobs.completedDuration[i];
+		if (timeToFinish == 0)
+			return;
+
+		jobs.lastTime[i] = time;
+		jobs.running[i] = true;
+		schedule(timeToFinish, i, END);
+
+		final long delta = jobs.nextDelta(i);
+		long interval_checkpointing = jobs.getCheckpointIntervalObject(i).getCheckpointInterval(delta);
+		if (interval_checkpointing == 0)
+			interval_checkpointing = 10 * Simulator.MILLISECOND;
+		jobs.checkDelta[i] = delta;
+		schedule(interval_checkpointing, i, CHECK);
+	}
+
+	/**
+	 * Voir {@link Job#stopJob()}
+	 */
+	public void stopJob(int i) {
+		cancel(i, CHECK);
+		cancel(i, CONTINUE);
+
+		if (!jobs.running[i] || jobs.isCompleted(i))
+			return;
+
+		cancel(i, END);
+		jobs.running[i] = false;
+
+		jobs.completedDuration[i] += time - jobs.lastTime[i];
+
+		if (jobs.isCompleted(i)) {
+			jobs.completedAt[i] = time;
+			nbJobsTermines++;
+			completionTimes.add(time);
+			overheads.add(time - jobs.initialDuration[i]);
+			if (nbTermines == termines.length)
+				termines = Arrays.copyOf(termines, 2 * nbTermines);
+			termines[nbTermines++] = i;
+		}
+	}
+
+	public void startJobs() {
+		for (int i = 0; i < jobs.size(); i++)
+			startJob(i);
+	}
+
+	/**
+	 * Appelle la méthode onFailure() de chaque job de cette partition (une seule
+	 * fois par objet CheckpointInterval partagé).
+	 */
+	public void onFailure(long ttf) {
+		for (CheckpointInterval c : estimateurs)
+			c.onFailure(ttf);
+	}
+
+	/**
+	 * @return Le nombre de jobs terminés depuis le dernier appel à
+	 *         {@link #viderTermines()}
+	 */
+	public int getNbTermines() {
+		return nbTermines;
+	}
+
+	/**
+	 * @return L'indice (dans cette partition) du k-ième job terminé depuis le
+	 *         dernier appel à {@link #viderTermines()} (dans l'ordre où ils se sont
+	 *         terminés)
+	 */
+	public int getTermine(int k) {
+		return termines[k];
+	}
+
+	public void viderTermines() {
+		nbTermines = 0;
+	}
+
+	public boolean isCompleted(int i) {
+		return jobs.isCompleted(i);
+	}
+
+	/**
+	 * Récupère l'état du job depuis son dernier checkpoint et le redémarre (voir
+	 * {@link Job#recoverFromCheckpoint()}).
+	 */
+	public void recoverAndStartJob(int i) {
+		if (!jobs.isCompleted(i)) {
+			if (jobs.running[i])
+				throw new IllegalStateException(
+						"On ne peut pas récuperer l'etat d'un job lorsque celui est toujours en execution!");
+			jobs.lostWork[i] += jobs.completedDuration[i] - jobs.checkpointedDuration[i];
+			jobs.nbRestarts[i]++;
+			jobs.completedDuration[i] = jobs.checkpointedDuration[i];
+		}
+		startJob(i);
+	}
+
+	public Histogramme getCompletionTimes() {
+		return completionTimes;
+	}
+
+	public Histogramme getOverheads() {
+		return overheads;
+	}
+
+	public long getNbEvenements() {
+		return compteurs.getTotal();
+	}
+
+	/**
+	 * Les compteurs de la partition (ajustements compris), pour
+	 * {@link ShardedSimulation#getCompteurs()}
+	 */
+	public void addCompteurs(Compteurs c) {
+		c.add(compteurs);
+		c.compterAjustements(Arrays.asList(estimateurs));
+	}
+
+	public int getNbJobsTermines() {
+		return nbJobsTermines;
+	}
+
+	public long getInitialDuration(int i) {
+		return jobs.getInitialDuration(i);
+	}
+
+	public long getCompletedAt(int i) {
+		return jobs.getCompletedAt(i);
+	}
+}
@@ -0,0 +1,457 @@
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Simule un seul point (une approche, un MTTF) en répartissant les jobs entre
+ * plusieurs partitions ({@link Shard}) simulées en parallèle.
+ * <p>
+ * Les jobs ne sont couplés que par le processus de pannes (voir
+ * {@link MainClass#generateFailureEvent(long)}): tout le reste est propre à
+ * chaque job. Chaque partition a donc sa propre file d'évènements, et les
+ * partitions ne sont synchronisées qu'aux instants des pannes (et des
+ * restarts): toutes les partitions avancent en parallèle jusqu'à la prochaine
+ * panne, puis la panne est traitée (appel de onFailure() pour chaque job,
+ * choix du job mis en panne) avant de repartir.
+ * <p>
+ * Avec le générateur {@link Generateur#JAVA_UTIL}, les nombres aléatoires sont
+ * tirés dans le même ordre que dans {@link MainClass}. Le traitement ne dépend
+ * pas de l'ordre d'exécution des threads: le résultat est le même pour une
+ * graine (et un générateur) donnée, quel que soit le nombre de partitions.
+ * <p>
+ * Avec une seule partition, tout est simulé dans le thread appelant: c'est un
+ * moteur de simulation rapide, spécialisé pour ce modèle (voir
+ * {@link EventHeap}), qui donne les mêmes résultats que le simulateur d'ACS.
+ * <p>
+ * Les objets CheckpointInterval sont créés avec l'horloge de leur partition
+ * s'ils ont un constructeur (long, {@link Horloge}), comme les approches
+ * {@link OurInterval}.
+ */
+public class ShardedSimulation implements Simulation {
+	private int nbPannes = 0;
+
+	private final Shard[] shards;
+
+	/**
+	 * Indice (global) du premier job de chaque partition. Les jobs sont répartis
+	 * par blocs contigus, ce qui garde l'ordre des jobs de {@link MainClass}.
+	 */
+	private final int[] debuts;
+
+	private final int jobCount;
+
+	/**
+	 * Les nombres aléatoires de la simulation (voir {@link Scenario#getGenerateur()})
+	 */
+	private final Tirages tirages;
+
+	/**
+	 * Crée les estimateurs des jobs (voir {@link Scenario#creerEstimateur(long, Horloge)})
+	 */
+	private final Scenario scenario;
+
+	private long lastFailureTime = 0;
+
+	private final ModeVictimes modeVictimes;
+
+	/**
+	 * Les jobs non terminés (indices globaux), mis à jour aux instants de
+	 * synchronisation (et à la fin de la simulation)
+	 */
+	private final ActiveJobs actifs;
+
+	/**
+	 * Utilisé par {@link #retirerTermines()}
+	 */
+	private final int[] curseurs;
+
+	/**
+	 * La trace des pannes et des jobs, ou null
+	 */
+	private TraceWriter trace = null;
+
+	/**
+	 * Les évènements de pannes et de restarts (les autres évènements sont comptés
+	 * par les partitions)
+	 */
+	private final Compteurs compteurs = new Compteurs();
+
+	/**
+	 * Le temps atteint par la simulation (à la dernière synchronisation)
+	 */
+	private long tempsSimule = 0;
+
+	/**
+	 * Voir {@link MainClass#MainClass(Scenario, long, long)}. Le nombre de
+	 * partitions (et de threads) est donné par {@link Scenario#getNbShards()}.
+	 * <p>
+	 * Si l'estimateur est partagé, chaque partition a son propre objet
+	 * CheckpointInterval, partagé par tous ses jobs (les partitions s'exécutent en
+	 * parallèle, elles ne peuvent pas partager le même objet). Une panne coûte
+	 * alors un appel à onFailure() par partition.
+	 */
+	public ShardedSimulation(Scenario scenario, long real_mttf, long ap_mttf) {
+		this(scenario, ap_mttf, Tirages.creer(scenario.getGenerateur(), scenario, real_mttf));
+	}
+
+	/**
+	 * Une simulation qui utilise les tirages donnés (par exemple les tirages
+	 * partagés par plusieurs simulations, voir {@link TiragesPartages}).
+	 */
+	public ShardedSimulation(Scenario scenario, final long ap_mttf, Tirages tirages) {
+		final int job_count = scenario.getNbJobs();
+		final int nbShards = scenario.getNbShards();
+		this.scenario = scenario;
+		if (nbShards < 1 || nbShards > job_count)
+			throw new IllegalArgumentException("Le nombre de partitions doit être compris entre 1 et " + job_count);
+		if (scenario.getStockage() != ModeStockage.AUCUN)
+			throw new IllegalArgumentException(
+					"Le stockage partagé (" + scenario.getStockage() + ") n'est simulé qu'avec le simulateur d'ACS");
+		if (scenario.getNiveaux().getNombre() > 1)
+			throw new IllegalArgumentException("Les checkpoints multi-niveaux ne sont simulés qu'avec le simulateur d'ACS");
+		if (scenario.getIncremental() != null)
+			throw new IllegalArgumentException("Les checkpoints incrémentaux ne sont simulés qu'avec le simulateur d'ACS");
+		if (scenario.getLoiPannes() != LoiPannes.EXPONENTIELLE)
+			throw new IllegalArgumentException(
+					"La loi de pannes " + scenario.getLoiPannes() + " n'est simulée qu'avec le simulateur d'ACS");
+		if (scenario.getTopologie() != null)
+			throw new IllegalArgumentException("La topologie (pannes corrélées) n'est simulée qu'avec le simulateur d'ACS");
+		if (scenario.getCapaciteReserve() >= 0)
+			throw new IllegalArgumentException("La réserve de noeuds de secours n'est simulée qu'avec le simulateur d'ACS");
+		if (scenario.isOuvert())
+			throw new IllegalArgumentException("Le système ouvert n'est simulé qu'avec le simulateur d'ACS");
+		this.jobCount = job_count;
+		this.modeVictimes = scenario.getModeVictimes();
+
+		this.tirages = tirages;
+		final long[] durations = tirages.getDurations();
+
+		shards = new Shard[nbShards];
+		debuts = new int[nbShards];
+		for (int k = 0; k < nbShards; k++) {
+			final int debut = (int) ((long) k * job_count / nbShards);
+			final int fin = (int) ((long) (k + 1) * job_count / nbShards);
+			debuts[k] = debut;
+			final boolean partage = scenario.isEstimateurPartage();
+			shards[k] = new Shard(Arrays.copyOfRange(durations, debut, fin), tirages.getDeltaGenerators(debut, fin),
+					new Shard.Fabrique() {
+						private CheckpointInterval estimateurPartage = null;
+
+						@Override
+						public CheckpointInterval creer(Horloge horloge) {
+							if (estimateurPartage != null)
+								return estimateurPartage;
+							CheckpointInterval ci = ShardedSimulation.this.scenario.creerEstimateur(ap_mttf, horloge);
+							if (partage)
+								estimateurPartage = ci;
+							return ci;
+						}
+					});
+		}
+
+		curseurs = new int[nbShards];
+		actifs = new ActiveJobs(job_count);
+		for (int i = 0; i < job_count; i++)
+			if (durations[i] != 0)
+				actifs.add(i);
+	}
+
+	/**
+	 * Lance la simulation jusqu'au temps {@code horizon} (inclus).
+	 */
+	public void run(long horizon) {
+		final ExecutorService pool = shards.length > 1 ? Executors.newFixedThreadPool(shards.length) : null;
+		try {
+			for (Shard s : shards)
+				s.startJobs();
+
+			// voir MainClass.generateFailureEvent(long)
+			long now = 0;
+			long nextFailure = now + Math.max(0, tirages.nextFailureDelay());
+			compteurs.planifie();
+			while (nextFailure <= horizon) {
+				advanceTo(pool, nextFailure);
+				now = nextFailure;
+				tempsSimule = now;
+
+				// quand tous les jobs sont terminés, il n'y a plus de pannes et plus rien à
+				// simuler (voir MainClass.onQuiescence())
+				retirerTermines();
+				if (actifs.isEmpty()) {
+					compteurs.annule();
+					break;
+				}
+				compteurs.traite(TypeEvenement.BREAKDOWN);
+
+				// ajuster le ttf pour chaque job
+				final long ttf = (now - lastFailureTime) * jobCount;
+				lastFailureTime = now;
+				onFailure(pool, ttf);
+
+				// seléctionner un job aléatoirement et le mettre en panne (parmi tous les jobs,
+				// ou parmi les jobs non terminés)
+				final int victime;
+				if (modeVictimes == ModeVictimes.ACTIFS)
+					victime = actifs.get(tirages.nextVictim(actifs.size()));
+				else
+					victime = tirages.nextVictim(jobCount);
+				int k = Arrays.binarySearch(debuts, victime);
+				if (k < 0)
+					k = -k - 2;
+				final Shard shard = shards[k];
+				final int local = victime - debuts[k];
+
+				if (shard.isCompleted(local)) {
+					if (trace != null)
+						trace.panne(now, victime, 0, 0, true);
+					// il n'y a rien à faire (on planifie une autre panne)
+					nextFailure = now + Math.max(0, tirages.nextFailureDelay());
+					compteurs.planifie();
+					continue;
+				}
+
+				nbPannes++;
+				shard.stopJob(local);
+				final long restartDelay = tirages.nextRestartDelay();
+				if (trace != null) {
+					final JobStore jobs = shard.getJobs();
+					trace.panne(now, victime, jobs.completedDuration[local] - jobs.checkpointedDuration[local],
+							restartDelay, false);
+				}
+				final long restartAt = now + restartDelay;
+				compteurs.planifie();
+				if (restartAt > horizon)
+					break;
+				advanceTo(pool, restartAt);
+				now = restartAt;
+				tempsSimule = now;
+				compteurs.traite(TypeEvenement.RESTART);
+				shard.recoverAndStartJob(local);
+				nextFailure = now + Math.max(0, tirages.nextFailureDelay() - restartDelay);
+				compteurs.planifie();
+			}
+			if (!actifs.isEmpty()) {
+				advanceThrough(pool, horizon);
+				retirerTermines();
+				tempsSimule = horizon;
+			}
+		} finally {
+			if (pool != null)
+				pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Voir {@link MainClass#setTrace(TraceWriter)}
+	 */
+	public void setTrace(TraceWriter trace) {
+		this.trace = trace;
+	}
+
+	/**
+	 * Voir {@link MainClass#tracerJobs()}
+	 */
+	public void tracerJobs() {
+		if (trace == null)
+			return;
+		for (int k = 0; k < shards.length; k++) {
+			final JobStore jobs = shards[k].getJobs();
+			for (int i = 0; i < jobs.size(); i++)
+				trace.job(debuts[k] + i, jobs.initialDuration[i], jobs.completedAt[i], jobs.nbCheckpoints[i],
+						jobs.nbRestarts[i], jobs.lostWork[i]);
+		}
+	}
+
+	/**
+	 * Retire des jobs actifs les jobs terminés depuis la dernière synchronisation,
+	 * dans l'ordre où ils se sont terminés (à temps égal, dans l'ordre des
+	 * partitions). L'ordre des jobs actifs, et donc le choix des jobs mis en
+	 * panne, ne dépend ni de l'ordre d'exécution des threads ni du nombre de
+	 * partitions.
+	 */
+	private void retirerTermines() {
+		final int[] k = curseurs;
+		Arrays.fill(k, 0);
+		while (true) {
+			int min = -1;
+			long minTime = 0;
+			for (int s = 0; s < shards.length; s++) {
+				if (k[s] == shards[s].getNbTermines())
+					continue;
+				final long t = shards[s].getCompletedAt(shards[s].getTermine(k[s]));
+				if (min < 0 || t < minTime) {
+					min = s;
+					minTime = t;
+				}
+			}
+			if (min < 0)
+				break;
+			actifs.remove(debuts[min] + shards[min].getTermine(k[min]++));
+		}
+		for (Shard s : shards)
+			s.viderTermines();
+	}
+
+	private void advanceTo(ExecutorService pool, final long limit) {
+		if (pool == null) {
+			for (Shard s : shards)
+				s.advanceTo(limit);
+			return;
+		}
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(shards.length);
+		for (final Shard s : shards)
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					s.advanceTo(limit);
+					return null;
+				}
+			});
+		invokeAll(pool, tasks);
+	}
+
+	private void advanceThrough(ExecutorService pool, final long limit) {
+		if (pool == null) {
+			for (Shard s : shards)
+				s.advanceThrough(limit);
+			return;
+		}
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(shards.length);
+		for (final Shard s : shards)
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					s.advanceThrough(limit);
+					return null;
+				}
+			});
+		invokeAll(pool, tasks);
+	}
+
+	private void onFailure(ExecutorService pool, final long ttf) {
+		if (pool == null) {
+			for (Shard s : shards)
+				s.onFailure(ttf);
+			return;
+		}
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(shards.length);
+		for (final Shard s : shards)
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					s.onFailure(ttf);
+					return null;
+				}
+			});
+		invokeAll(pool, tasks);
+	}
+
+	/**
+	 * Exécute les tâches (une par partition) et attend qu'elles soient toutes
+	 * terminées.
+	 */
+	private static void invokeAll(ExecutorService pool, List<Callable<Void>> tasks) {
+		try {
+			for (Future<Void> f : pool.invokeAll(tasks))
+				f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Simulation interrompue", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Echec d'une partition: " + e.getCause().getMessage(), e.getCause());
+		}
+	}
+
+	@Override
+	public long getAverageCompletionTime() {
+		double avg = 0;
+		for (Shard s : shards)
+			avg = s.getJobs().addAverageCompletionTime(avg, jobCount);
+		return (long) avg;
+	}
+
+	@Override
+	public long getAverageJobLength() {
+		double avg = 0;
+		for (Shard s : shards)
+			avg = s.getJobs().addAverageJobLength(avg, jobCount);
+		return (long) avg;
+	}
+
+	@Override
+	public int getNbPannes() {
+		return nbPannes;
+	}
+
+	@Override
+	public int getJobsRestants() {
+		return actifs.size();
+	}
+
+	@Override
+	public ArretSimulation getArret() {
+		return actifs.isEmpty() ? ArretSimulation.QUIESCENCE : ArretSimulation.HORIZON;
+	}
+
+	/**
+	 * Les histogrammes des partitions, fusionnés.
+	 */
+	@Override
+	public Histogramme getCompletionTimes() {
+		final Histogramme h = new Histogramme();
+		for (Shard s : shards)
+			h.add(s.getCompletionTimes());
+		return h;
+	}
+
+	@Override
+	public Histogramme getOverheads() {
+		final Histogramme h = new Histogramme();
+		for (Shard s : shards)
+			h.add(s.getOverheads());
+		return h;
+	}
+
+	/**
+	 * @return Le nombre d'évènements traités (par toutes les partitions)
+	 */
+	public long getNbEvenements() {
+		long n = 0;
+		for (Shard s : shards)
+			n += s.getNbEvenements();
+		return n;
+	}
+
+	@Override
+	public Compteurs getCompteurs() {
+		final Compteurs c = new Compteurs();
+		c.add(compteurs);
+		for (Shard s : shards)
+			s.addCompteurs(c);
+		return c;
+	}
+
+	@Override
+	public long getTempsSimule() {
+		return tempsSimule;
+	}
+
+	@Override
+	public int getJobsTermines() {
+		int n = 0;
+		for (Shard s : shards)
+			n += s.getNbJobsTermines();
+		return n;
+	}
+
+	public int getNbShards() {
+		return shards.length;
+	}
+}
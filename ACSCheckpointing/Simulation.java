@@ -0,0 +1,54 @@
+
+
+/**
+ * Les mesures communes à toutes les façons de simuler un point du balayage
+ * (simulateur ACS, simulation partitionnée...).
+ */
+public interface Simulation {
+
+	long getAverageCompletionTime();
+
+	long getAverageJobLength();
+
+	int getNbPannes();
+
+	/**
+	 * @return Le nombre de jobs non terminés à la fin de la simulation
+	 */
+	int getJobsRestants();
+
+	/**
+	 * @return La raison de l'arrêt de la simulation (une fois terminée)
+	 */
+	ArretSimulation getArret();
+
+	/**
+	 * @return Les temps de complétion des jobs terminés
+	 */
+	Histogramme getCompletionTimes();
+
+	/**
+	 * @return Le temps ajouté (temps de complétion - durée initiale) de chaque job
+	 *         terminé
+	 */
+	Histogramme getOverheads();
+
+	/**
+	 * Peut être appelée pendant la simulation, par un autre thread (voir
+	 * {@link Metriques}), comme {@link #getTempsSimule()},
+	 * {@link #getJobsTermines()} et {@link #getNbPannes()}.
+	 *
+	 * @return Une copie des compteurs d'évènements de la simulation
+	 */
+	Compteurs getCompteurs();
+
+	/**
+	 * @return Le temps atteint par la simulation
+	 */
+	long getTempsSimule();
+
+	/**
+	 * @return Le nombre de jobs terminés
+	 */
+	int getJobsTermines();
+}
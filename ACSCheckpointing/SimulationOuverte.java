@@ -0,0 +1,490 @@
+
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+
+import com.samysadi.acs.core.Config;
+import com.samysadi.acs.core.Simulator;
+import com.samysadi.acs.core.event.DispensableEventImpl;
+import com.samysadi.acs.core.event.EventImpl;
+import com.samysadi.acs.utility.random.Exponential;
+
+/**
+ * Simulation d'un système ouvert (simulateur d'ACS): les jobs arrivent au fil
+ * du temps, selon un processus de Poisson ou une trace d'arrivées (voir
+ * {@link Scenario#isOuvert()}), jusqu'à {@link Scenario#getNbJobs()} arrivées.
+ * <p>
+ * Un job terminé est compté dans les statistiques (moyennes et histogrammes)
+ * puis oublié: la mémoire dépend du nombre de jobs en cours, pas du nombre
+ * total de jobs. Chaque job en cours a son propre processus de pannes (de MTTF
+ * le MTTF réel), arrêté pendant son restart. Le temps de complétion d'un job
+ * est son temps de séjour (de son arrivée à sa fin).
+ * <p>
+ * Les options du modèle fermé qui supposent un ensemble fixe de jobs (le mode
+ * des victimes, la topologie, le rejeu d'une trace de pannes) ne sont pas
+ * utilisées.
+ */
+public class SimulationOuverte implements Simulation {
+	/**
+	 * Un job en cours.
+	 */
+	private final class EnCours {
+		private final Job job;
+		private final long arrivee;
+
+		/**
+		 * La prochaine panne du job, ou null
+		 */
+		private DispensableEventImpl panne = null;
+
+		/**
+		 * Le moment de la dernière panne du job (ou de son arrivée)
+		 */
+		private long dernierePanne;
+
+		EnCours(Job job, long arrivee) {
+			this.job = job;
+			this.arrivee = arrivee;
+			this.dernierePanne = arrivee;
+		}
+	}
+
+	private final Scenario scenario;
+	private final long ap_mttf;
+	private final long delta;
+	private final int nbJobs;
+
+	private final Random random;
+	private final Exponential restartDelayGenerator;
+	private final Exponential longueurs;
+
+	/**
+	 * Les temps entre deux arrivées, ou null avec une trace d'arrivées
+	 */
+	private final Exponential arrivees;
+
+	private final LecteurArrivees lecteur;
+
+	/**
+	 * Les temps entre deux pannes d'un job
+	 */
+	private final SourcePannes pannes;
+
+	private final Random gravites;
+	private final Stockage stockage;
+	private final Niveaux niveaux;
+	private final Incremental incremental;
+	private final ReserveNoeuds reserve;
+
+	private final Compteurs compteurs = new Compteurs();
+
+	/**
+	 * L'objet CheckpointInterval partagé par tous les jobs, ou null
+	 */
+	private CheckpointInterval estimateurPartage = null;
+
+	private TraceWriter trace = null;
+
+	private int nbArrives = 0;
+	private int nbEnCours = 0;
+	private int nbTermines = 0;
+	private int nbPannes = 0;
+
+	/**
+	 * Il n'y aura plus d'arrivées
+	 */
+	private boolean arriveesTerminees = false;
+
+	private double sommeSejours = 0;
+	private double sommeLongueurs = 0;
+
+	/**
+	 * Les ajustements des estimateurs des jobs terminés (voir {@link OurInterval})
+	 */
+	private long ajustementsTermines = 0;
+
+	private long lastFailureTime = 0;
+
+	private final Histogramme completionTimes = new Histogramme();
+	private final Histogramme overheads = new Histogramme();
+
+	/**
+	 * @param real_mttf Le MTTF reel (d'un seul job) utilisé pour générer les
+	 *                  pannes
+	 * @param ap_mttf   Le MTTF à priori (d'un seul job) donné comme paramètre
+	 */
+	public SimulationOuverte(Scenario scenario, long real_mttf, long ap_mttf) {
+		if (!scenario.isOuvert())
+			throw new IllegalArgumentException("Le scénario ne décrit pas un système ouvert");
+		if (scenario.getTopologie() != null)
+			throw new IllegalArgumentException("La topologie n'est pas simulée dans un système ouvert");
+		if (scenario.getLoiPannes() == LoiPannes.TRACE)
+			throw new IllegalArgumentException("Le rejeu d'une trace de pannes n'est pas simulé dans un système ouvert");
+		this.scenario = scenario;
+		this.ap_mttf = ap_mttf;
+		this.delta = scenario.getDelta();
+		this.nbJobs = scenario.getNbJobs();
+		random = new Random(scenario.getRandomSeed());
+		restartDelayGenerator = new Exponential(scenario.getRestartDelayMean(), new Random(random.nextLong()));
+		pannes = SourcePannes.creer(scenario, real_mttf, random);
+		longueurs = new Exponential(scenario.getMeanJobLength(), new Random(random.nextLong()));
+		if (scenario.getTraceArrivees() != null) {
+			arrivees = null;
+			lecteur = new LecteurArrivees(new File(scenario.getTraceArrivees()));
+		} else {
+			arrivees = new Exponential(scenario.getInterArrivee(), new Random(random.nextLong()));
+			lecteur = null;
+		}
+		gravites = new Random(SplitMix64.seed(scenario.getRandomSeed(), -1));
+		stockage = Stockage.creer(scenario, compteurs);
+		niveaux = scenario.getNiveaux();
+		incremental = scenario.getIncremental();
+		reserve = ReserveNoeuds.creer(scenario, compteurs);
+		if (scenario.isEstimateurPartage())
+			estimateurPartage = creerEstimateur();
+
+		planifierArrivee();
+	}
+
+	/**
+	 * @param trace La trace où enregistrer les pannes et les jobs (chaque job est
+	 *              enregistré quand il se termine), ou null
+	 */
+	public void setTrace(TraceWriter trace) {
+		this.trace = trace;
+	}
+
+	private CheckpointInterval creerEstimateur() {
+		return scenario.creerEstimateur(ap_mttf, null);
+	}
+
+	/**
+	 * Planifie l'arrivée du prochain job (s'il en reste).
+	 */
+	private void planifierArrivee() {
+		final long delai;
+		final long longueur;
+		if (nbArrives == nbJobs) {
+			arriveesTerminees = true;
+			verifierQuiescence();
+			return;
+		}
+		if (lecteur != null) {
+			if (!lecteur.suivante()) {
+				arriveesTerminees = true;
+				lecteur.close();
+				verifierQuiescence();
+				return;
+			}
+			delai = Math.max(0, lecteur.getTemps() - Simulator.getSimulator().getTime());
+			longueur = lecteur.getDuree() >= 0 ? lecteur.getDuree() : longueurs.nextLong();
+		} else {
+			delai = arrivees.nextLong();
+			longueur = longueurs.nextLong();
+		}
+		compteurs.planifie();
+		Simulator.getSimulator().schedule(delai, new EventImpl() {
+			@Override
+			public void process() {
+				compteurs.traite(TypeEvenement.ARRIVEE, this);
+				arriver(longueur);
+				planifierArrivee();
+			}
+		});
+	}
+
+	private void arriver(long longueur) {
+		final Job job = new Job(nbArrives++, longueur,
+				estimateurPartage != null ? estimateurPartage : creerEstimateur(),
+				new Exponential(delta, new Random(random.nextLong())));
+		final EnCours e = new EnCours(job, Simulator.getSimulator().getTime());
+		job.setObservateur(new Job.Observateur() {
+			@Override
+			public void jobTermine(Job j) {
+				terminer(e);
+			}
+		});
+		job.setCompteurs(compteurs);
+		job.setStockage(stockage);
+		job.setNiveaux(niveaux);
+		job.setIncremental(incremental);
+		nbEnCours++;
+		if (job.isCompleted()) {
+			terminer(e);
+			return;
+		}
+		job.startJob();
+		planifierPanne(e);
+	}
+
+	/**
+	 * Compte un job terminé et l'oublie.
+	 */
+	private void terminer(EnCours e) {
+		if (e.panne != null) {
+			compteurs.annule(e.panne);
+			e.panne.cancel();
+			e.panne = null;
+		}
+		final Job job = e.job;
+		// un job de durée nulle est terminé dès son arrivée
+		final long sejour = Math.max(job.getCompletedAt(), e.arrivee) - e.arrivee;
+		nbEnCours--;
+		nbTermines++;
+		sommeSejours += sejour;
+		sommeLongueurs += job.getInitialDuration();
+		completionTimes.add(sejour);
+		overheads.add(sejour - job.getInitialDuration());
+		if (estimateurPartage == null && job.getCheckpointIntervalObject() instanceof OurInterval)
+			ajustementsTermines += ((OurInterval) job.getCheckpointIntervalObject()).getNbAjustements();
+		if (trace != null)
+			trace.job(job.getId(), job.getInitialDuration(), job.getCompletedAt(), job.getNbCheckpoints(),
+					job.getNbRestarts(), job.getLostWork());
+		verifierQuiescence();
+	}
+
+	/**
+	 * Quand tous les jobs sont arrivés et terminés, annule les réparations de la
+	 * réserve: il n'y a plus aucun évènement et la simulation s'arrête (comme
+	 * celle d'un système fermé, voir {@link MainClass}).
+	 */
+	private void verifierQuiescence() {
+		if (arriveesTerminees && nbEnCours == 0 && reserve != null)
+			reserve.annulerReparations();
+	}
+
+	private void planifierPanne(final EnCours e) {
+		e.panne = new DispensableEventImpl() {
+			@Override
+			public void process() {
+				compteurs.traite(TypeEvenement.BREAKDOWN, this);
+				e.panne = null;
+				panne(e);
+			}
+		};
+		compteurs.planifie();
+		Simulator.getSimulator().schedule(pannes.prochainIntervalle(), e.panne);
+	}
+
+	/**
+	 * Met un job en panne, puis le redémarre (après l'attente d'un noeud de secours
+	 * et le délai de restart).
+	 */
+	private void panne(final EnCours e) {
+		final Job job = e.job;
+		final long now = Simulator.getSimulator().getTime();
+		// un estimateur partagé reçoit le ttf du système ramené à un job
+		if (estimateurPartage != null)
+			estimateurPartage.onFailure((now - lastFailureTime) * nbEnCours);
+		else
+			job.getCheckpointIntervalObject().onFailure(now - e.dernierePanne);
+		lastFailureTime = now;
+		e.dernierePanne = now;
+
+		job.stopJob();
+		// le job s'est terminé au moment de la panne
+		if (job.isCompleted())
+			return;
+		nbPannes++;
+		final long restartDelay = restartDelayGenerator.nextLong();
+		final int gravite = niveaux.tirerGravite(gravites);
+		if (trace != null)
+			trace.panne(now, job.getId(), job.getCompletedDuration() - job.getCheckpointedDuration(gravite),
+					restartDelay, false);
+		if (Journal.DEBUG)
+			Journal.ecrire(Journal.Type.PANNE, now, job.getId(), restartDelay);
+		final EventImpl redemarrage = new EventImpl() {
+			@Override
+			public void process() {
+				compteurs.traite(TypeEvenement.RESTART, this);
+				job.recoverFromCheckpoint(gravite);
+				job.startJob();
+				planifierPanne(e);
+			}
+		};
+		if (reserve == null || reserve.demander(new ReserveNoeuds.Client() {
+			@Override
+			public void noeudAttribue() {
+				compteurs.planifie();
+				Simulator.getSimulator().schedule(restartDelay, redemarrage);
+			}
+		})) {
+			compteurs.planifie();
+			Simulator.getSimulator().schedule(restartDelay, redemarrage);
+		}
+		if (reserve != null)
+			reserve.reparer(1);
+	}
+
+	/**
+	 * @return La durée moyenne des jobs terminés
+	 */
+	@Override
+	public long getAverageJobLength() {
+		return nbTermines == 0 ? 0 : (long) (sommeLongueurs / nbTermines);
+	}
+
+	/**
+	 * @return Le temps de séjour moyen des jobs terminés
+	 */
+	@Override
+	public long getAverageCompletionTime() {
+		return nbTermines == 0 ? 0 : (long) (sommeSejours / nbTermines);
+	}
+
+	@Override
+	public int getNbPannes() {
+		return nbPannes;
+	}
+
+	/**
+	 * @return Le nombre de jobs en cours et de jobs qui ne sont pas encore arrivés
+	 */
+	@Override
+	public int getJobsRestants() {
+		return nbEnCours + (arriveesTerminees ? 0 : nbJobs - nbArrives);
+	}
+
+	@Override
+	public ArretSimulation getArret() {
+		return arriveesTerminees && nbEnCours == 0 ? ArretSimulation.QUIESCENCE : ArretSimulation.HORIZON;
+	}
+
+	@Override
+	public Histogramme getCompletionTimes() {
+		return completionTimes;
+	}
+
+	@Override
+	public Histogramme getOverheads() {
+		return overheads;
+	}
+
+	@Override
+	public Compteurs getCompteurs() {
+		final Compteurs c = new Compteurs();
+		c.add(compteurs);
+		if (estimateurPartage != null)
+			c.compterAjustements(Collections.singletonList(estimateurPartage));
+		c.ajouter(TypeEvenement.AJUSTER, ajustementsTermines);
+		return c;
+	}
+
+	@Override
+	public long getTempsSimule() {
+		return Simulator.getSimulator().getTime();
+	}
+
+	@Override
+	public int getJobsTermines() {
+		return nbTermines;
+	}
+
+	/**
+	 * @return Le nombre de jobs en cours
+	 */
+	public int getNbEnCours() {
+		return nbEnCours;
+	}
+
+	/**
+	 * Simule un point du balayage en système ouvert dans un nouveau simulateur,
+	 * puis libère ce simulateur (voir {@link MainClass#simulerPoint(Scenario, long)}).
+	 *
+	 * @param trace La trace où enregistrer les pannes et les jobs, ou null
+	 */
+	static PointResult simulerPoint(Scenario scenario, long mttf, TraceWriter trace) {
+		Simulator simulator = new Simulator(new Config());
+		SimulationOuverte m = new SimulationOuverte(scenario, mttf * Simulator.HOUR, scenario.getApMttf(mttf));
+		m.setTrace(trace);
+		final Metriques metriques = new Metriques(m, Metriques.point(scenario, mttf), scenario.getMetriquesFile(mttf));
+		try {
+			simulator.start(scenario.getHorizon());
+		} finally {
+			metriques.close();
+		}
+		Journal.vider();
+		if (trace != null)
+			trace.close();
+		final PointResult r = PointResult.depuis(mttf * Simulator.HOUR, m);
+		Simulator.getSimulator().getLogger()
+				.log("SYSTÈME OUVERT: " + m.getJobsTermines() + " jobs terminés, " + m.getNbEnCours()
+						+ " en cours, LE TEMPS AJOUTÉ (pourcentage) = " + Math.round(r.getPourcentage() * 100) / 100d
+						+ "%");
+		Simulator.getSimulator().free();
+		return r;
+	}
+
+	/**
+	 * Lit une trace d'arrivées csv ligne par ligne (elle n'est jamais chargée en
+	 * mémoire): une arrivée par ligne, {@code temps,duree} en secondes, la durée
+	 * étant optionnelle (tirée sinon). Les temps sont relatifs à la première
+	 * arrivée, et les lignes qui ne peuvent pas être lues sont ignorées.
+	 */
+	private static final class LecteurArrivees {
+		private final File fichier;
+		private final BufferedReader in;
+		private double premier = Double.NaN;
+		private long temps;
+		private long duree;
+
+		LecteurArrivees(File fichier) {
+			this.fichier = fichier;
+			try {
+				in = new BufferedReader(new FileReader(fichier), 1 << 16);
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot read arrival trace file: " + fichier, e);
+			}
+		}
+
+		/**
+		 * Lit l'arrivée suivante.
+		 *
+		 * @return false à la fin de la trace
+		 */
+		boolean suivante() {
+			try {
+				String s;
+				while ((s = in.readLine()) != null) {
+					final String[] champs = s.split(",");
+					try {
+						final double t = Double.parseDouble(champs[0].trim());
+						duree = champs.length > 1 ? (long) (Double.parseDouble(champs[1].trim()) * Simulator.SECOND) : -1;
+						if (Double.isNaN(premier))
+							premier = t;
+						temps = (long) ((t - premier) * Simulator.SECOND);
+						return true;
+					} catch (NumberFormatException e) {
+						// en-tête ou commentaire
+					}
+				}
+				return false;
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot read arrival trace file: " + fichier, e);
+			}
+		}
+
+		long getTemps() {
+			return temps;
+		}
+
+		/**
+		 * @return La durée du job, ou -1 si la trace n'en donne pas
+		 */
+		long getDuree() {
+			return duree;
+		}
+
+		void close() {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// rien à faire, la trace a été lue
+			}
+		}
+	}
+}
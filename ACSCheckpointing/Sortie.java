@@ -18,6 +18,14 @@ public class Sortie implements Closeable {
 	private BufferedWriter out;
 
 	public Sortie(String filename, String desc) {
+		this(filename, desc, "mttf (heures)" + SEP + "Temps ajoute (%)" + SEP + "nbPannes" + SEP + "jobsRestants" + SEP
+				+ colonnesQuantiles("Completion") + SEP + colonnesQuantiles("Temps ajoute"));
+	}
+
+	/**
+	 * @param entete La ligne des noms des colonnes
+	 */
+	protected Sortie(String filename, String desc, String entete) {
 		summaryFile = new File(filename);
 
 		out = null;
@@ -27,7 +35,7 @@ public class Sortie implements Closeable {
 			out.write(COM + " Resultats: " + new Date().toString() + "\n");
 			out.write(COM + " " + desc + "\n");
 			out.write("\n");
-			out.write("mttf (heures)" + SEP + "Temps ajoute (%)" + SEP + "nbPannes" + SEP + "jobsRestants" + "\n");
+			out.write(entete + "\n");
 
 		} catch (IOException e) {
 			System.err.println("Cannot create/write summary file!");
@@ -36,9 +44,50 @@ public class Sortie implements Closeable {
 		}
 	}
 
+	protected final void writeLine(String line) throws IOException {
+		out.write(line + "\n");
+	}
+
+	/**
+	 * Ecrit les lignes en attente dans le fichier (pour un fichier lu pendant la
+	 * simulation).
+	 */
+	protected final void flush() throws IOException {
+		out.flush();
+	}
+
+	private static String colonnesQuantiles(String mesure) {
+		return mesure + " p50 (heures)" + SEP + mesure + " p90 (heures)" + SEP + mesure + " p99 (heures)" + SEP
+				+ mesure + " max (heures)";
+	}
+
+	private static String heures(long t) {
+		return String.valueOf(Math.round((double) t * 100 / Simulator.HOUR) / 100d);
+	}
+
+	/**
+	 * @return Les quantiles en heures, ou des colonnes vides si {@code q} est
+	 *         null
+	 */
+	private static String valeursQuantiles(Quantiles q) {
+		if (q == null)
+			return SEP + SEP + SEP;
+		return heures(q.getP50()) + SEP + heures(q.getP90()) + SEP + heures(q.getP99()) + SEP + heures(q.getMax());
+	}
+
 	protected void _writeInfo(long mttf, double pourcentage, int nbPannes, int jobsRestants) throws IOException {
+		_writeInfo(mttf, pourcentage, nbPannes, jobsRestants, null, null);
+	}
+
+	/**
+	 * @param completionTimes Les quantiles des temps de complétion, ou null
+	 * @param overheads       Les quantiles du temps ajouté de chaque job, ou null
+	 */
+	protected void _writeInfo(long mttf, double pourcentage, int nbPannes, int jobsRestants,
+			Quantiles completionTimes, Quantiles overheads) throws IOException {
 		out.write(String.valueOf(mttf / Simulator.HOUR) + SEP + String.valueOf(Math.round(pourcentage * 100) / 100d)
-				+ SEP + String.valueOf(nbPannes) + SEP + String.valueOf(jobsRestants) + "\n");
+				+ SEP + String.valueOf(nbPannes) + SEP + String.valueOf(jobsRestants) + SEP
+				+ valeursQuantiles(completionTimes) + SEP + valeursQuantiles(overheads) + "\n");
 	}
 
 	public final void writeInfo(long mttf, double pourcentage, int nbPannes, int jobsRestants) {
@@ -50,6 +99,16 @@ public class Sortie implements Closeable {
 		}
 	}
 
+	public final void writeInfo(PointResult r) {
+		try {
+			_writeInfo(r.getMttf(), r.getPourcentage(), r.getNbPannes(), r.getJobsRestants(), r.getCompletionTimes(),
+					r.getOverheads());
+		} catch (IOException e) {
+			System.err.println("Cannot write to summary file!");
+			throw new IllegalStateException("Cannot create/write summary file!");
+		}
+	}
+
 	@Override
 	public void close() {
 		try {
@@ -0,0 +1,48 @@
+
+
+import java.io.IOException;
+
+/**
+ * Fichier csv des échantillons de {@link Metriques}: une ligne par période
+ * d'échantillonnage, écrite dès qu'elle est calculée (le fichier peut être lu
+ * pendant la simulation).
+ */
+public class SortieMetriques extends Sortie {
+	public SortieMetriques(String filename, String desc) {
+		super(filename, desc, entete());
+	}
+
+	private static String entete() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("temps reel (s)" + SEP + "temps simule (heures)" + SEP + "vitesse (heures/s)" + SEP
+				+ "evenements/s");
+		for (TypeEvenement t : TypeEvenement.values())
+			sb.append(SEP + t.name() + "/s");
+		sb.append(SEP + "file" + SEP + "annulations (%)" + SEP + "nbPannes" + SEP + "jobs termines");
+		return sb.toString();
+	}
+
+	private static String arrondi(double v) {
+		return String.valueOf(Math.round(v * 100) / 100d);
+	}
+
+	/**
+	 * @param parSeconde Les évènements par seconde, dans l'ordre de
+	 *                   {@link TypeEvenement#values()}
+	 */
+	public final void writeEchantillon(double tempsReel, double tempsSimule, double vitesse, double debit,
+			double[] parSeconde, long tailleFile, double tauxAnnulation, int nbPannes, int jobsTermines) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(arrondi(tempsReel) + SEP + arrondi(tempsSimule) + SEP + arrondi(vitesse) + SEP + arrondi(debit));
+		for (double d : parSeconde)
+			sb.append(SEP + arrondi(d));
+		sb.append(SEP + tailleFile + SEP + arrondi(tauxAnnulation * 100) + SEP + nbPannes + SEP + jobsTermines);
+		try {
+			writeLine(sb.toString());
+			flush();
+		} catch (IOException e) {
+			System.err.println("Cannot write to metrics file!");
+			throw new IllegalStateException("Cannot create/write metrics file!");
+		}
+	}
+}
@@ -0,0 +1,46 @@
+
+
+import java.io.IOException;
+
+import com.samysadi.acs.core.Simulator;
+
+/**
+ * Fichier csv des résultats répliqués (voir {@link ReplicationRunner}): pour
+ * chaque mesure, la moyenne, l'écart-type et l'intervalle de confiance à 95%
+ * de la moyenne.
+ */
+public class SortieReplications extends Sortie {
+	public SortieReplications(String filename, String desc) {
+		super(filename, desc,
+				"mttf (heures)" + SEP + "replications" + SEP + colonnes("Temps ajoute (%)") + SEP
+						+ colonnes("nbPannes") + SEP + colonnes("jobsRestants"));
+	}
+
+	private static String colonnes(String mesure) {
+		return mesure + " moyenne" + SEP + mesure + " ecart-type" + SEP + mesure + " IC95 inf" + SEP + mesure
+				+ " IC95 sup";
+	}
+
+	private static String valeurs(Statistique s) {
+		final double m = s.getMoyenne();
+		final double h = s.getDemiLargeurIC();
+		return arrondi(m) + SEP + arrondi(s.getEcartType()) + SEP + arrondi(m - h) + SEP + arrondi(m + h);
+	}
+
+	private static String arrondi(double v) {
+		if (Double.isInfinite(v))
+			return String.valueOf(v);
+		return String.valueOf(Math.round(v * 100) / 100d);
+	}
+
+	public final void writeInfo(ReplicationResult r) {
+		try {
+			writeLine(String.valueOf(r.getMttf() / Simulator.HOUR) + SEP + r.getNbReplications() + SEP
+					+ valeurs(r.getPourcentage()) + SEP + valeurs(r.getNbPannes()) + SEP
+					+ valeurs(r.getJobsRestants()));
+		} catch (IOException e) {
+			System.err.println("Cannot write to summary file!");
+			throw new IllegalStateException("Cannot create/write summary file!");
+		}
+	}
+}
@@ -0,0 +1,134 @@
+
+
+import java.io.File;
+import java.util.Random;
+
+import com.samysadi.acs.utility.random.Exponential;
+
+/**
+ * Donne les temps entre deux pannes successives (de l'ensemble des jobs) au
+ * simulateur d'ACS, et éventuellement le noeud en panne.
+ * <p>
+ * La moyenne des temps entre pannes est toujours {@code mttf / nbJobs} (le
+ * MTTF réel est celui d'un seul job): seule la forme de la loi change d'une
+ * source à l'autre (voir {@link LoiPannes}).
+ */
+public abstract class SourcePannes {
+	/**
+	 * @return Le temps entre la panne précédente et la prochaine panne
+	 */
+	public abstract long prochainIntervalle();
+
+	/**
+	 * @return Le noeud de la dernière panne donnée par
+	 *         {@link #prochainIntervalle()}, ou -1 si la victime doit être tirée
+	 *         au hasard
+	 */
+	public int getNoeud() {
+		return -1;
+	}
+
+	/**
+	 * @param moyenne La moyenne des temps entre pannes ({@code mttf / nbJobs})
+	 * @param random  Le générateur d'où tirer la graine de la source (une seule
+	 *                graine est tirée, quelle que soit la source)
+	 * @return La source de pannes décrite par le scénario
+	 */
+	public static SourcePannes creer(Scenario scenario, long moyenne, Random random) {
+		final long graine = random.nextLong();
+		switch (scenario.getLoiPannes()) {
+		case EXPONENTIELLE:
+			return new Exponentielle(moyenne, new Random(graine));
+		case WEIBULL:
+			return new Weibull(moyenne, scenario.getFormePannes(), new Random(graine));
+		case LOGNORMALE:
+			return new Lognormale(moyenne, scenario.getFormePannes(), new Random(graine));
+		case TRACE:
+			if (scenario.getTracePannes() == null)
+				throw new IllegalArgumentException("Il faut une trace de pannes pour " + LoiPannes.TRACE);
+			return new PannesTrace(new File(scenario.getTracePannes()), moyenne);
+		default:
+			throw new IllegalStateException();
+		}
+	}
+
+	/**
+	 * @return Une source de loi exponentielle (les pannes d'un hôte ou d'un rack,
+	 *         voir {@link Topologie})
+	 */
+	public static SourcePannes exponentielle(long moyenne, Random random) {
+		return new Exponentielle(moyenne, random);
+	}
+
+	private static final class Exponentielle extends SourcePannes {
+		private final Exponential generateur;
+
+		Exponentielle(long moyenne, Random random) {
+			generateur = new Exponential(moyenne, random);
+		}
+
+		@Override
+		public long prochainIntervalle() {
+			return generateur.nextLong();
+		}
+	}
+
+	private static final class Weibull extends SourcePannes {
+		private final double echelle;
+		private final double inverseForme;
+		private final Random random;
+
+		Weibull(long moyenne, double forme, Random random) {
+			if (!(forme > 0))
+				throw new IllegalArgumentException("La forme d'une loi de Weibull doit être positive (" + forme + ")");
+			// moyenne = echelle * Gamma(1 + 1 / forme)
+			this.echelle = moyenne / Math.exp(lnGamma(1 + 1 / forme));
+			this.inverseForme = 1 / forme;
+			this.random = random;
+		}
+
+		@Override
+		public long prochainIntervalle() {
+			return (long) (echelle * Math.pow(-Math.log1p(-random.nextDouble()), inverseForme));
+		}
+	}
+
+	private static final class Lognormale extends SourcePannes {
+		private final double mu;
+		private final double sigma;
+		private final Random random;
+
+		Lognormale(long moyenne, double sigma, Random random) {
+			if (!(sigma > 0))
+				throw new IllegalArgumentException("L'écart type d'une loi log-normale doit être positif (" + sigma + ")");
+			// moyenne = exp(mu + sigma^2 / 2)
+			this.mu = Math.log(moyenne) - sigma * sigma / 2;
+			this.sigma = sigma;
+			this.random = random;
+		}
+
+		@Override
+		public long prochainIntervalle() {
+			return (long) Math.exp(mu + sigma * random.nextGaussian());
+		}
+	}
+
+	private static final double[] LANCZOS = { 0.99999999999980993, 676.5203681218851, -1259.1392167224028,
+			771.32342877765313, -176.61502916214059, 12.507343278686905, -0.13857109526572012,
+			9.9843695780195716e-6, 1.5056327351493116e-7 };
+
+	/**
+	 * Le logarithme de la fonction Gamma (approximation de Lanczos, x > 0).
+	 */
+	static double lnGamma(double x) {
+		if (x < 0.5)
+			// formule des compléments
+			return Math.log(Math.PI / Math.sin(Math.PI * x)) - lnGamma(1 - x);
+		x -= 1;
+		double s = LANCZOS[0];
+		for (int k = 1; k < LANCZOS.length; k++)
+			s += LANCZOS[k] / (x + k);
+		final double t = x + LANCZOS.length - 1.5;
+		return 0.5 * Math.log(2 * Math.PI) + (x + 0.5) * Math.log(t) - t + Math.log(s);
+	}
+}
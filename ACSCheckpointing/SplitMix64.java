@@ -0,0 +1,62 @@
+
+
+/**
+ * Le générateur SplitMix64: l'état est un seul long, incrémenté d'une
+ * constante à chaque tirage, puis mélangé.
+ * <p>
+ * Comme l'état tient dans un long, les méthodes statiques permettent de
+ * garder l'état de plusieurs générateurs dans un tableau (par exemple un
+ * générateur par job, sans créer d'objet par job).
+ */
+public class SplitMix64 implements RandomSource {
+	public static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private long state;
+
+	public SplitMix64(long seed) {
+		this.state = seed;
+	}
+
+	/**
+	 * La fonction de mélange de SplitMix64
+	 */
+	public static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * La graine du i-ème sous-générateur dérivé de {@code seed}: chaque indice
+	 * donne un générateur différent, qu'on peut calculer sans calculer les
+	 * autres.
+	 */
+	public static long seed(long seed, long i) {
+		return mix64(seed + (i + 1) * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Tire un long avec le générateur dont l'état est {@code states[i]}.
+	 */
+	public static long nextLong(long[] states, int i) {
+		return mix64(states[i] += GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Tire un nombre uniforme dans [0, 1) avec le générateur dont l'état est
+	 * {@code states[i]}.
+	 */
+	public static double nextDouble(long[] states, int i) {
+		return (nextLong(states, i) >>> 11) * 0x1.0p-53;
+	}
+
+	@Override
+	public long nextLong() {
+		return mix64(state += GOLDEN_GAMMA);
+	}
+
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+}
@@ -0,0 +1,62 @@
+
+
+/**
+ * Moyenne et variance d'une suite de valeurs, calculées en une seule passe
+ * (algorithme de Welford), sans garder les valeurs.
+ */
+public class Statistique {
+	/**
+	 * Quantile 0.975 de la loi de Student pour 1 à 30 degrés de liberté (au-delà,
+	 * on utilise celui de la loi normale)
+	 */
+	private static final double[] STUDENT_975 = { 12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262,
+			2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064,
+			2.060, 2.056, 2.052, 2.048, 2.045, 2.042 };
+
+	private static final double NORMALE_975 = 1.960;
+
+	private int n = 0;
+	private double moyenne = 0;
+
+	/**
+	 * La somme des carrés des écarts à la moyenne
+	 */
+	private double m2 = 0;
+
+	public void add(double x) {
+		n++;
+		final double d = x - moyenne;
+		moyenne += d / n;
+		m2 += d * (x - moyenne);
+	}
+
+	public int getN() {
+		return n;
+	}
+
+	public double getMoyenne() {
+		return moyenne;
+	}
+
+	/**
+	 * @return La variance (de l'échantillon), 0 s'il y a moins de deux valeurs
+	 */
+	public double getVariance() {
+		return n < 2 ? 0 : m2 / (n - 1);
+	}
+
+	public double getEcartType() {
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * @return La demi-largeur de l'intervalle de confiance à 95% de la moyenne,
+	 *         ou l'infini s'il y a moins de deux valeurs
+	 */
+	public double getDemiLargeurIC() {
+		if (n < 2)
+			return Double.POSITIVE_INFINITY;
+		final double t = n - 1 <= STUDENT_975.length ? STUDENT_975[n - 2] : NORMALE_975;
+		return t * getEcartType() / Math.sqrt(n);
+	}
+}
@@ -0,0 +1,306 @@
+
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import com.samysadi.acs.core.Simulator;
+import com.samysadi.acs.core.event.EventImpl;
+
+/**
+ * Le stockage partagé où les jobs écrivent leurs checkpoints (simulateur d'ACS
+ * seulement).
+ * <p>
+ * Le stockage a un débit total fixe, et chaque checkpoint a la même taille
+ * (sauf les checkpoints incrémentaux, voir {@link Incremental}).
+ * Quand plusieurs jobs checkpointent en même temps, ils se partagent le débit
+ * (voir {@link ModeStockage}): le coût effectif d'un checkpoint dépend donc
+ * des autres jobs. Le coût d'un checkpoint est le temps d'écriture dans le
+ * stockage, puis le délai delta du job (voir {@link Job#startJob()}). Avec
+ * plusieurs niveaux de checkpoint ({@link Niveaux}), seuls les checkpoints du
+ * plus haut niveau sont écrits dans le stockage.
+ * <p>
+ * Un transfert annulé (le job est mis en panne pendant son checkpoint) libère
+ * immédiatement sa part du débit.
+ */
+public abstract class Stockage {
+	/**
+	 * Notifié quand un checkpoint est écrit.
+	 */
+	public interface Client {
+		void transfertTermine();
+	}
+
+	/**
+	 * L'écriture d'un checkpoint.
+	 */
+	public static final class Transfert {
+		private final Client client;
+
+		/**
+		 * La taille à écrire (en Mo)
+		 */
+		private final double taille;
+
+		/**
+		 * Voir {@link Partage}
+		 */
+		private double fin;
+
+		private boolean annule = false;
+
+		private Transfert(Client client, double taille) {
+			this.client = client;
+			this.taille = taille;
+		}
+	}
+
+	/**
+	 * La taille d'un checkpoint (en Mo)
+	 */
+	protected final double taille;
+
+	/**
+	 * Le débit total (en Mo par unité de temps du simulateur)
+	 */
+	protected final double debit;
+
+	protected final Compteurs compteurs;
+
+	protected Stockage(double debitStockage, double tailleCheckpoint, Compteurs compteurs) {
+		if (!(debitStockage > 0) || !(tailleCheckpoint > 0))
+			throw new IllegalArgumentException("Le débit du stockage et la taille d'un checkpoint doivent être positifs ("
+					+ debitStockage + " Mo/s, " + tailleCheckpoint + " Mo)");
+		this.taille = tailleCheckpoint;
+		this.debit = debitStockage / Simulator.SECOND;
+		this.compteurs = compteurs;
+	}
+
+	/**
+	 * @return Le stockage décrit par le scénario, ou null si le stockage n'est pas
+	 *         modélisé ({@link ModeStockage#AUCUN})
+	 */
+	public static Stockage creer(Scenario scenario, Compteurs compteurs) {
+		switch (scenario.getStockage()) {
+		case AUCUN:
+			return null;
+		case FIFO:
+			return new Fifo(scenario.getDebitStockage(), scenario.getTailleCheckpoint(), compteurs);
+		case PARTAGE:
+			return new Partage(scenario.getDebitStockage(), scenario.getTailleCheckpoint(), compteurs);
+		default:
+			throw new IllegalStateException();
+		}
+	}
+
+	/**
+	 * @return Le temps d'écriture d'un checkpoint quand aucun autre job ne
+	 *         checkpointe
+	 */
+	public long getDureeNominale() {
+		return duree(taille);
+	}
+
+	/**
+	 * @return Le temps (arrondi au-dessus) pour écrire {@code mo} Mo avec tout le
+	 *         débit
+	 */
+	protected final long duree(double mo) {
+		return mo <= 0 ? 0 : (long) Math.ceil(mo / debit);
+	}
+
+	/**
+	 * Commence l'écriture d'un checkpoint.
+	 *
+	 * @param client Notifié quand le checkpoint est écrit (s'il n'est pas annulé
+	 *               avant)
+	 */
+	public final Transfert soumettre(Client client) {
+		return soumettre(client, 1);
+	}
+
+	/**
+	 * Commence l'écriture d'une partie d'un checkpoint (un checkpoint incrémental,
+	 * voir {@link Incremental}).
+	 *
+	 * @param fraction La fraction de la taille d'un checkpoint à écrire
+	 */
+	public final Transfert soumettre(Client client, double fraction) {
+		final Transfert t = new Transfert(client, taille * fraction);
+		ajouter(t);
+		return t;
+	}
+
+	/**
+	 * Annule l'écriture d'un checkpoint (sans effet s'il est déjà écrit).
+	 */
+	public final void annuler(Transfert t) {
+		if (t.annule)
+			return;
+		t.annule = true;
+		retirer(t);
+	}
+
+	protected abstract void ajouter(Transfert t);
+
+	protected abstract void retirer(Transfert t);
+
+	protected final EventImpl planifier(long delai, EventImpl e) {
+		compteurs.planifie();
+		Simulator.getSimulator().schedule(delai, e);
+		return e;
+	}
+
+	protected final void annulerEvenement(EventImpl e) {
+		compteurs.annule(e);
+		e.cancel();
+	}
+
+	protected static void terminer(Transfert t) {
+		t.annule = true;
+		t.client.transfertTermine();
+	}
+
+	/**
+	 * Les checkpoints sont écrits l'un après l'autre.
+	 */
+	private static final class Fifo extends Stockage {
+		/**
+		 * Les transferts en attente (les transferts annulés sont ignorés quand ils
+		 * sortent de la file)
+		 */
+		private final ArrayDeque<Transfert> file = new ArrayDeque<Transfert>();
+
+		private Transfert enCours = null;
+
+		private EventImpl finEnCours = null;
+
+		Fifo(double debitStockage, double tailleCheckpoint, Compteurs compteurs) {
+			super(debitStockage, tailleCheckpoint, compteurs);
+		}
+
+		@Override
+		protected void ajouter(Transfert t) {
+			file.add(t);
+			if (enCours == null)
+				demarrer();
+		}
+
+		@Override
+		protected void retirer(Transfert t) {
+			if (t != enCours)
+				return;
+			annulerEvenement(finEnCours);
+			enCours = null;
+			finEnCours = null;
+			demarrer();
+		}
+
+		private void demarrer() {
+			Transfert t;
+			do {
+				t = file.poll();
+			} while (t != null && t.annule);
+			if (t == null)
+				return;
+			final Transfert transfert = t;
+			enCours = transfert;
+			finEnCours = planifier(duree(transfert.taille), new EventImpl() {
+				@Override
+				public void process() {
+					compteurs.traite(TypeEvenement.STOCKAGE, this);
+					enCours = null;
+					finEnCours = null;
+					demarrer();
+					terminer(transfert);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Les checkpoints en cours se partagent le débit à parts égales (processor
+	 * sharing).
+	 * <p>
+	 * Le temps virtuel est la quantité écrite (en Mo) par chacun des transferts en
+	 * cours depuis le début: il avance au rythme {@code debit / n} quand il y a n
+	 * transferts. Un transfert se termine quand le temps virtuel atteint sa fin
+	 * (le temps virtuel à son début + sa taille). Seule la prochaine fin est
+	 * planifiée, et elle est replanifiée quand n change.
+	 */
+	private static final class Partage extends Stockage {
+		private final PriorityQueue<Transfert> transferts = new PriorityQueue<Transfert>(11,
+				new Comparator<Transfert>() {
+					@Override
+					public int compare(Transfert t1, Transfert t2) {
+						return Double.compare(t1.fin, t2.fin);
+					}
+				});
+
+		/**
+		 * Le nombre de transferts en cours (non annulés)
+		 */
+		private int nbEnCours = 0;
+
+		private double virtuel = 0;
+
+		private long derniereMaj = 0;
+
+		private EventImpl prochaineFin = null;
+
+		Partage(double debitStockage, double tailleCheckpoint, Compteurs compteurs) {
+			super(debitStockage, tailleCheckpoint, compteurs);
+		}
+
+		private void avancer() {
+			final long now = Simulator.getSimulator().getTime();
+			if (nbEnCours > 0)
+				virtuel += debit * (now - derniereMaj) / nbEnCours;
+			derniereMaj = now;
+		}
+
+		@Override
+		protected void ajouter(Transfert t) {
+			avancer();
+			t.fin = virtuel + t.taille;
+			transferts.add(t);
+			nbEnCours++;
+			replanifier();
+		}
+
+		@Override
+		protected void retirer(Transfert t) {
+			avancer();
+			// le transfert reste dans le tas, il est ignoré quand il arrive en tête
+			nbEnCours--;
+			replanifier();
+		}
+
+		private void replanifier() {
+			if (prochaineFin != null) {
+				annulerEvenement(prochaineFin);
+				prochaineFin = null;
+			}
+			while (!transferts.isEmpty() && transferts.peek().annule)
+				transferts.poll();
+			if (transferts.isEmpty())
+				return;
+			// les transferts de même fin (commencés ensemble) se terminent au même moment
+			final Transfert suivant = transferts.peek();
+			prochaineFin = planifier(duree((suivant.fin - virtuel) * nbEnCours), new EventImpl() {
+				@Override
+				public void process() {
+					compteurs.traite(TypeEvenement.STOCKAGE, this);
+					prochaineFin = null;
+					avancer();
+					// le délai planifié est arrondi: le temps virtuel est recalé sur la fin
+					virtuel = Math.max(virtuel, suivant.fin);
+					transferts.poll();
+					nbEnCours--;
+					terminer(suivant);
+					replanifier();
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,300 @@
+
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Simule les points (approche, MTTF) d'un balayage en parallèle.
+ * <p>
+ * Le simulateur d'ACS est un singleton: on ne peut pas avoir deux simulations
+ * en même temps dans un même processus. Chaque point est donc simulé dans un
+ * processus fils (une nouvelle JVM lancée avec le même classpath), qui a son
+ * propre simulateur. Un pool de threads limite le nombre de processus fils
+ * lancés en même temps. Les processus fils reçoivent les propriétés système
+ * ({@code -D}) et la taille du tas ({@code -Xmx}, {@code -Xms}) de ce
+ * processus, et leur sortie (les logs du simulateur) est recopiée sur la sortie
+ * standard, chaque ligne précédée du point simulé. Les points simulés avec des partitions (voir
+ * {@link ShardedSimulation}) n'utilisent pas le simulateur d'ACS: ils sont
+ * simulés dans ce processus, par le pool de threads. Comme chacun de ces points
+ * utilise un thread par partition (et par approche, voir
+ * {@link MultiPolicySimulation}), le pool simule moins de points en même temps
+ * pour ne pas utiliser plus de {@code nbProcessus} threads (voir
+ * {@link #getNbPointsSimultanes(int)}).
+ * <p>
+ * Chaque point utilise la graine de son scénario, les résultats sont donc
+ * identiques à ceux d'un balayage séquentiel. Ils sont retournés dans l'ordre
+ * des MTTF donnés, quel que soit l'ordre dans lequel les points se terminent.
+ */
+public class SweepRunner {
+	/**
+	 * Préfixe de la ligne de résultat écrite par un processus fils sur sa sortie
+	 * standard (le reste de la sortie correspond aux logs du simulateur).
+	 */
+	private static final String RESULTAT = "RESULTAT" + Sortie.SEP;
+
+	private final int nbProcessus;
+
+	/**
+	 * @param nbProcessus Le nombre de points simulés en même temps. Si égal à 1,
+	 *                    les points sont simulés un après l'autre dans ce
+	 *                    processus (sans lancer de processus fils).
+	 */
+	public SweepRunner(int nbProcessus) {
+		if (nbProcessus < 1)
+			throw new IllegalArgumentException("Le nombre de processus doit être au moins 1");
+		this.nbProcessus = nbProcessus;
+	}
+
+	public int getNbProcessus() {
+		return nbProcessus;
+	}
+
+	/**
+	 * @param nbThreadsParPoint Le nombre de threads occupés par la simulation d'un
+	 *                          point
+	 * @return Le nombre de points simulés en même temps, pour qu'il y ait au plus
+	 *         {@code nbProcessus} threads occupés (au moins 1)
+	 */
+	int getNbPointsSimultanes(int nbThreadsParPoint) {
+		return Math.max(1, nbProcessus / Math.max(1, nbThreadsParPoint));
+	}
+
+	/**
+	 * Simule tous les points (scénario, MTTF).
+	 *
+	 * @param scenarios Les scénarios (un par approche)
+	 * @param mttfs     Les MTTF à tester (en heures)
+	 * @return Pour chaque scénario (dans l'ordre), les résultats dans l'ordre de
+	 *         {@code mttfs}
+	 */
+	public List<PointResult[]> run(List<Scenario> scenarios, long[] mttfs) {
+		final List<Scenario> s = new ArrayList<Scenario>(scenarios.size() * mttfs.length);
+		final long[] m = new long[scenarios.size() * mttfs.length];
+		for (int i = 0; i < scenarios.size(); i++)
+			for (int j = 0; j < mttfs.length; j++) {
+				m[s.size()] = mttfs[j];
+				s.add(scenarios.get(i));
+			}
+		final PointResult[] r = runPoints(s, m);
+
+		final List<PointResult[]> resultats = new ArrayList<PointResult[]>(scenarios.size());
+		int k = 0;
+		for (int i = 0; i < scenarios.size(); i++) {
+			resultats.add(new PointResult[mttfs.length]);
+			for (int j = 0; j < mttfs.length; j++)
+				resultats.get(i)[j] = r[k++];
+		}
+		return resultats;
+	}
+
+	/**
+	 * Simule les points (scenarios[k], mttfs[k]).
+	 *
+	 * @param mttfs Les MTTF (en heures), un par scénario
+	 * @return Les résultats, dans l'ordre des points
+	 */
+	public PointResult[] runPoints(List<Scenario> scenarios, long[] mttfs) {
+		if (scenarios.size() != mttfs.length)
+			throw new IllegalArgumentException("Il faut un MTTF par scénario");
+		final PointResult[] resultats = new PointResult[mttfs.length];
+
+		if (nbProcessus == 1) {
+			for (int k = 0; k < mttfs.length; k++)
+				resultats[k] = MainClass.simulerPoint(scenarios.get(k), mttfs[k]);
+			return resultats;
+		}
+
+		// un point simulé dans un processus fils occupe un seul processeur, un point
+		// avec des partitions en occupe un par partition
+		int nbThreadsParPoint = 1;
+		for (Scenario scenario : scenarios)
+			nbThreadsParPoint = Math.max(nbThreadsParPoint, scenario.getNbShards());
+		final ExecutorService pool = Executors.newFixedThreadPool(getNbPointsSimultanes(nbThreadsParPoint));
+		try {
+			final List<Future<PointResult>> futures = new ArrayList<Future<PointResult>>();
+			for (int k = 0; k < mttfs.length; k++) {
+				final Scenario scenario = scenarios.get(k);
+				final long mttf = mttfs[k];
+				futures.add(pool.submit(new Callable<PointResult>() {
+					@Override
+					public PointResult call() throws Exception {
+						if (scenario.getNbShards() > 0)
+							return MainClass.simulerPoint(scenario, mttf);
+						return simulerDansProcessusFils(scenario, mttf);
+					}
+				}));
+			}
+
+			for (int k = 0; k < mttfs.length; k++)
+				resultats[k] = attendre(futures.get(k));
+		} finally {
+			pool.shutdownNow();
+		}
+		return resultats;
+	}
+
+	/**
+	 * Simule toutes les approches pour chaque MTTF en une seule passe, avec les
+	 * mêmes tirages (voir {@link MainClass#simulerApproches(Scenario, List, long)}).
+	 * Les points n'utilisent pas le simulateur d'ACS: ils sont simulés dans ce
+	 * processus. Chaque point utilise un thread par approche et par partition:
+	 * moins de {@code nbProcessus} MTTF sont simulés en même temps (voir
+	 * {@link #getNbPointsSimultanes(int)}).
+	 *
+	 * @return Pour chaque approche (dans l'ordre), les résultats dans l'ordre de
+	 *         {@code mttfs}
+	 */
+	public List<PointResult[]> run(final Scenario scenario, final List<Class<? extends CheckpointInterval>> approches,
+			long[] mttfs) {
+		final PointResult[][] parMttf = new PointResult[mttfs.length][];
+		if (nbProcessus == 1) {
+			for (int j = 0; j < mttfs.length; j++)
+				parMttf[j] = MainClass.simulerApproches(scenario, approches, mttfs[j]);
+		} else {
+			final ExecutorService pool = Executors.newFixedThreadPool(
+					getNbPointsSimultanes(approches.size() * Math.max(1, scenario.getNbShards())));
+			try {
+				final List<Future<PointResult[]>> futures = new ArrayList<Future<PointResult[]>>();
+				for (final long mttf : mttfs)
+					futures.add(pool.submit(new Callable<PointResult[]>() {
+						@Override
+						public PointResult[] call() {
+							return MainClass.simulerApproches(scenario, approches, mttf);
+						}
+					}));
+				for (int j = 0; j < mttfs.length; j++)
+					parMttf[j] = attendre(futures.get(j));
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+
+		final List<PointResult[]> resultats = new ArrayList<PointResult[]>(approches.size());
+		for (int i = 0; i < approches.size(); i++) {
+			final PointResult[] r = new PointResult[mttfs.length];
+			for (int j = 0; j < mttfs.length; j++)
+				r[j] = parMttf[j][i];
+			resultats.add(r);
+		}
+		return resultats;
+	}
+
+	public PointResult[] run(Scenario scenario, long[] mttfs) {
+		List<Scenario> scenarios = new ArrayList<Scenario>(1);
+		scenarios.add(scenario);
+		return run(scenarios, mttfs).get(0);
+	}
+
+	private static <T> T attendre(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Balayage interrompu", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Echec de la simulation d'un point: " + e.getCause().getMessage(),
+					e.getCause());
+		}
+	}
+
+	/**
+	 * Lance une nouvelle JVM qui exécute {@link #main(String[])} pour le point
+	 * donné, et récupère son résultat.
+	 */
+	private static PointResult simulerDansProcessusFils(Scenario scenario, long mttf)
+			throws IOException, InterruptedException {
+		final List<String> commande = new ArrayList<String>();
+		commande.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		commande.add("-cp");
+		commande.add(System.getProperty("java.class.path"));
+		commande.addAll(optionsJvm(scenario, mttf));
+		commande.add(SweepRunner.class.getName());
+		commande.add(String.valueOf(mttf));
+		commande.addAll(scenario.toArgs());
+
+		final ProcessBuilder pb = new ProcessBuilder(commande);
+		pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+		final Process p = pb.start();
+
+		PointResult r = null;
+		final BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream(), "UTF-8"));
+		try {
+			String line;
+			// il faut tout lire, sinon le processus fils peut se bloquer en écrivant ses
+			// logs
+			final String point = "[" + Metriques.point(scenario, mttf) + "] ";
+			while ((line = in.readLine()) != null)
+				if (line.startsWith(RESULTAT))
+					r = PointResult.parse(line.substring(RESULTAT.length()));
+				else
+					System.out.println(point + line);
+		} finally {
+			in.close();
+		}
+
+		final int code = p.waitFor();
+		if (code != 0 || r == null)
+			throw new IllegalStateException("Le processus fils (" + scenario.getApproche().getSimpleName() + ", mttf="
+					+ mttf + ") a échoué, code de sortie = " + code);
+		return r;
+	}
+
+	/**
+	 * @return Les options de ce processus à donner au processus fils d'un point:
+	 *         les propriétés système et la taille du tas (pas les options de JMX
+	 *         à distance, un seul processus peut écouter sur un port). Le fichier
+	 *         du journal (voir {@link Journal}) devient un fichier par point
+	 */
+	private static List<String> optionsJvm(Scenario scenario, long mttf) {
+		final String journal = "-D" + Journal.PROPRIETE_FICHIER + "=";
+		final List<String> options = new ArrayList<String>();
+		for (String o : ManagementFactory.getRuntimeMXBean().getInputArguments())
+			if (o.startsWith(journal))
+				options.add(journal + Journal.getFichier(o.substring(journal.length()), scenario, mttf).getPath());
+			else if ((o.startsWith("-D") && !o.startsWith("-Dcom.sun.management.")) || o.startsWith("-Xmx")
+					|| o.startsWith("-Xms"))
+				options.add(o);
+		return options;
+	}
+
+	/**
+	 * Point d'entrée des processus fils: simule un seul point et écrit son
+	 * résultat sur la sortie standard.
+	 * <p>
+	 * Arguments: le MTTF (en heures) suivi du scénario (voir
+	 * {@link Scenario#toArgs()}).
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: SweepRunner <mttf> <scenario>");
+			System.exit(2);
+		}
+		// le processus parent lit la sortie en UTF-8
+		try {
+			System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out), true, "UTF-8"));
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+		final long mttf = Long.parseLong(args[0]);
+		final Scenario scenario = Scenario.fromArgs(args, 1);
+		// les métriques du point ne sont visibles par JMX que dans ce processus
+		System.out.println("Métriques JMX: processus " + ManagementFactory.getRuntimeMXBean().getName());
+		final PointResult r = MainClass.simulerPoint(scenario, mttf);
+		System.out.println(RESULTAT + r.format());
+		System.out.flush();
+	}
+}
@@ -0,0 +1,213 @@
+
+
+import java.util.Random;
+
+import com.samysadi.acs.utility.random.Exponential;
+
+/**
+ * Tous les nombres aléatoires dont a besoin une {@link ShardedSimulation}: les
+ * durées des jobs, les délais de checkpoint de chaque job, les délais entre
+ * les pannes, les jobs mis en panne et les délais de restart.
+ * <p>
+ * Chaque type de tirage a son propre générateur, dérivé de la graine du
+ * scénario: le résultat d'une simulation ne dépend que de la graine.
+ * {@link #getDurations()} et {@link #getDeltaGenerators(int, int)} peuvent être
+ * appelées plusieurs fois (et par plusieurs threads), elles donnent toujours les
+ * mêmes tirages (voir {@link TiragesPartages}).
+ */
+public abstract class Tirages {
+	private final Generateur generateur;
+
+	/**
+	 * Réutilisé pour choisir le job mis en panne (équivalent à un new
+	 * Random(tirage) à chaque panne).
+	 */
+	private final Random choix = new Random();
+
+	protected Tirages(Generateur generateur) {
+		this.generateur = generateur;
+	}
+
+	public Generateur getGenerateur() {
+		return generateur;
+	}
+
+	/**
+	 * @return Le délai avant la prochaine panne
+	 */
+	public abstract long nextFailureDelay();
+
+	/**
+	 * @return Le délai avant le restart d'un job mis en panne
+	 */
+	public abstract long nextRestartDelay();
+
+	/**
+	 * @return L'indice du job mis en panne, dans [0, bound)
+	 */
+	public final int nextVictim(int bound) {
+		final long tirage = nextVictimDraw();
+		if (generateur == Generateur.JAVA_UTIL) {
+			choix.setSeed(tirage);
+			return choix.nextInt(bound);
+		}
+		// un seul tirage par panne, quelle que soit la borne (le biais est inférieur à
+		// bound / 2^53)
+		return (int) ((tirage >>> 11) * 0x1.0p-53 * bound);
+	}
+
+	/**
+	 * @return Le tirage (qui ne dépend pas de la borne) utilisé par
+	 *         {@link #nextVictim(int)}
+	 */
+	protected abstract long nextVictimDraw();
+
+	/**
+	 * @return La durée initiale de chaque job
+	 */
+	public abstract long[] getDurations();
+
+	/**
+	 * @return Les générateurs des délais de checkpoint des jobs d'indices
+	 *         {@code debut} (inclus) à {@code fin} (exclu)
+	 */
+	public abstract DeltaGenerators getDeltaGenerators(int debut, int fin);
+
+	/**
+	 * @param real_mttf Le MTTF reel (d'un seul job) utilisé pour générer les
+	 *                  pannes
+	 */
+	public static Tirages creer(Generateur generateur, Scenario scenario, long real_mttf) {
+		switch (generateur) {
+		case JAVA_UTIL:
+			return new JavaUtil(scenario, real_mttf);
+		case XOSHIRO:
+			return new Xoshiro(scenario, real_mttf);
+		default:
+			throw new IllegalArgumentException("Générateur inconnu: " + generateur);
+		}
+	}
+
+	/**
+	 * Les mêmes tirages, dans le même ordre, que {@link MainClass}.
+	 */
+	private static final class JavaUtil extends Tirages {
+		private final Random random;
+		private final Exponential failuresGenerator;
+		private final Exponential restartDelayGenerator;
+		private final long[] durations;
+
+		/**
+		 * La graine du générateur des délais de checkpoint de chaque job
+		 */
+		private final long[] deltaSeeds;
+
+		private final long delta;
+
+		JavaUtil(Scenario scenario, long real_mttf) {
+			super(Generateur.JAVA_UTIL);
+			final int job_count = scenario.getNbJobs();
+			random = new Random(scenario.getRandomSeed());
+			restartDelayGenerator = new Exponential(scenario.getRestartDelayMean(), new Random(random.nextLong()));
+			failuresGenerator = new Exponential(real_mttf / job_count, new Random(random.nextLong()));
+
+			final Exponential exponential = new Exponential(scenario.getMeanJobLength(),
+					new Random(random.nextLong()));
+			delta = scenario.getDelta();
+			durations = new long[job_count];
+			deltaSeeds = new long[job_count];
+			for (int i = 0; i < job_count; i++) {
+				durations[i] = exponential.nextLong();
+				deltaSeeds[i] = random.nextLong();
+			}
+		}
+
+		@Override
+		public long nextFailureDelay() {
+			return failuresGenerator.nextLong();
+		}
+
+		@Override
+		public long nextRestartDelay() {
+			return restartDelayGenerator.nextLong();
+		}
+
+		@Override
+		protected long nextVictimDraw() {
+			return random.nextLong();
+		}
+
+		@Override
+		public long[] getDurations() {
+			return durations;
+		}
+
+		@Override
+		public DeltaGenerators getDeltaGenerators(int debut, int fin) {
+			final Exponential[] g = new Exponential[fin - debut];
+			for (int i = debut; i < fin; i++)
+				g[i - debut] = new Exponential(delta, new Random(deltaSeeds[i]));
+			return DeltaGenerators.acs(g);
+		}
+	}
+
+	/**
+	 * xoshiro256** pour les flux globaux (tirés par blocs), et un SplitMix64 par
+	 * job dont la graine est dérivée de la graine du scénario et de l'indice du
+	 * job.
+	 */
+	private static final class Xoshiro extends Tirages {
+		private final ExponentialBuffer failuresGenerator;
+		private final ExponentialBuffer restartDelayGenerator;
+		private final RandomSource victimes;
+		private final long[] durations;
+		private final long jobsSeed;
+		private final double deltaMean;
+
+		Xoshiro(Scenario scenario, long real_mttf) {
+			super(Generateur.XOSHIRO);
+			final int job_count = scenario.getNbJobs();
+			final SplitMix64 graines = new SplitMix64(scenario.getRandomSeed());
+			restartDelayGenerator = new ExponentialBuffer(scenario.getRestartDelayMean(),
+					new Xoshiro256(graines.nextLong()));
+			failuresGenerator = new ExponentialBuffer(real_mttf / job_count, new Xoshiro256(graines.nextLong()));
+			final ExponentialBuffer lengths = new ExponentialBuffer(scenario.getMeanJobLength(),
+					new Xoshiro256(graines.nextLong()));
+			victimes = new Xoshiro256(graines.nextLong());
+			jobsSeed = graines.nextLong();
+			deltaMean = scenario.getDelta();
+
+			durations = new long[job_count];
+			for (int i = 0; i < job_count; i++)
+				durations[i] = lengths.nextLong();
+		}
+
+		@Override
+		public long nextFailureDelay() {
+			return failuresGenerator.nextLong();
+		}
+
+		@Override
+		public long nextRestartDelay() {
+			return restartDelayGenerator.nextLong();
+		}
+
+		@Override
+		protected long nextVictimDraw() {
+			return victimes.nextLong();
+		}
+
+		@Override
+		public long[] getDurations() {
+			return durations;
+		}
+
+		@Override
+		public DeltaGenerators getDeltaGenerators(int debut, int fin) {
+			final long[] states = new long[fin - debut];
+			for (int i = debut; i < fin; i++)
+				states[i - debut] = SplitMix64.seed(jobsSeed, i);
+			return DeltaGenerators.splitMix(states, deltaMean);
+		}
+	}
+}
@@ -0,0 +1,181 @@
+
+
+/**
+ * Les tirages d'une simulation, faits une seule fois et relus par plusieurs
+ * simulations (une par approche, voir {@link MultiPolicySimulation}): toutes
+ * les approches voient les mêmes durées de jobs, les mêmes délais de
+ * checkpoint, les mêmes délais entre les pannes, les mêmes jobs mis en panne et
+ * les mêmes délais de restart.
+ * <p>
+ * Les flux des pannes, des victimes et des restarts sont enregistrés au fur et
+ * à mesure qu'ils sont demandés par la simulation la plus avancée. Chaque
+ * simulation lit le k-ième tirage d'un flux quand elle en a besoin pour la
+ * k-ième fois: une simulation donne donc exactement le même résultat que si
+ * elle avait été lancée seule avec la même graine.
+ * <p>
+ * Un flux est une liste de morceaux de {@link #TAILLE_MORCEAU} tirages. Chaque
+ * lecteur garde le morceau qu'il lit: les morceaux que tous les lecteurs ont
+ * dépassés ne sont plus référencés (et sont libérés). Seul le lecteur qui fait
+ * un nouveau tirage prend le verrou; les tirages déjà faits sont lus sans
+ * verrou (ils sont publiés par le compteur volatile du flux).
+ */
+public class TiragesPartages {
+	static final int TAILLE_MORCEAU = 1024;
+
+	private final Tirages source;
+
+	private final Flux pannes = new Flux() {
+		@Override
+		protected long tirer() {
+			return source.nextFailureDelay();
+		}
+	};
+
+	private final Flux restarts = new Flux() {
+		@Override
+		protected long tirer() {
+			return source.nextRestartDelay();
+		}
+	};
+
+	private final Flux victimes = new Flux() {
+		@Override
+		protected long tirer() {
+			return source.nextVictimDraw();
+		}
+	};
+
+	public TiragesPartages(Tirages source) {
+		this.source = source;
+	}
+
+	/**
+	 * @return Un nouveau lecteur des tirages (un par simulation, chaque lecteur
+	 *         ne doit être utilisé que par un seul thread). Tous les lecteurs
+	 *         doivent être créés avant le premier tirage.
+	 */
+	public Tirages lecteur() {
+		synchronized (this) {
+			return new Lecteur();
+		}
+	}
+
+	private static final class Morceau {
+		final long[] valeurs = new long[TAILLE_MORCEAU];
+		volatile Morceau suivant = null;
+	}
+
+	/**
+	 * Un flux de tirages enregistrés. Les flux tirent dans la même source: les
+	 * nouveaux tirages sont tous protégés par le verrou de l'objet
+	 * TiragesPartages.
+	 */
+	private abstract class Flux {
+		/**
+		 * Le premier morceau, où commencent les lecteurs, tant qu'aucun tirage n'a
+		 * été fait (null ensuite)
+		 */
+		private Morceau premier = new Morceau();
+
+		/**
+		 * Le morceau où sont ajoutés les nouveaux tirages
+		 */
+		private Morceau dernier = premier;
+
+		/**
+		 * Le nombre de tirages faits: les tirages d'indice inférieur peuvent être lus
+		 * sans verrou
+		 */
+		private volatile int publies = 0;
+
+		protected abstract long tirer();
+
+		Morceau getPremier() {
+			if (premier == null)
+				throw new IllegalStateException("Les lecteurs doivent être créés avant le premier tirage");
+			return premier;
+		}
+
+		/**
+		 * Fait les tirages manquants jusqu'au k-ième (inclus).
+		 */
+		void etendre(int k) {
+			synchronized (TiragesPartages.this) {
+				premier = null;
+				int n = publies;
+				while (n <= k) {
+					final int i = n % TAILLE_MORCEAU;
+					if (i == 0 && n > 0) {
+						final Morceau m = new Morceau();
+						dernier.suivant = m;
+						dernier = m;
+					}
+					dernier.valeurs[i] = tirer();
+					publies = ++n;
+				}
+			}
+		}
+	}
+
+	/**
+	 * La position d'un lecteur dans un flux.
+	 */
+	private static final class Curseur {
+		private final Flux flux;
+		private Morceau morceau;
+		private int k = 0;
+
+		Curseur(Flux flux) {
+			this.flux = flux;
+			this.morceau = flux.getPremier();
+		}
+
+		/**
+		 * @return Le tirage suivant du flux
+		 */
+		long suivant() {
+			if (k >= flux.publies)
+				flux.etendre(k);
+			final int i = k % TAILLE_MORCEAU;
+			if (i == 0 && k > 0)
+				morceau = morceau.suivant;
+			k++;
+			return morceau.valeurs[i];
+		}
+	}
+
+	private final class Lecteur extends Tirages {
+		private final Curseur curseurPannes = new Curseur(pannes);
+		private final Curseur curseurRestarts = new Curseur(restarts);
+		private final Curseur curseurVictimes = new Curseur(victimes);
+
+		Lecteur() {
+			super(source.getGenerateur());
+		}
+
+		@Override
+		public long nextFailureDelay() {
+			return curseurPannes.suivant();
+		}
+
+		@Override
+		public long nextRestartDelay() {
+			return curseurRestarts.suivant();
+		}
+
+		@Override
+		protected long nextVictimDraw() {
+			return curseurVictimes.suivant();
+		}
+
+		@Override
+		public long[] getDurations() {
+			return source.getDurations();
+		}
+
+		@Override
+		public DeltaGenerators getDeltaGenerators(int debut, int fin) {
+			return source.getDeltaGenerators(debut, fin);
+		}
+	}
+}
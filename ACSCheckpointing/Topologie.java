@@ -0,0 +1,82 @@
+
+
+import com.samysadi.acs.core.Simulator;
+
+/**
+ * Le placement des jobs sur des hôtes et des racks (simulateur d'ACS
+ * seulement): le job i est sur l'hôte {@code i / jobsParHote}, et l'hôte h dans
+ * le rack {@code h / hotesParRack}.
+ * <p>
+ * Chaque niveau a son propre processus de pannes, indépendant des autres: les
+ * pannes d'un job (le MTTF réel du point, voir {@link SourcePannes}), les pannes
+ * d'un hôte (MTTF {@link #getMttfHote()} par hôte) et les pannes d'un rack
+ * (MTTF {@link #getMttfRack()} par rack). Une panne d'hôte ou de rack arrête
+ * tous les jobs qui s'y trouvent, et ils redémarrent ensemble. Les pannes
+ * peuvent se chevaucher: une panne peut survenir pendant qu'un autre job
+ * attend son redémarrage (un job déjà en panne n'est pas touché). Seuls les
+ * jobs arrêtés notifient leur estimateur, avec le temps écoulé depuis leur
+ * arrêt précédent.
+ */
+public final class Topologie {
+	private final int jobsParHote;
+	private final int hotesParRack;
+
+	/**
+	 * Le MTTF d'un hôte et celui d'un rack, 0 pour ne pas avoir de pannes de ce
+	 * niveau
+	 */
+	private final long mttfHote;
+	private final long mttfRack;
+
+	public Topologie(int jobsParHote, int hotesParRack, long mttfHote, long mttfRack) {
+		if (jobsParHote < 1 || hotesParRack < 1 || mttfHote < 0 || mttfRack < 0)
+			throw new IllegalArgumentException("Il faut jobsParHote >= 1, hotesParRack >= 1 et des MTTF positifs ou nuls ("
+					+ jobsParHote + ", " + hotesParRack + ", " + mttfHote + ", " + mttfRack + ")");
+		this.jobsParHote = jobsParHote;
+		this.hotesParRack = hotesParRack;
+		this.mttfHote = mttfHote;
+		this.mttfRack = mttfRack;
+	}
+
+	public int getJobsParHote() {
+		return jobsParHote;
+	}
+
+	public int getJobsParRack() {
+		return jobsParHote * hotesParRack;
+	}
+
+	public long getMttfHote() {
+		return mttfHote;
+	}
+
+	public long getMttfRack() {
+		return mttfRack;
+	}
+
+	/**
+	 * @return Le nombre de domaines (hôtes ou racks) de {@code taille} jobs pour
+	 *         {@code nbJobs} jobs (le dernier peut être incomplet)
+	 */
+	public static int getNbDomaines(int nbJobs, int taille) {
+		return (nbJobs + taille - 1) / taille;
+	}
+
+	/**
+	 * @return {@code jobsParHote:hotesParRack:mttfHote:mttfRack} (MTTF en heures),
+	 *         voir {@link #parse(String)}
+	 */
+	public String format() {
+		return jobsParHote + ":" + hotesParRack + ":" + ((double) mttfHote / Simulator.HOUR) + ":"
+				+ ((double) mttfRack / Simulator.HOUR);
+	}
+
+	public static Topologie parse(String s) {
+		final String[] p = s.split(":");
+		if (p.length != 4)
+			throw new IllegalArgumentException(
+					"Topologie invalide (jobsParHote:hotesParRack:mttfHote:mttfRack attendu): " + s);
+		return new Topologie(Integer.parseInt(p[0]), Integer.parseInt(p[1]),
+				(long) (Double.parseDouble(p[2]) * Simulator.HOUR), (long) (Double.parseDouble(p[3]) * Simulator.HOUR));
+	}
+}
@@ -0,0 +1,121 @@
+
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Convertit une trace écrite par {@link TraceWriter} en deux fichiers csv: un
+ * pour les jobs ({@code <trace>.jobs.csv}) et un pour les pannes
+ * ({@code <trace>.pannes.csv}). Les temps sont écrits en unités du simulateur.
+ * <p>
+ * Usage: {@code TraceReader <trace>...}
+ */
+public class TraceReader implements Closeable {
+	private final DataInputStream in;
+
+	public TraceReader(File trace) throws IOException {
+		in = new DataInputStream(new BufferedInputStream(new FileInputStream(trace), 1 << 16));
+		if (in.readInt() != TraceWriter.MAGIC) {
+			in.close();
+			throw new IOException("Ce fichier n'est pas une trace: " + trace);
+		}
+		final int version = in.readInt();
+		if (version != TraceWriter.VERSION) {
+			in.close();
+			throw new IOException("Version de trace non supportée: " + version);
+		}
+	}
+
+	/**
+	 * Lit tous les blocs et écrit leurs enregistrements (une ligne par
+	 * enregistrement).
+	 */
+	public void convertir(BufferedWriter jobs, BufferedWriter pannes) throws IOException {
+		jobs.write("id" + Sortie.SEP + "initialDuration" + Sortie.SEP + "completedAt" + Sortie.SEP + "nbCheckpoints"
+				+ Sortie.SEP + "nbRestarts" + Sortie.SEP + "lostWork\n");
+		pannes.write("time" + Sortie.SEP + "victim" + Sortie.SEP + "lostWork" + Sortie.SEP + "restartDelay"
+				+ Sortie.SEP + "sansEffet\n");
+		while (true) {
+			final int type = in.read();
+			if (type < 0)
+				return;
+			final int n = in.readInt();
+			if (type == TraceWriter.JOBS) {
+				final int[] id = readInts(n);
+				final long[] initialDuration = readLongs(n);
+				final long[] completedAt = readLongs(n);
+				final int[] nbCheckpoints = readInts(n);
+				final int[] nbRestarts = readInts(n);
+				final long[] lostWork = readLongs(n);
+				for (int k = 0; k < n; k++)
+					jobs.write(id[k] + Sortie.SEP + initialDuration[k] + Sortie.SEP + completedAt[k] + Sortie.SEP
+							+ nbCheckpoints[k] + Sortie.SEP + nbRestarts[k] + Sortie.SEP + lostWork[k] + "\n");
+			} else if (type == TraceWriter.PANNES) {
+				final long[] time = readLongs(n);
+				final int[] victim = readInts(n);
+				final long[] lostWork = readLongs(n);
+				final long[] restartDelay = readLongs(n);
+				final byte[] sansEffet = new byte[n];
+				in.readFully(sansEffet);
+				for (int k = 0; k < n; k++)
+					pannes.write(time[k] + Sortie.SEP + victim[k] + Sortie.SEP + lostWork[k] + Sortie.SEP
+							+ restartDelay[k] + Sortie.SEP + (sansEffet[k] != 0) + "\n");
+			} else
+				throw new IOException("Type de bloc inconnu: " + type);
+		}
+	}
+
+	private int[] readInts(int n) throws IOException {
+		final int[] v = new int[n];
+		for (int k = 0; k < n; k++)
+			v[k] = in.readInt();
+		return v;
+	}
+
+	private long[] readLongs(int n) throws IOException {
+		final long[] v = new long[n];
+		for (int k = 0; k < n; k++)
+			v[k] = in.readLong();
+		return v;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.err.println("Usage: TraceReader <trace>...");
+			System.exit(2);
+		}
+		for (String nom : args) {
+			try {
+				final TraceReader r = new TraceReader(new File(nom));
+				final BufferedWriter jobs = new BufferedWriter(new FileWriter(nom + ".jobs.csv"));
+				final BufferedWriter pannes = new BufferedWriter(new FileWriter(nom + ".pannes.csv"));
+				try {
+					r.convertir(jobs, pannes);
+				} finally {
+					r.close();
+					jobs.close();
+					pannes.close();
+				}
+				System.out.println("Trace convertie: " + nom + ".jobs.csv, " + nom + ".pannes.csv");
+			} catch (EOFException e) {
+				System.err.println("Trace incomplète: " + nom);
+				System.exit(1);
+			} catch (IOException e) {
+				System.err.println("Cannot read trace file " + nom + ": " + e.getMessage());
+				System.exit(1);
+			}
+		}
+	}
+}
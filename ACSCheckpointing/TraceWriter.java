@@ -0,0 +1,315 @@
+
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Trace binaire (optionnelle) d'une simulation: un enregistrement par job (à la
+ * fin de la simulation) et un enregistrement par panne.
+ * <p>
+ * Le format est en colonnes: les enregistrements sont regroupés par blocs d'un
+ * même type, et chaque bloc contient ses colonnes l'une après l'autre. Fichier:
+ * {@link #MAGIC}, {@link #VERSION} (int), puis des blocs: type (byte), nombre
+ * d'enregistrements n (int), puis chaque colonne (n valeurs). Les colonnes sont
+ * décrites par {@link BlocJobs} et {@link BlocPannes}. Voir
+ * {@link TraceReader} pour convertir une trace en csv.
+ * <p>
+ * Un bloc plein est passé à un thread d'écriture (par un FileChannel), qui le
+ * rend ensuite pour qu'il soit rempli à nouveau: il y a au plus
+ * {@link #NB_BLOCS} blocs de chaque type (alloués au besoin). La simulation
+ * n'attend le disque que si tous les blocs d'un type sont en attente
+ * d'écriture. Une trace n'est remplie que par un seul thread.
+ */
+public class TraceWriter implements Closeable {
+	public static final int MAGIC = 0x434b5054; // "CKPT"
+	public static final int VERSION = 1;
+
+	public static final byte JOBS = 1;
+	public static final byte PANNES = 2;
+
+	static final int TAILLE_BLOC = 4096;
+
+	/**
+	 * Le nombre maximal de blocs de chaque type
+	 */
+	static final int NB_BLOCS = 4;
+
+	private final File file;
+	private final FileChannel canal;
+
+	/**
+	 * Peut contenir tous les blocs, et la fin de la trace: l'ajout n'attend jamais
+	 */
+	private final BlockingQueue<Bloc> aEcrire = new ArrayBlockingQueue<Bloc>(2 * NB_BLOCS + 1);
+
+	/**
+	 * Les blocs écrits, prêts à être remplis à nouveau
+	 */
+	private final BlockingQueue<BlocJobs> jobsLibres = new ArrayBlockingQueue<BlocJobs>(NB_BLOCS);
+	private final BlockingQueue<BlocPannes> pannesLibres = new ArrayBlockingQueue<BlocPannes>(NB_BLOCS);
+
+	/**
+	 * Le nombre de blocs alloués de chaque type
+	 */
+	private int nbBlocsJobs = 1;
+	private int nbBlocsPannes = 1;
+
+	/**
+	 * Marque la fin de la trace pour le thread d'écriture
+	 */
+	private static final Bloc FIN = new Bloc() {
+		@Override
+		void serialiser(ByteBuffer out) {
+			throw new IllegalStateException();
+		}
+	};
+
+	private final Thread ecrivain;
+
+	private volatile IOException erreur = null;
+
+	private BlocJobs jobs = new BlocJobs();
+	private BlocPannes pannes = new BlocPannes();
+
+	private boolean ferme = false;
+
+	public TraceWriter(File file) {
+		this.file = file;
+		try {
+			final RandomAccessFile f = new RandomAccessFile(file, "rw");
+			f.setLength(0);
+			canal = f.getChannel();
+			final ByteBuffer entete = ByteBuffer.allocate(8);
+			entete.putInt(MAGIC).putInt(VERSION).flip();
+			while (entete.hasRemaining())
+				canal.write(entete);
+		} catch (IOException e) {
+			System.err.println("Cannot create/write trace file!");
+			throw new IllegalStateException("Cannot create/write trace file: " + file, e);
+		}
+
+		ecrivain = new Thread("Trace " + file.getName()) {
+			@Override
+			public void run() {
+				ecrire();
+			}
+		};
+		ecrivain.setDaemon(true);
+		ecrivain.start();
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Enregistre l'état final d'un job.
+	 *
+	 * @param id              L'indice du job
+	 * @param initialDuration La durée initiale du job
+	 * @param completedAt     Le moment où le job a été complété (0 s'il n'est pas
+	 *                        terminé)
+	 * @param nbCheckpoints   Le nombre de checkpoints effectués
+	 * @param nbRestarts      Le nombre de restarts après une panne
+	 * @param lostWork        Le travail perdu (non checkpointé) à cause des pannes
+	 */
+	public void job(int id, long initialDuration, long completedAt, int nbCheckpoints, int nbRestarts,
+			long lostWork) {
+		final BlocJobs b = jobs;
+		final int k = b.n++;
+		b.id[k] = id;
+		b.initialDuration[k] = initialDuration;
+		b.completedAt[k] = completedAt;
+		b.nbCheckpoints[k] = nbCheckpoints;
+		b.nbRestarts[k] = nbRestarts;
+		b.lostWork[k] = lostWork;
+		if (b.n == TAILLE_BLOC) {
+			envoyer(b);
+			BlocJobs libre = jobsLibres.poll();
+			if (libre == null && nbBlocsJobs < NB_BLOCS) {
+				nbBlocsJobs++;
+				libre = new BlocJobs();
+			}
+			jobs = libre != null ? libre : attendre(jobsLibres);
+		}
+	}
+
+	/**
+	 * Enregistre une panne.
+	 *
+	 * @param time         Le moment de la panne
+	 * @param victim       L'indice du job mis en panne
+	 * @param lostWork     Le travail non checkpointé du job (perdu au restart)
+	 * @param restartDelay Le délai avant le restart (0 si la panne est sans effet)
+	 * @param sansEffet    true si le job était déjà terminé
+	 */
+	public void panne(long time, int victim, long lostWork, long restartDelay, boolean sansEffet) {
+		final BlocPannes b = pannes;
+		final int k = b.n++;
+		b.time[k] = time;
+		b.victim[k] = victim;
+		b.lostWork[k] = lostWork;
+		b.restartDelay[k] = restartDelay;
+		b.sansEffet[k] = sansEffet ? (byte) 1 : 0;
+		if (b.n == TAILLE_BLOC) {
+			envoyer(b);
+			BlocPannes libre = pannesLibres.poll();
+			if (libre == null && nbBlocsPannes < NB_BLOCS) {
+				nbBlocsPannes++;
+				libre = new BlocPannes();
+			}
+			pannes = libre != null ? libre : attendre(pannesLibres);
+		}
+	}
+
+	private void envoyer(Bloc b) {
+		if (erreur != null)
+			throw new IllegalStateException("Cannot write trace file: " + file, erreur);
+		aEcrire.add(b);
+	}
+
+	/**
+	 * Attend qu'un bloc soit écrit.
+	 */
+	private <B extends Bloc> B attendre(BlockingQueue<B> libres) {
+		try {
+			return libres.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the trace file: " + file, e);
+		}
+	}
+
+	/**
+	 * Exécuté par le thread d'écriture. Après une erreur, les blocs ne sont plus
+	 * écrits mais sont toujours rendus (la simulation ne reste pas bloquée).
+	 */
+	private void ecrire() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BlocJobs.TAILLE_ENREGISTREMENT * TAILLE_BLOC + 5);
+		try {
+			while (true) {
+				final Bloc b = aEcrire.take();
+				if (b == FIN)
+					return;
+				if (erreur == null) {
+					try {
+						buffer.clear();
+						b.serialiser(buffer);
+						buffer.flip();
+						while (buffer.hasRemaining())
+							canal.write(buffer);
+					} catch (IOException e) {
+						erreur = e;
+					}
+				}
+				b.n = 0;
+				if (b instanceof BlocJobs)
+					jobsLibres.add((BlocJobs) b);
+				else
+					pannesLibres.add((BlocPannes) b);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Ecrit les blocs non pleins, attend la fin des écritures et ferme le fichier.
+	 */
+	@Override
+	public void close() {
+		if (ferme)
+			return;
+		ferme = true;
+		if (jobs.n > 0)
+			envoyer(jobs);
+		if (pannes.n > 0)
+			envoyer(pannes);
+		aEcrire.add(FIN);
+		try {
+			ecrivain.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			canal.close();
+		} catch (IOException e) {
+			System.err.println("Cannot close trace file, changes might have not been saved!");
+		}
+		if (erreur != null)
+			throw new IllegalStateException("Cannot write trace file: " + file, erreur);
+	}
+
+	private static abstract class Bloc {
+		/**
+		 * Le nombre d'enregistrements, remis à 0 par le thread d'écriture
+		 */
+		int n = 0;
+
+		abstract void serialiser(ByteBuffer out);
+	}
+
+	/**
+	 * Colonnes: id (int), initialDuration (long), completedAt (long),
+	 * nbCheckpoints (int), nbRestarts (int), lostWork (long).
+	 */
+	static final class BlocJobs extends Bloc {
+		static final int TAILLE_ENREGISTREMENT = 4 + 8 + 8 + 4 + 4 + 8;
+
+		final int[] id = new int[TAILLE_BLOC];
+		final long[] initialDuration = new long[TAILLE_BLOC];
+		final long[] completedAt = new long[TAILLE_BLOC];
+		final int[] nbCheckpoints = new int[TAILLE_BLOC];
+		final int[] nbRestarts = new int[TAILLE_BLOC];
+		final long[] lostWork = new long[TAILLE_BLOC];
+
+		@Override
+		void serialiser(ByteBuffer out) {
+			out.put(JOBS).putInt(n);
+			putInts(out, id, n);
+			putLongs(out, initialDuration, n);
+			putLongs(out, completedAt, n);
+			putInts(out, nbCheckpoints, n);
+			putInts(out, nbRestarts, n);
+			putLongs(out, lostWork, n);
+		}
+	}
+
+	/**
+	 * Colonnes: time (long), victim (int), lostWork (long), restartDelay (long),
+	 * sansEffet (byte).
+	 */
+	static final class BlocPannes extends Bloc {
+		final long[] time = new long[TAILLE_BLOC];
+		final int[] victim = new int[TAILLE_BLOC];
+		final long[] lostWork = new long[TAILLE_BLOC];
+		final long[] restartDelay = new long[TAILLE_BLOC];
+		final byte[] sansEffet = new byte[TAILLE_BLOC];
+
+		@Override
+		void serialiser(ByteBuffer out) {
+			out.put(PANNES).putInt(n);
+			putLongs(out, time, n);
+			putInts(out, victim, n);
+			putLongs(out, lostWork, n);
+			putLongs(out, restartDelay, n);
+			out.put(sansEffet, 0, n);
+		}
+	}
+
+	private static void putInts(ByteBuffer out, int[] colonne, int n) {
+		out.asIntBuffer().put(colonne, 0, n);
+		out.position(out.position() + 4 * n);
+	}
+
+	private static void putLongs(ByteBuffer out, long[] colonne, int n) {
+		out.asLongBuffer().put(colonne, 0, n);
+		out.position(out.position() + 8 * n);
+	}
+}
@@ -0,0 +1,61 @@
+
+
+/**
+ * Les types d'évènements comptés par {@link Compteurs}.
+ */
+public enum TypeEvenement {
+	/**
+	 * Début d'un checkpoint (le job est arrêté)
+	 */
+	CHECKPOINT,
+
+	/**
+	 * Fin d'un checkpoint (le job reprend)
+	 */
+	CONTINUE,
+
+	/**
+	 * Fin d'un job
+	 */
+	END,
+
+	/**
+	 * Panne (même sans effet)
+	 */
+	BREAKDOWN,
+
+	/**
+	 * Restart d'un job après une panne
+	 */
+	RESTART,
+
+	/**
+	 * Planification de la panne suivante, après une panne sans effet ou un restart
+	 * (simulateur d'ACS seulement)
+	 */
+	PLANIFICATION,
+
+	/**
+	 * Fin de l'écriture d'un checkpoint dans le stockage (voir {@link Stockage},
+	 * simulateur d'ACS seulement)
+	 */
+	STOCKAGE,
+
+	/**
+	 * Retour d'un noeud réparé dans la réserve de noeuds de secours (voir
+	 * {@link ReserveNoeuds}, simulateur d'ACS seulement)
+	 */
+	REPARATION,
+
+	/**
+	 * Arrivée d'un job (voir {@link SimulationOuverte})
+	 */
+	ARRIVEE,
+
+	/**
+	 * Ajustement du MTTF estimé (voir {@link OurInterval}). Ce n'est pas un
+	 * évènement planifié: il est appliqué au prochain appel de l'objet
+	 * CheckpointInterval.
+	 */
+	AJUSTER
+}
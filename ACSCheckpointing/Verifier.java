@@ -0,0 +1,373 @@
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.samysadi.acs.core.Config;
+import com.samysadi.acs.core.Simulator;
+import com.samysadi.acs.core.event.DispensableEventImpl;
+import com.samysadi.acs.core.event.Event;
+import com.samysadi.acs.core.event.EventImpl;
+
+/**
+ * Vérifie les équivalences sur lesquelles reposent les moteurs de simulation:
+ * <ul>
+ * <li>la file {@link EventHeap} (planification, annulation, replanification,
+ * ordre des évènements de même temps);</li>
+ * <li>les classes de {@link Histogramme} et ses quantiles;</li>
+ * <li>les fins des transferts de {@link Stockage} (file et partage du débit),
+ * comparées à des fins calculées à la main;</li>
+ * <li>le même résultat ({@link PointResult#format()}) avec le simulateur d'ACS,
+ * une partition et quatre partitions;</li>
+ * <li>le même résultat avec les ajustements de {@link OurInterval} appliqués à
+ * l'échéance et avec des évènements planifiés (l'implémentation d'origine);</li>
+ * <li>le même résultat pour chaque approche simulée seule et toutes ensemble
+ * (voir {@link MultiPolicySimulation}).</li>
+ * </ul>
+ * Affiche une ligne par vérification, et se termine avec le code 1 si une
+ * vérification échoue.
+ */
+public class Verifier {
+	private static final long DELTA = 5 * Simulator.MINUTE;
+
+	private static final double A = 1.5;
+
+	private static final double N = 0.5;
+
+	private static final long[] MTTFS = new long[] { 100, 1000 };
+
+	private static int nbEchecs = 0;
+
+	/**
+	 * {@link OurIntervalMultiplicativeApproach} telle qu'elle était avant les
+	 * ajustements à l'échéance: chaque ajustement est un évènement du simulateur
+	 * d'ACS, annulé par la panne suivante.
+	 */
+	public static class MultiplicativeEvenementielle implements CheckpointInterval {
+		private long ap_Mttf;
+		private Event ajuster = null;
+
+		public MultiplicativeEvenementielle(long ap_Mttf) {
+			this.ap_Mttf = ap_Mttf;
+			generateAjuster();
+		}
+
+		private void generateAjuster() {
+			if (ajuster != null)
+				ajuster.cancel();
+			ajuster = new DispensableEventImpl() {
+				@Override
+				public void process() {
+					ap_Mttf = verifierDepassement((long) (ap_Mttf * A));
+				}
+			};
+			Simulator.getSimulator().schedule(ap_Mttf, ajuster);
+		}
+
+		private static long verifierDepassement(long v) {
+			if (v < 0 || v >= Simulator.getSimulator().getMaximumScheduleDelay())
+				v = Simulator.getSimulator().getMaximumScheduleDelay();
+			return v;
+		}
+
+		@Override
+		public long getCheckpointInterval(long delta) {
+			long interval = (long) Math.sqrt(2 * (double) delta * ap_Mttf);
+			if (interval <= 0)
+				return delta;
+			return interval;
+		}
+
+		@Override
+		public void onFailure(long ttf) {
+			ap_Mttf = verifierDepassement((long) (ap_Mttf * Math.pow(A, (double) (ttf - ap_Mttf) / ap_Mttf)));
+			generateAjuster();
+		}
+	}
+
+	private static void verifier(String nom, boolean ok) {
+		System.out.println((ok ? "OK     " : "ECHEC  ") + nom);
+		if (!ok)
+			nbEchecs++;
+	}
+
+	private static void verifierEgaux(String nom, Object attendu, Object obtenu) {
+		final boolean ok = attendu.equals(obtenu);
+		verifier(nom, ok);
+		if (!ok)
+			System.out.println("       attendu: " + attendu + "\n       obtenu:  " + obtenu);
+	}
+
+	private static List<Integer> vider(EventHeap tas) {
+		final List<Integer> ordre = new ArrayList<Integer>();
+		while (!tas.isEmpty())
+			ordre.add(tas.poll());
+		return ordre;
+	}
+
+	private static void verifierTas() {
+		EventHeap tas = new EventHeap(8);
+		tas.schedule(3, 30);
+		tas.schedule(1, 10);
+		tas.schedule(2, 20);
+		verifierEgaux("EventHeap: ordre des temps", "[1, 2, 3]", vider(tas).toString());
+
+		tas.schedule(5, 10);
+		tas.schedule(2, 10);
+		tas.schedule(7, 10);
+		tas.schedule(0, 5);
+		verifierEgaux("EventHeap: temps égaux dans l'ordre de planification", "[0, 5, 2, 7]", vider(tas).toString());
+
+		tas.schedule(1, 10);
+		tas.schedule(2, 20);
+		tas.schedule(3, 20);
+		tas.schedule(1, 30);
+		tas.schedule(2, 20);
+		verifierEgaux("EventHeap: replanification", "[3, 2, 1]", vider(tas).toString());
+
+		tas.schedule(1, 10);
+		tas.schedule(2, 20);
+		tas.schedule(3, 30);
+		tas.cancel(2);
+		tas.cancel(6);
+		verifier("EventHeap: annulation", !tas.isScheduled(2) && tas.size() == 2 && tas.peek() == 1);
+		verifierEgaux("EventHeap: ordre après annulation", "[1, 3]", vider(tas).toString());
+
+		// comparaison avec une file naïve (recherche du minimum), opérations au hasard
+		final int nbSlots = 64;
+		tas = new EventHeap(nbSlots);
+		final long[] temps = new long[nbSlots];
+		final long[] ordres = new long[nbSlots];
+		final boolean[] planifies = new boolean[nbSlots];
+		final Random random = new Random(0);
+		long ordre = 0;
+		boolean ok = true;
+		for (int k = 0; k < 100000 && ok; k++) {
+			final int slot = random.nextInt(nbSlots);
+			final int operation = random.nextInt(3);
+			if (operation == 0) {
+				// peu de temps différents: beaucoup d'égalités
+				temps[slot] = random.nextInt(16);
+				ordres[slot] = ordre++;
+				planifies[slot] = true;
+				tas.schedule(slot, temps[slot]);
+			} else if (operation == 1) {
+				planifies[slot] = false;
+				tas.cancel(slot);
+			} else {
+				int attendu = -1;
+				for (int s = 0; s < nbSlots; s++)
+					if (planifies[s] && (attendu < 0 || temps[s] < temps[attendu]
+							|| (temps[s] == temps[attendu] && ordres[s] < ordres[attendu])))
+						attendu = s;
+				ok = tas.peek() == attendu;
+				if (attendu >= 0) {
+					planifies[attendu] = false;
+					ok &= tas.poll() == attendu;
+				}
+			}
+		}
+		verifier("EventHeap: opérations au hasard comparées à une file naïve", ok);
+	}
+
+	/**
+	 * Vérifie qu'une valeur est dans sa classe, et l'erreur relative de la borne
+	 * supérieure de sa classe.
+	 */
+	private static boolean verifierClasse(long v) {
+		final long borne = Histogramme.maxClasse(Histogramme.classe(v));
+		return borne >= v && (borne - v) <= v / 100;
+	}
+
+	private static void verifierHistogramme() {
+		// chaque classe commence juste après la précédente
+		boolean ok = Histogramme.classe(0) == 0;
+		for (int c = 0; c + 1 < Histogramme.NB_CLASSES && ok; c++)
+			ok = Histogramme.classe(Histogramme.maxClasse(c)) == c
+					&& Histogramme.classe(Histogramme.maxClasse(c) + 1) == c + 1;
+		verifier("Histogramme: classes contiguës", ok
+				&& Histogramme.maxClasse(Histogramme.NB_CLASSES - 1) == Long.MAX_VALUE);
+
+		ok = true;
+		for (int k = 1; k < 63; k++) {
+			final long p = 1L << k;
+			ok &= verifierClasse(p - 1) && verifierClasse(p) && verifierClasse(p + 1);
+		}
+		verifier("Histogramme: erreur relative autour des puissances de 2 (256, 512, ...)", ok);
+		verifier("Histogramme: erreur relative près de Long.MAX_VALUE", verifierClasse(Long.MAX_VALUE)
+				&& verifierClasse(Long.MAX_VALUE - 1) && verifierClasse(Long.MAX_VALUE / 2 + 1));
+
+		// quantiles d'un échantillon (log-uniforme entre 1 et 1e12) comparés aux
+		// quantiles exacts
+		final Random random = new Random(0);
+		final long[] echantillon = new long[100000];
+		final Histogramme h = new Histogramme();
+		for (int k = 0; k < echantillon.length; k++) {
+			echantillon[k] = (long) Math.exp(random.nextDouble() * Math.log(1e12));
+			h.add(echantillon[k]);
+		}
+		Arrays.sort(echantillon);
+		for (double p : new double[] { 0.1, 1, 50, 90, 99, 99.9, 100 }) {
+			final long exact = echantillon[(int) Math.ceil(p / 100 * echantillon.length) - 1];
+			final long q = h.getQuantile(p);
+			verifier("Histogramme: quantile " + p + "% (exact " + exact + ", obtenu " + q + ")",
+					q >= exact && q - exact <= exact / 100);
+		}
+	}
+
+	/**
+	 * Simule des transferts d'un checkpoint de 10 Mo, avec un débit de 1 Mo/s.
+	 *
+	 * @param debuts      Les moments où les transferts sont soumis (en secondes)
+	 * @param annulations Les moments où les transferts sont annulés (en
+	 *                    secondes), -1 pour ne pas les annuler
+	 * @return Les moments où les transferts se terminent (en secondes), -1 pour
+	 *         ceux qui ne se terminent pas
+	 */
+	private static double[] simulerTransferts(ModeStockage mode, long[] debuts, long[] annulations) {
+		final Simulator simulator = new Simulator(new Config());
+		try {
+			final Stockage stockage = Stockage.creer(
+					scenario(NoCheckpoint.class, ModeVictimes.TOUS, 0).withStockage(mode, 1, 10), new Compteurs());
+			final double[] fins = new double[debuts.length];
+			final Stockage.Transfert[] transferts = new Stockage.Transfert[debuts.length];
+			for (int k = 0; k < debuts.length; k++) {
+				final int i = k;
+				fins[i] = -1;
+				simulator.schedule(debuts[i] * Simulator.SECOND, new EventImpl() {
+					@Override
+					public void process() {
+						transferts[i] = stockage.soumettre(new Stockage.Client() {
+							@Override
+							public void transfertTermine() {
+								fins[i] = (double) simulator.getTime() / Simulator.SECOND;
+							}
+						});
+					}
+				});
+				if (annulations[i] >= 0)
+					simulator.schedule(annulations[i] * Simulator.SECOND, new EventImpl() {
+						@Override
+						public void process() {
+							stockage.annuler(transferts[i]);
+						}
+					});
+			}
+			simulator.start(Simulator.HOUR);
+			return fins;
+		} finally {
+			simulator.free();
+		}
+	}
+
+	private static void verifierTransferts(String nom, ModeStockage mode, long[] debuts, long[] annulations,
+			double[] attendues) {
+		final double[] fins = simulerTransferts(mode, debuts, annulations);
+		boolean ok = true;
+		// les délais planifiés sont arrondis au-dessus (à quelques unités de temps du
+		// simulateur près)
+		for (int k = 0; k < fins.length; k++)
+			ok &= Math.abs(fins[k] - attendues[k]) <= 5.0 / Simulator.SECOND;
+		verifier("Stockage " + mode + ": " + nom, ok);
+		if (!ok)
+			System.out.println("       attendu: " + Arrays.toString(attendues) + "\n       obtenu:  "
+					+ Arrays.toString(fins));
+	}
+
+	private static void verifierStockage() {
+		final long[] aucune = new long[] { -1, -1, -1 };
+		verifierTransferts("soumis ensemble", ModeStockage.FIFO, new long[] { 0, 0, 0 }, aucune,
+				new double[] { 10, 20, 30 });
+		verifierTransferts("soumis l'un après l'autre", ModeStockage.FIFO, new long[] { 0, 5, 25 }, aucune,
+				new double[] { 10, 20, 35 });
+		verifierTransferts("annulation du transfert en cours", ModeStockage.FIFO, new long[] { 0, 0, 0 },
+				new long[] { 5, -1, -1 }, new double[] { -1, 15, 25 });
+		verifierTransferts("annulation d'un transfert en attente", ModeStockage.FIFO, new long[] { 0, 0, 0 },
+				new long[] { -1, 5, -1 }, new double[] { 10, -1, 20 });
+
+		// deux transferts ensemble: chacun a la moitié du débit
+		verifierTransferts("soumis ensemble", ModeStockage.PARTAGE, new long[] { 0, 0 }, new long[] { -1, -1 },
+				new double[] { 20, 20 });
+		// à 5s, le premier a écrit 5 Mo: il lui reste 10s à demi débit, puis il
+		// reste 5 Mo au second, seul
+		verifierTransferts("soumis l'un après l'autre", ModeStockage.PARTAGE, new long[] { 0, 5 },
+				new long[] { -1, -1 }, new double[] { 15, 20 });
+		// à 5s, chacun a écrit 2,5 Mo: le premier écrit les 7,5 Mo restants seul
+		verifierTransferts("annulation à mi-chemin", ModeStockage.PARTAGE, new long[] { 0, 0 }, new long[] { -1, 5 },
+				new double[] { 12.5, -1 });
+		// le transfert annulé reste en tête du tas (même fin que les autres): à 3s,
+		// chacun a écrit 1 Mo, les deux autres écrivent 9 Mo à demi débit
+		verifierTransferts("annulation d'un transfert en tête du tas", ModeStockage.PARTAGE,
+				new long[] { 0, 0, 0 }, new long[] { 3, -1, -1 }, new double[] { -1, 21, 21 });
+		// à 6s, le premier a écrit 4 Mo (2 seul, puis 2 à demi débit), le second 2
+		// Mo; à trois, le premier termine à 6 + 3 * 6 = 24s, le second a alors écrit
+		// 8 Mo et termine à deux à 24 + 2 * 2 = 28s, le troisième a écrit 8 Mo et
+		// termine seul à 28 + 2 = 30s
+		verifierTransferts("trois transferts décalés", ModeStockage.PARTAGE, new long[] { 0, 2, 6 }, aucune,
+				new double[] { 24, 28, 30 });
+	}
+
+	private static Scenario scenario(Class<? extends CheckpointInterval> approche, ModeVictimes modeVictimes,
+			int nbShards) {
+		return new Scenario(approche, A, N, DELTA, DELTA, 200, 100 * Simulator.HOUR, 1000000L, 0,
+				2000 * Simulator.HOUR, nbShards).withEstimateurPartage(true).withModeVictimes(modeVictimes);
+	}
+
+	private static List<Class<? extends CheckpointInterval>> approches() {
+		final List<Class<? extends CheckpointInterval>> approches = new ArrayList<Class<? extends CheckpointInterval>>();
+		approches.add(YoungCheckpoint.class);
+		approches.add(NoCheckpoint.class);
+		approches.add(OurIntervalMultiplicativeApproach.class);
+		approches.add(OurIntervalAdditiveApproach.class);
+		return approches;
+	}
+
+	private static void verifierMoteurs() {
+		for (ModeVictimes modeVictimes : ModeVictimes.values())
+			for (Class<? extends CheckpointInterval> approche : approches())
+				for (long mttf : MTTFS) {
+					final String acs = MainClass.simulerPoint(scenario(approche, modeVictimes, 0), mttf).format();
+					final String point = approche.getSimpleName() + " " + modeVictimes + " mttf=" + mttf;
+					verifierEgaux("ACS / 1 partition: " + point, acs,
+							MainClass.simulerPoint(scenario(approche, modeVictimes, 1), mttf).format());
+					verifierEgaux("ACS / 4 partitions: " + point, acs,
+							MainClass.simulerPoint(scenario(approche, modeVictimes, 4), mttf).format());
+				}
+	}
+
+	private static void verifierAjustements() {
+		for (boolean partage : new boolean[] { true, false })
+			for (long mttf : MTTFS) {
+				final Scenario s = scenario(OurIntervalMultiplicativeApproach.class, ModeVictimes.TOUS, 0)
+						.withEstimateurPartage(partage);
+				verifierEgaux("Ajustements à l'échéance / évènements: partage=" + partage + " mttf=" + mttf,
+						MainClass.simulerPoint(s.withApproche(MultiplicativeEvenementielle.class), mttf).format(),
+						MainClass.simulerPoint(s, mttf).format());
+			}
+	}
+
+	private static void verifierApproches() {
+		final List<Class<? extends CheckpointInterval>> approches = approches();
+		for (long mttf : MTTFS) {
+			final Scenario s = scenario(YoungCheckpoint.class, ModeVictimes.TOUS, 1);
+			final PointResult[] ensemble = MainClass.simulerApproches(s, approches, mttf);
+			for (int i = 0; i < approches.size(); i++)
+				verifierEgaux("Approches ensemble / seules: " + approches.get(i).getSimpleName() + " mttf=" + mttf,
+						MainClass.simulerPoint(s.withApproche(approches.get(i)), mttf).format(), ensemble[i].format());
+		}
+	}
+
+	public static void main(String[] args) {
+		verifierTas();
+		verifierHistogramme();
+		verifierStockage();
+		verifierMoteurs();
+		verifierAjustements();
+		verifierApproches();
+		System.out.println(nbEchecs == 0 ? "Toutes les vérifications sont passées"
+				: nbEchecs + " vérification(s) en échec");
+		System.exit(nbEchecs == 0 ? 0 : 1);
+	}
+}
@@ -0,0 +1,34 @@
+
+
+/**
+ * Le générateur xoshiro256** (Blackman et Vigna), initialisé avec SplitMix64.
+ */
+public class Xoshiro256 implements RandomSource {
+	private long s0, s1, s2, s3;
+
+	public Xoshiro256(long seed) {
+		SplitMix64 sm = new SplitMix64(seed);
+		s0 = sm.nextLong();
+		s1 = sm.nextLong();
+		s2 = sm.nextLong();
+		s3 = sm.nextLong();
+	}
+
+	@Override
+	public long nextLong() {
+		final long result = Long.rotateLeft(s1 * 5, 7) * 9;
+		final long t = s1 << 17;
+		s2 ^= s0;
+		s3 ^= s1;
+		s1 ^= s2;
+		s0 ^= s3;
+		s2 ^= t;
+		s3 = Long.rotateLeft(s3, 45);
+		return result;
+	}
+
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+}
@@ -0,0 +1,153 @@
+
+
+import java.util.Random;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+
+import com.samysadi.acs.core.Config;
+import com.samysadi.acs.core.Simulator;
+import com.samysadi.acs.utility.random.Exponential;
+
+/**
+ * Les objets mesurés par les benchmarks (paquetage checkpointing.benchmarks).
+ * <p>
+ * Les classes de la simulation sont dans le paquetage par défaut, qu'on ne
+ * peut pas importer depuis un paquetage nommé (et JMH ne supporte pas les
+ * benchmarks du paquetage par défaut). Les benchmarks appellent donc ces
+ * méthodes par réflexion, une seule fois à l'initialisation, et ne manipulent
+ * ensuite que des interfaces du JDK.
+ */
+public class Fixtures {
+	private static final long DELTA = 5 * Simulator.MINUTE;
+	private static final long MTTF = 1000 * Simulator.HOUR;
+
+	@SuppressWarnings("unchecked")
+	private static Class<? extends CheckpointInterval> approche(String nom) {
+		try {
+			return (Class<? extends CheckpointInterval>) Class.forName(nom);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalArgumentException("Approche inconnue: " + nom);
+		}
+	}
+
+	/**
+	 * Une horloge arrêtée au temps 0.
+	 */
+	private static final Horloge HORLOGE = new Horloge() {
+		@Override
+		public long getTime() {
+			return 0;
+		}
+
+		@Override
+		public long getMaximumScheduleDelay() {
+			return Long.MAX_VALUE;
+		}
+	};
+
+	/**
+	 * Crée un simulateur ACS (libéré par {@link #libererSimulateur()}) et un job.
+	 *
+	 * @return Un cycle startJob(), stopJob(), createContinueJob() du job (retourne
+	 *         le nombre d'évènements planifiés pendant le cycle, compté par les
+	 *         {@link Compteurs} du job)
+	 */
+	public static LongSupplier cycleJob() {
+		new Simulator(new Config());
+		final Job job = new Job(MTTF, new YoungCheckpoint(MTTF), new Exponential(DELTA, new Random(0)));
+		final Compteurs compteurs = new Compteurs();
+		job.setCompteurs(compteurs);
+		return new LongSupplier() {
+			@Override
+			public long getAsLong() {
+				final long avant = compteurs.getPlanifies();
+				job.startJob();
+				job.stopJob();
+				job.createContinueJob();
+				return compteurs.getPlanifies() - avant;
+			}
+		};
+	}
+
+	public static void libererSimulateur() {
+		Simulator.getSimulator().free();
+	}
+
+	/**
+	 * @param nom Le nom de la classe de l'approche
+	 * @return La méthode getCheckpointInterval(delta) d'un objet de l'approche
+	 *         (les approches {@link OurInterval} utilisent une horloge arrêtée)
+	 */
+	public static LongUnaryOperator checkpointInterval(String nom) {
+		final Class<? extends CheckpointInterval> c = approche(nom);
+		final CheckpointInterval ci;
+		try {
+			if (OurInterval.class.isAssignableFrom(c))
+				ci = c.getConstructor(long.class, Horloge.class).newInstance(MTTF, HORLOGE);
+			else
+				ci = c.getConstructor(long.class).newInstance(MTTF);
+		} catch (Exception e) {
+			throw new IllegalStateException("La classe " + nom + " ne contient pas un constructeur adéquat.", e);
+		}
+		return new LongUnaryOperator() {
+			@Override
+			public long applyAsLong(long delta) {
+				return ci.getCheckpointInterval(delta);
+			}
+		};
+	}
+
+	/**
+	 * Crée un simulateur ACS (libéré par {@link #libererSimulateur()}) et une
+	 * simulation de {@code nbJobs} jobs.
+	 *
+	 * @return La diffusion d'une panne à tous les jobs (voir
+	 *         {@link MainClass#diffuserPanne(long)}), qui retourne le nombre
+	 *         d'appels à onFailure()
+	 */
+	public static LongSupplier diffusionPanne(String nom, int nbJobs, boolean partage) {
+		new Simulator(new Config());
+		final Scenario scenario = new Scenario(approche(nom), 1.5, 0.5, DELTA, DELTA, nbJobs, MTTF, null, 0,
+				Long.MAX_VALUE, 0).withEstimateurPartage(partage);
+		final MainClass m = new MainClass(scenario, MTTF, MTTF);
+		final long ttf = MTTF;
+		final long appels = partage ? 1 : nbJobs;
+		return new LongSupplier() {
+			@Override
+			public long getAsLong() {
+				m.diffuserPanne(ttf);
+				return appels;
+			}
+		};
+	}
+
+	/**
+	 * @param nbShards 0 pour le simulateur d'ACS, sinon le nombre de partitions
+	 * @return La simulation complète d'un petit point, qui retourne le nombre
+	 *         d'évènements traités (voir {@link Simulation#getCompteurs()})
+	 */
+	public static LongSupplier pointSimule(String nom, final int nbShards) {
+		final Scenario scenario = new Scenario(approche(nom), 1.5, 0.5, DELTA, DELTA, 50, 100 * Simulator.HOUR,
+				null, 0, 2000 * Simulator.HOUR, nbShards).withEstimateurPartage(true);
+		final long mttf = 100;
+		return new LongSupplier() {
+			@Override
+			public long getAsLong() {
+				if (nbShards == 0) {
+					final Simulator simulator = new Simulator(new Config());
+					final MainClass m = new MainClass(scenario, mttf * Simulator.HOUR, scenario.getApMttf(mttf));
+					try {
+						simulator.start(scenario.getHorizon());
+						return m.getCompteurs().getTotal();
+					} finally {
+						simulator.free();
+					}
+				}
+				ShardedSimulation m = new ShardedSimulation(scenario, mttf * Simulator.HOUR,
+						scenario.getApMttf(mttf));
+				m.run(scenario.getHorizon());
+				return m.getCompteurs().getTotal();
+			}
+		};
+	}
+}
@@ -0,0 +1,30 @@
+package checkpointing.benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Appelle les méthodes de la classe Fixtures (paquetage par défaut) par
+ * réflexion.
+ */
+final class Acces {
+	private Acces() {
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> T appeler(String methode, Object... args) {
+		try {
+			final Class<?> fixtures = Class.forName("Fixtures");
+			for (Method m : fixtures.getMethods())
+				if (m.getName().equals(methode) && m.getParameterTypes().length == args.length)
+					return (T) m.invoke(null, args);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("La classe Fixtures est introuvable", e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException("Echec de Fixtures." + methode + ": " + e.getCause(), e.getCause());
+		}
+		throw new IllegalArgumentException("Méthode inconnue: Fixtures." + methode);
+	}
+}
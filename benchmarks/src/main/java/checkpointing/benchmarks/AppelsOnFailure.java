@@ -0,0 +1,21 @@
+package checkpointing.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Les appels à onFailure(), rapportés par JMH en appels par seconde.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class AppelsOnFailure {
+	public long onFailure;
+
+	@Setup(Level.Iteration)
+	public void reset() {
+		onFailure = 0;
+	}
+}
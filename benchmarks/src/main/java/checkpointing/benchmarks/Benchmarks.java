@@ -0,0 +1,23 @@
+package checkpointing.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lance les benchmarks avec le profileur GC (taux d'allocation, en plus des
+ * opérations et des évènements par seconde).
+ * <p>
+ * Argument optionnel: une expression régulière qui filtre les benchmarks à
+ * lancer (par exemple "FailureBroadcast").
+ */
+public class Benchmarks {
+	public static void main(String[] args) throws RunnerException {
+		final Options options = new OptionsBuilder()
+				.include(args.length > 0 ? args[0] : Benchmarks.class.getPackage().getName() + ".*")
+				.addProfiler(GCProfiler.class).build();
+		new Runner(options).run();
+	}
+}
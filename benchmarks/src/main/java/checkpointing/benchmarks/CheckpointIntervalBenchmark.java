@@ -0,0 +1,46 @@
+package checkpointing.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.samysadi.acs.core.Simulator;
+
+/**
+ * getCheckpointInterval(delta) de chaque approche.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckpointIntervalBenchmark {
+	@Param({ "YoungCheckpoint", "NoCheckpoint", "OurIntervalAdditiveApproach", "OurIntervalMultiplicativeApproach" })
+	public String approche;
+
+	private LongUnaryOperator interval;
+
+	private long delta = 5 * Simulator.MINUTE;
+
+	@Setup
+	public void setup() {
+		interval = Acces.appeler("checkpointInterval", approche);
+	}
+
+	@Benchmark
+	public long getCheckpointInterval() {
+		return interval.applyAsLong(delta);
+	}
+}
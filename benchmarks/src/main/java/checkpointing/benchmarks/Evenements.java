@@ -0,0 +1,22 @@
+package checkpointing.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Les évènements de simulation planifiés ou traités, rapportés par JMH en
+ * évènements par seconde (à côté des opérations par seconde).
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Evenements {
+	public long evenements;
+
+	@Setup(Level.Iteration)
+	public void reset() {
+		evenements = 0;
+	}
+}
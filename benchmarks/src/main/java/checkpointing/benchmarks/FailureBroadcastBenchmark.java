@@ -0,0 +1,58 @@
+package checkpointing.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * La diffusion d'une panne à tous les jobs dans generateFailureEvent() (voir
+ * MainClass.diffuserPanne()), avec un objet CheckpointInterval par job ou un
+ * seul objet partagé.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class FailureBroadcastBenchmark {
+	@Param({ "500", "50000", "1000000" })
+	public int nbJobs;
+
+	@Param({ "false", "true" })
+	public boolean partage;
+
+	@Param({ "OurIntervalMultiplicativeApproach" })
+	public String approche;
+
+	private LongSupplier diffusion;
+
+	@Setup
+	public void setup() {
+		diffusion = Acces.appeler("diffusionPanne", approche, nbJobs, partage);
+	}
+
+	@TearDown
+	public void tearDown() {
+		Acces.appeler("libererSimulateur");
+	}
+
+	@Benchmark
+	public long diffuserPanne(AppelsOnFailure c) {
+		final long appels = diffusion.getAsLong();
+		c.onFailure += appels;
+		return appels;
+	}
+}
@@ -0,0 +1,51 @@
+package checkpointing.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Un cycle startJob(), stopJob(), createContinueJob() d'un Job (simulateur
+ * d'ACS). Les évènements planifiés par le cycle (fin et checkpoint, annulés
+ * par stopJob()) sont comptés par les compteurs du job.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JobBenchmark {
+	private LongSupplier cycle;
+
+	// un nouveau simulateur à chaque itération: les évènements annulés ne
+	// s'accumulent pas dans sa file
+	@Setup(Level.Iteration)
+	public void setup() {
+		cycle = Acces.appeler("cycleJob");
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		Acces.appeler("libererSimulateur");
+	}
+
+	@Benchmark
+	public long cycleJob(Evenements c) {
+		final long n = cycle.getAsLong();
+		c.evenements += n;
+		return n;
+	}
+}
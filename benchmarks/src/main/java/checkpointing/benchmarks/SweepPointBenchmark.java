@@ -0,0 +1,50 @@
+package checkpointing.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * La simulation complète d'un petit point (50 jobs de 100h, MTTF de 100h),
+ * avec le simulateur d'ACS (nbShards = 0) ou le moteur partitionné. Les
+ * évènements traités sont comptés par les compteurs de la simulation, de la
+ * même façon pour les deux moteurs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SweepPointBenchmark {
+	@Param({ "0", "1" })
+	public int nbShards;
+
+	@Param({ "OurIntervalMultiplicativeApproach" })
+	public String approche;
+
+	private LongSupplier point;
+
+	@Setup
+	public void setup() {
+		point = Acces.appeler("pointSimule", approche, nbShards);
+	}
+
+	@Benchmark
+	public long simulerPoint(Evenements c) {
+		final long n = point.getAsLong();
+		c.evenements += n;
+		return n;
+	}
+}